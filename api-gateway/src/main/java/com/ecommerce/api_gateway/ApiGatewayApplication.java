@@ -3,7 +3,7 @@ package com.ecommerce.api_gateway;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
-@SpringBootApplication
+@SpringBootApplication(scanBasePackages = "com.ecommerce.gateway")
 public class ApiGatewayApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,33 @@
+package com.ecommerce.gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "gateway.concurrency-limit")
+@Data
+public class ConcurrencyLimitProperties {
+
+    private boolean enabled = true;
+
+    // In-flight requests a route starts with before any latency has been measured
+    private int initialLimit = 20;
+
+    // The limit never shrinks below this, so a slow backend still sees some traffic
+    private int minLimit = 4;
+
+    private int maxLimit = 200;
+
+    // How far recent latency may rise above the long-run baseline before the limit shrinks
+    private double rttTolerance = 1.5;
+
+    // Weight of each new estimate; lower values react more slowly but jitter less
+    private double smoothing = 0.2;
+
+    // Samples averaged into the long-run latency baseline
+    private int longWindow = 600;
+
+    // Multiplier applied to the limit when a request fails, times out or gets a 5xx
+    private double backoffRatio = 0.9;
+}
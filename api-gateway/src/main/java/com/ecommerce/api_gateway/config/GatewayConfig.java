@@ -1,5 +1,11 @@
 package com.ecommerce.gateway.config;
 
+import com.ecommerce.gateway.filter.AdaptiveConcurrencyGatewayFilterFactory;
+import com.ecommerce.gateway.filter.HedgingGatewayFilter;
+import com.ecommerce.gateway.filter.ResponseCacheGatewayFilter;
+import com.ecommerce.gateway.ratelimit.LocalRateLimiter;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
 import org.springframework.cloud.gateway.route.RouteLocator;
 import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
 import org.springframework.context.annotation.Bean;
@@ -10,24 +16,43 @@ import org.springframework.http.HttpMethod;
 public class GatewayConfig {
     
     @Bean
-    public RouteLocator customRouteLocator(RouteLocatorBuilder builder) {
+    public RouteLocator customRouteLocator(RouteLocatorBuilder builder, 
+                                           ResponseCacheGatewayFilter responseCache,
+                                           AdaptiveConcurrencyGatewayFilterFactory adaptiveConcurrency,
+                                           HedgingGatewayFilter hedging,
+                                           LocalRateLimiter rateLimiter,
+                                           @Qualifier("ipKeyResolver") KeyResolver ipKeyResolver,
+                                           @Qualifier("userKeyResolver") KeyResolver userKeyResolver) {
         return builder.routes()
             // Product Service Route
             .route("product-service", r -> r
                 .path("/api/products/**")
                 .filters(f -> f
+                    .filter(responseCache)
+                    .requestRateLimiter(config -> config
+                        .setRateLimiter(rateLimiter)
+                        .setKeyResolver(ipKeyResolver))
                     .circuitBreaker(config -> config
                         .setName("productServiceCB")
                         .setFallbackUri("forward:/fallback/products"))
                     .retry(retryConfig -> retryConfig
                         .setRetries(3)
-                        .setMethods(HttpMethod.GET)))
+                        .setMethods(HttpMethod.GET))
+                    .filter(adaptiveConcurrency.apply(config -> config
+                        .setFallbackUri("forward:/fallback/products")))
+                    .filter(hedging))
                 .uri("lb://PRODUCT-SERVICE"))
             
             // Product Service Categories Route
             .route("product-categories", r -> r
                 .path("/api/categories/**")
                 .filters(f -> f
+                    .filter(responseCache)
+                    .requestRateLimiter(config -> config
+                        .setRateLimiter(rateLimiter)
+                        .setKeyResolver(ipKeyResolver))
+                    .filter(adaptiveConcurrency.apply(config -> config
+                        .setFallbackUri("forward:/fallback/products")))
                     .rewritePath("/api/categories/(?<segment>.*)", "/api/products/categories/${segment}"))
                 .uri("lb://PRODUCT-SERVICE"))
             
@@ -35,27 +60,42 @@ public class GatewayConfig {
             .route("order-service", r -> r
                 .path("/api/orders/**")
                 .filters(f -> f
+                    .requestRateLimiter(config -> config
+                        .setRateLimiter(rateLimiter)
+                        .setKeyResolver(userKeyResolver))
                     .circuitBreaker(config -> config
                         .setName("orderServiceCB")
-                        .setFallbackUri("forward:/fallback/orders")))
+                        .setFallbackUri("forward:/fallback/orders"))
+                    .filter(adaptiveConcurrency.apply(config -> config
+                        .setFallbackUri("forward:/fallback/orders"))))
                 .uri("lb://ORDER-SERVICE"))
             
             // Cart Service Route (for future)
             .route("cart-service", r -> r
                 .path("/api/cart/**")
                 .filters(f -> f
+                    .requestRateLimiter(config -> config
+                        .setRateLimiter(rateLimiter)
+                        .setKeyResolver(userKeyResolver))
                     .circuitBreaker(config -> config
                         .setName("cartServiceCB")
-                        .setFallbackUri("forward:/fallback/cart")))
+                        .setFallbackUri("forward:/fallback/cart"))
+                    .filter(adaptiveConcurrency.apply(config -> config
+                        .setFallbackUri("forward:/fallback/cart"))))
                 .uri("lb://CART-SERVICE"))
             
             // Payment Service Route (for future)
             .route("payment-service", r -> r
                 .path("/api/payments/**")
                 .filters(f -> f
+                    .requestRateLimiter(config -> config
+                        .setRateLimiter(rateLimiter)
+                        .setKeyResolver(userKeyResolver))
                     .circuitBreaker(config -> config
                         .setName("paymentServiceCB")
-                        .setFallbackUri("forward:/fallback/payments")))
+                        .setFallbackUri("forward:/fallback/payments"))
+                    .filter(adaptiveConcurrency.apply(config -> config
+                        .setFallbackUri("forward:/fallback/payments"))))
                 .uri("lb://PAYMENT-SERVICE"))
             
             // Notification Service Route (for future)
@@ -0,0 +1,25 @@
+package com.ecommerce.gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+@Component
+@ConfigurationProperties(prefix = "gateway.metrics")
+@Data
+public class GatewayMetricsProperties {
+
+    private boolean enabled = true;
+
+    // Percentiles computed in the gateway from each timer's HDR histogram
+    private List<Double> percentiles = List.of(0.5, 0.95, 0.99);
+
+    // Also publish histogram buckets, for backends that aggregate percentiles across gateways
+    private boolean percentileHistogram = false;
+
+    // How far back the computed percentiles reach
+    private Duration percentileWindow = Duration.ofMinutes(1);
+}
@@ -0,0 +1,34 @@
+package com.ecommerce.gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "gateway.hedging")
+@Data
+public class HedgingProperties {
+
+    private boolean enabled = true;
+
+    // Latency percentile of the route after which a second attempt is sent
+    private double percentile = 95.0;
+
+    // Bounds on the hedge delay; the maximum also applies until enough latencies are recorded
+    private Duration minDelay = Duration.ofMillis(20);
+
+    private Duration maxDelay = Duration.ofMillis(500);
+
+    // Recent responses per route the percentile is taken over
+    private int windowSize = 512;
+
+    private int minSamples = 50;
+
+    // Hedges allowed per request on average, so a slow backend cannot have its load doubled
+    private double maxHedgeRatio = 0.05;
+
+    // Hedges that can be saved up during quiet periods and spent at once
+    private int maxBurst = 10;
+}
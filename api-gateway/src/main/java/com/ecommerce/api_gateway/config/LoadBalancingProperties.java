@@ -0,0 +1,31 @@
+package com.ecommerce.gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "gateway.load-balancer")
+@Data
+public class LoadBalancingProperties {
+
+    // Time constant of the per-instance latency average; a latency spike fades to a third over this
+    private Duration decayTime = Duration.ofSeconds(10);
+
+    // Consecutive failures (errors, timeouts or 5xx) that take an instance out of rotation
+    private int failureThreshold = 5;
+
+    // An instance whose latency exceeds this multiple of its peers' median is ejected as an outlier
+    private double outlierLatencyFactor = 3.0;
+
+    // Responses an instance must have served before it can be judged a latency outlier
+    private int minSamples = 20;
+
+    // How long an ejected instance stays out before it is probed again
+    private Duration ejectionTime = Duration.ofSeconds(30);
+
+    // Ejection never takes out more than this share of a service's instances
+    private int maxEjectionPercent = 50;
+}
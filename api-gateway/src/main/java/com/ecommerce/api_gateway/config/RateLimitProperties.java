@@ -0,0 +1,42 @@
+package com.ecommerce.gateway.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Component
+@ConfigurationProperties(prefix = "gateway.rate-limit")
+@Data
+public class RateLimitProperties {
+    
+    private boolean enabled = true;
+    
+    // Upper bound on tracked buckets (route and client key); least recently used go first
+    private long maxKeys = 100_000;
+    
+    // Applies to every rate-limited route without its own entry
+    private Limit defaultLimit = new Limit(50, 100, 1);
+    
+    // Per route id; unset fields fall back to the default limit
+    private Map<String, Limit> routes = new LinkedHashMap<>();
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Limit {
+        
+        // Tokens added per second
+        private Integer replenishRate;
+        
+        // Most tokens a bucket can hold, i.e. the largest burst admitted at once
+        private Integer burstCapacity;
+        
+        // Tokens each request costs
+        private Integer requestedTokens;
+    }
+}
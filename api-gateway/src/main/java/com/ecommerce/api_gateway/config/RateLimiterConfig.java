@@ -3,12 +3,14 @@ package com.ecommerce.gateway.config;
 import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import reactor.core.publisher.Mono;
 
 @Configuration
 public class RateLimiterConfig {
     
     @Bean
+    @Primary // Default for RequestRateLimiter filters that do not name a resolver
     public KeyResolver userKeyResolver() {
         // Rate limit by user ID from header
         return exchange -> Mono.just(
@@ -0,0 +1,25 @@
+package com.ecommerce.gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "gateway.registry-stream")
+@Data
+public class RegistryStreamProperties {
+
+    private boolean enabled = true;
+
+    // eureka-server's registry change stream
+    private String url = "http://localhost:8761/registry/stream";
+
+    // Reconnect backoff after the stream drops or cannot be opened
+    private Duration minReconnectDelay = Duration.ofSeconds(1);
+    private Duration maxReconnectDelay = Duration.ofSeconds(30);
+
+    // A stream silent for this long (eureka-server sends keep-alives every 15s) is treated as dropped
+    private Duration idleTimeout = Duration.ofSeconds(45);
+}
@@ -0,0 +1,37 @@
+package com.ecommerce.gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+
+@Component
+@ConfigurationProperties(prefix = "gateway.response-cache")
+@Data
+public class ResponseCacheProperties {
+    
+    private boolean enabled = true;
+    
+    // Total size of cached bodies; least recently used responses go first
+    private DataSize maximumSize = DataSize.ofMegabytes(64);
+    
+    // Larger responses are passed through uncached and are not shared between waiting requests
+    private DataSize maxBodySize = DataSize.ofMegabytes(1);
+    
+    // Freshness of responses that carry no Cache-Control max-age; at 0 they are stored only when they
+    // have an ETag, and then revalidated upstream before every reuse
+    private Duration defaultTtl = Duration.ZERO;
+    
+    // Upper bound on the freshness an upstream max-age can ask for
+    private Duration maxTtl = Duration.ofMinutes(5);
+    
+    // How long an expired response with an ETag is kept for conditional revalidation
+    private Duration staleRetention = Duration.ofMinutes(5);
+    
+    // Streaming endpoints that must never be buffered
+    private List<String> bypassPaths = List.of("/api/products/export", "/api/products/changes/stream",
+            "/api/products/low-stock/stream");
+}
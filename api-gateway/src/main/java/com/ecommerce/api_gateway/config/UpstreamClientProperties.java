@@ -0,0 +1,66 @@
+package com.ecommerce.gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Component
+@ConfigurationProperties(prefix = "gateway.upstream")
+@Data
+public class UpstreamClientProperties {
+
+    // Separate connection pools for lb:// routes; when off they share the spring.cloud.gateway.httpclient pool
+    private boolean enabled = true;
+
+    // Publish reactor-netty pool meters (reactor.netty.connection.provider.*) per service
+    private boolean metrics = true;
+
+    private Pool pool = new Pool();
+
+    // Pools for individual services by service id, each replacing the default pool as a whole
+    private Map<String, Pool> services = new LinkedHashMap<>();
+
+    public Pool poolFor(String serviceId) {
+        return services.entrySet().stream()
+                .filter(entry -> entry.getKey().equalsIgnoreCase(serviceId))
+                .map(Map.Entry::getValue)
+                .findFirst()
+                .orElse(pool);
+    }
+
+    @Data
+    public static class Pool {
+
+        // Per instance: reactor-netty keeps a pool for each remote address
+        private int maxConnections = 500;
+
+        // Requests allowed to wait for a connection; beyond it acquiring fails at once
+        private int pendingAcquireMaxCount = 1000;
+
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(5);
+
+        // Below the backends' keep-alive timeout, so the gateway never reuses a connection they are closing
+        private Duration maxIdleTime = Duration.ofSeconds(15);
+
+        // Lets connections move to new instances after scaling
+        private Duration maxLifeTime = Duration.ofMinutes(10);
+
+        private Duration evictionInterval = Duration.ofSeconds(10);
+
+        // Reuse the most recently released connection first, so surplus connections go idle and are evicted
+        private boolean lifo = false;
+
+        // HTTP/2 over cleartext with prior knowledge; only for backends that accept it
+        private boolean h2c = false;
+
+        // With h2c: streams multiplexed on one connection before another is opened
+        private int maxConcurrentStreams = 100;
+
+        // With h2c: connections kept open per instance even when idle
+        private int minConnections = 1;
+    }
+}
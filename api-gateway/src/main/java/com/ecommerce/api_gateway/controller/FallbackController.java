@@ -2,7 +2,6 @@ package com.ecommerce.gateway.controller;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -14,22 +13,23 @@ import java.util.Map;
 @RequestMapping("/fallback")
 public class FallbackController {
     
-    @GetMapping("/products")
+    // Any method: circuit breakers and load shedding forward writes here too
+    @RequestMapping("/products")
     public ResponseEntity<Map<String, Object>> productServiceFallback() {
         return createFallbackResponse("Product Service");
     }
     
-    @GetMapping("/orders")
+    @RequestMapping("/orders")
     public ResponseEntity<Map<String, Object>> orderServiceFallback() {
         return createFallbackResponse("Order Service");
     }
     
-    @GetMapping("/cart")
+    @RequestMapping("/cart")
     public ResponseEntity<Map<String, Object>> cartServiceFallback() {
         return createFallbackResponse("Cart Service");
     }
     
-    @GetMapping("/payments")
+    @RequestMapping("/payments")
     public ResponseEntity<Map<String, Object>> paymentServiceFallback() {
         return createFallbackResponse("Payment Service");
     }
@@ -0,0 +1,172 @@
+package com.ecommerce.gateway.filter;
+
+import com.ecommerce.gateway.config.ConcurrencyLimitProperties;
+import com.ecommerce.gateway.ratelimit.AdaptiveConcurrencyLimit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.filter.factory.RetryGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.DispatcherHandler;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sheds load per route once the backend's adaptive concurrency limit is
+ * reached (see {@link AdaptiveConcurrencyLimit}). Excess requests are
+ * forwarded to the route's fallback, normally the {@code FallbackController},
+ * which answers 503 at once; they carry {@code Retry-After} and
+ * {@code X-Gateway-Shed} so clients can tell shedding from an outage.
+ *
+ * Place it after the {@code Retry} filter so every attempt needs a permit. A
+ * shed attempt, or a failed one while the route is still saturated, exhausts
+ * the retry filter's iteration count, so retries stop adding load to a
+ * backend that is already behind. Shedding completes normally and does not
+ * count against the circuit breaker.
+ */
+@Component
+@Slf4j
+public class AdaptiveConcurrencyGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<AdaptiveConcurrencyGatewayFilterFactory.Config> {
+
+    public static final String SHED_HEADER = "X-Gateway-Shed";
+
+    // Beyond any configured retry count, and safe from overflow when the retry filter increments it
+    private static final int RETRIES_EXHAUSTED = Integer.MAX_VALUE / 2;
+
+    private final ConcurrencyLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final ObjectProvider<DispatcherHandler> dispatcherHandler;
+    private final Map<String, AdaptiveConcurrencyLimit> limits = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public AdaptiveConcurrencyGatewayFilterFactory(ConcurrencyLimitProperties properties,
+                                                   MeterRegistry meterRegistry,
+                                                   ObjectProvider<DispatcherHandler> dispatcherHandler) {
+        super(Config.class);
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.dispatcherHandler = dispatcherHandler;
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("fallbackUri");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (exchange, chain) -> {
+            if (!properties.isEnabled()) {
+                return chain.filter(exchange);
+            }
+            Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+            String routeId = route != null ? route.getId() : "unknown";
+            AdaptiveConcurrencyLimit limit = limitFor(routeId);
+
+            if (!limit.tryAcquire()) {
+                count(routeId, "shed");
+                exhaustRetries(exchange);
+                log.debug("Shedding {} {} on route {} at concurrency limit {}",
+                          exchange.getRequest().getMethod(), exchange.getRequest().getURI().getRawPath(),
+                          routeId, limit.getLimit());
+                return shed(exchange, config);
+            }
+            count(routeId, "accepted");
+
+            int inflightAtStart = limit.getInflight();
+            long start = System.nanoTime();
+            // Released before the signal reaches the retry filter, so it sees exhausted retries in time
+            return chain.filter(exchange)
+                    .doOnSuccess(done -> complete(exchange, routeId, limit, start, inflightAtStart,
+                            isServerError(exchange.getResponse().getStatusCode())))
+                    .doOnError(ex -> complete(exchange, routeId, limit, start, inflightAtStart, true))
+                    .doOnCancel(limit::cancel);
+        };
+    }
+
+    AdaptiveConcurrencyLimit limitFor(String routeId) {
+        return limits.computeIfAbsent(routeId, id -> {
+            AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(properties);
+            Gauge.builder("gateway.concurrency.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+                    .tag("route", id)
+                    .register(meterRegistry);
+            Gauge.builder("gateway.concurrency.inflight", limit, AdaptiveConcurrencyLimit::getInflight)
+                    .tag("route", id)
+                    .register(meterRegistry);
+            return limit;
+        });
+    }
+
+    private void complete(ServerWebExchange exchange, String routeId, AdaptiveConcurrencyLimit limit,
+                          long start, int inflightAtStart, boolean failed) {
+        limit.release(System.nanoTime() - start, inflightAtStart, failed);
+        if (failed && limit.isSaturated()) {
+            count(routeId, "retry-suppressed");
+            exhaustRetries(exchange);
+        }
+    }
+
+    // The retry filter stops once its iteration count reaches the configured retries
+    private static void exhaustRetries(ServerWebExchange exchange) {
+        exchange.getAttributes().put(RetryGatewayFilterFactory.RETRY_ITERATION_KEY, RETRIES_EXHAUSTED);
+    }
+
+    private Mono<Void> shed(ServerWebExchange exchange, Config config) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.getHeaders().set(SHED_HEADER, "concurrency");
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+        if (config.getFallbackUri() == null) {
+            response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            return response.setComplete();
+        }
+
+        // Same forwarding as the circuit breaker's fallback
+        URI requestUrl = UriComponentsBuilder.fromUri(exchange.getRequest().getURI())
+                .replacePath(URI.create(config.getFallbackUri()).getSchemeSpecificPart())
+                .replaceQuery(null)
+                .build(true)
+                .toUri();
+        ServerWebExchangeUtils.reset(exchange);
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR, requestUrl);
+        ServerHttpRequest request = exchange.getRequest().mutate().uri(requestUrl).build();
+        return dispatcherHandler.getObject().handle(exchange.mutate().request(request).build());
+    }
+
+    private static boolean isServerError(HttpStatusCode status) {
+        return status != null && status.is5xxServerError();
+    }
+
+    private void count(String routeId, String outcome) {
+        counters.computeIfAbsent(routeId + ':' + outcome, key -> Counter.builder("gateway.concurrency.requests")
+                        .tag("route", routeId)
+                        .tag("outcome", outcome)
+                        .register(meterRegistry))
+                .increment();
+    }
+
+    @Data
+    public static class Config {
+
+        // forward: URI answering shed requests; without one they get a bare 503
+        private String fallbackUri;
+    }
+}
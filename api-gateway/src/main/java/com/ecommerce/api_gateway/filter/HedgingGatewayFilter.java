@@ -0,0 +1,343 @@
+package com.ecommerce.gateway.filter;
+
+import com.ecommerce.gateway.config.HedgingProperties;
+import com.ecommerce.gateway.loadbalancer.InstanceStatsRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.ServerWebExchangeDecorator;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.netty.Connection;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hedged requests for idempotent reads: when the instance the load balancer
+ * picked has not answered within the route's hedge delay (a high percentile
+ * of its recent latency), the same request goes to the cheapest other
+ * instance as well. Whichever sends its response headers first is used and
+ * the other is cancelled, so a replica that stalls costs its callers the
+ * hedge delay rather than its whole stall. Hedges are capped by a per-route
+ * budget (see {@link HedgingPolicy}).
+ *
+ * Add to a route to opt in. It runs right after load balancing; each attempt
+ * routes on its own copy of the exchange attributes and response headers,
+ * and only the winner's are applied to the real exchange, whose response
+ * body is then streamed from the winning connection as usual. Requests other
+ * than GET and HEAD pass through. An attempt that fails before a hedge is
+ * sent fails the request, leaving recovery to the Retry filter.
+ */
+@Component
+@Slf4j
+public class HedgingGatewayFilter implements GatewayFilter, Ordered {
+
+    // Marks the attributes of a hedge attempt, so it is not mistaken for a retry
+    public static final String HEDGE_ATTEMPT_ATTR = HedgingGatewayFilter.class.getName() + ".hedgeAttempt";
+
+    static final String HEDGE_HEADER = "X-Gateway-Hedge";
+
+    private final HedgingProperties properties;
+    private final LoadBalancerClientFactory clientFactory;
+    private final InstanceStatsRegistry instanceStats;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, HedgingPolicy> policies = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public HedgingGatewayFilter(HedgingProperties properties, LoadBalancerClientFactory clientFactory,
+                                InstanceStatsRegistry instanceStats, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.clientFactory = clientFactory;
+        this.instanceStats = instanceStats;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Response<ServiceInstance> chosen = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        HttpMethod method = exchange.getRequest().getMethod();
+        if (!properties.isEnabled() || route == null || chosen == null || !chosen.hasServer()
+                || !(HttpMethod.GET.equals(method) || HttpMethod.HEAD.equals(method))) {
+            return chain.filter(exchange);
+        }
+
+        HedgingPolicy policy = policyFor(route.getId());
+        policy.onRequest();
+        return Mono.<Attempt>create(sink -> new Race(exchange, chain, route, chosen.getServer(), policy, sink).run())
+                .doOnNext(winner -> apply(exchange, winner))
+                .then();
+    }
+
+    @Override
+    public int getOrder() {
+        return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 1;
+    }
+
+    private HedgingPolicy policyFor(String routeId) {
+        return policies.computeIfAbsent(routeId, id -> {
+            HedgingPolicy policy = new HedgingPolicy(properties);
+            Gauge.builder("gateway.hedging.delay", policy, p -> p.delayNanos() / 1e9)
+                    .tag("route", id)
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+            return policy;
+        });
+    }
+
+    // Routes the request on private copies of the attributes and response headers
+    private Mono<Attempt> attempt(ServerWebExchange exchange, GatewayFilterChain chain, ServiceInstance instance,
+                                  boolean hedge) {
+        Map<String, Object> attributes = new ConcurrentHashMap<>(exchange.getAttributes());
+        if (hedge) {
+            URI url = exchange.getRequiredAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
+            attributes.put(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR, UriComponentsBuilder.fromUri(url)
+                    .host(instance.getHost())
+                    .port(instance.getPort())
+                    .build(true)
+                    .toUri());
+            attributes.put(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR, new DefaultResponse(instance));
+            attributes.put(HEDGE_ATTEMPT_ATTR, Boolean.TRUE);
+        }
+        IsolatedResponse response = new IsolatedResponse(exchange.getResponse());
+        ServerWebExchange isolated = new ServerWebExchangeDecorator(exchange) {
+            @Override
+            public Map<String, Object> getAttributes() {
+                return attributes;
+            }
+
+            @Override
+            public ServerHttpResponse getResponse() {
+                return response;
+            }
+        };
+        return chain.filter(isolated).then(Mono.fromSupplier(() -> new Attempt(attributes, response, hedge)));
+    }
+
+    // Cheapest instance other than the one already tried, if the service has one in rotation
+    private Mono<ServiceInstance> otherInstance(Route route, ServiceInstance tried) {
+        ServiceInstanceListSupplier supplier = clientFactory
+                .getLazyProvider(route.getUri().getHost(), ServiceInstanceListSupplier.class)
+                .getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get().next().mapNotNull(instances -> {
+            long now = System.nanoTime();
+            List<ServiceInstance> others = instances.stream()
+                    .filter(instance -> !(instance.getHost().equals(tried.getHost())
+                            && instance.getPort() == tried.getPort()))
+                    .filter(instance -> !instanceStats.statsFor(instance).isEjected(now))
+                    .toList();
+            double unmeasured = instanceStats.averageRttNanos(others, now);
+            return others.stream()
+                    .min((a, b) -> Double.compare(instanceStats.cost(a, now, unmeasured),
+                            instanceStats.cost(b, now, unmeasured)))
+                    .orElse(null);
+        });
+    }
+
+    private void apply(ServerWebExchange exchange, Attempt winner) {
+        exchange.getAttributes().putAll(winner.attributes());
+        exchange.getAttributes().remove(HEDGE_ATTEMPT_ATTR);
+        ServerHttpResponse response = exchange.getResponse();
+        if (winner.response().getStatusCode() != null) {
+            response.setStatusCode(winner.response().getStatusCode());
+        }
+        response.getHeaders().putAll(winner.response().getHeaders());
+        if (winner.hedge()) {
+            response.getHeaders().set(HEDGE_HEADER, "won");
+        }
+    }
+
+    // An attempt that answered after the race was decided still holds its upstream connection
+    private static void release(Attempt loser) {
+        Connection connection = (Connection) loser.attributes().get(ServerWebExchangeUtils.CLIENT_RESPONSE_CONN_ATTR);
+        if (connection != null) {
+            connection.dispose();
+        }
+    }
+
+    private void count(String routeId, String outcome) {
+        counters.computeIfAbsent(routeId + ':' + outcome, key -> Counter.builder("gateway.hedging.requests")
+                        .tag("route", routeId)
+                        .tag("outcome", outcome)
+                        .register(meterRegistry))
+                .increment();
+    }
+
+    private record Attempt(Map<String, Object> attributes, IsolatedResponse response, boolean hedge) {
+    }
+
+    /**
+     * One request's primary attempt, its hedge timer and possibly the hedge.
+     * Guarded by its own lock; every callback checks {@code done} first.
+     */
+    private final class Race {
+
+        private final ServerWebExchange exchange;
+        private final GatewayFilterChain chain;
+        private final Route route;
+        private final ServiceInstance primaryInstance;
+        private final HedgingPolicy policy;
+        private final MonoSink<Attempt> sink;
+        private final long start = System.nanoTime();
+        private boolean done;
+        private boolean hedged;
+        private boolean hedgeFailed;
+        private Throwable primaryError;
+        private Disposable primary;
+        private Disposable timer;
+        private Disposable hedge;
+
+        Race(ServerWebExchange exchange, GatewayFilterChain chain, Route route, ServiceInstance primaryInstance,
+             HedgingPolicy policy, MonoSink<Attempt> sink) {
+            this.exchange = exchange;
+            this.chain = chain;
+            this.route = route;
+            this.primaryInstance = primaryInstance;
+            this.policy = policy;
+            this.sink = sink;
+        }
+
+        synchronized void run() {
+            sink.onCancel(this::cancel);
+            primary = attempt(exchange, chain, primaryInstance, false)
+                    .subscribe(this::answered, error -> failed(error, false));
+            if (done) {
+                return;
+            }
+            timer = Mono.delay(Duration.ofNanos(policy.delayNanos()))
+                    .flatMap(tick -> otherInstance(route, primaryInstance))
+                    .subscribe(this::hedge);
+        }
+
+        private synchronized void hedge(ServiceInstance instance) {
+            if (done) {
+                return;
+            }
+            if (!policy.tryAcquireHedge()) {
+                count(route.getId(), "budget-exhausted");
+                return;
+            }
+            hedged = true;
+            count(route.getId(), "hedged");
+            log.debug("Hedging {} on route {} to {}:{} after {} ms", exchange.getRequest().getURI().getRawPath(),
+                      route.getId(), instance.getHost(), instance.getPort(), policy.delayNanos() / 1_000_000);
+            hedge = attempt(exchange, chain, instance, true)
+                    .subscribe(this::answered, error -> failed(error, true));
+        }
+
+        private synchronized void answered(Attempt attempt) {
+            if (done) {
+                release(attempt);
+                return;
+            }
+            done = true;
+            // When the hedge wins, the primary took at least this long
+            policy.record(System.nanoTime() - start);
+            dispose(timer);
+            dispose(attempt.hedge() ? primary : hedge);
+            if (hedged) {
+                count(route.getId(), attempt.hedge() ? "hedge-won" : "primary-won");
+            }
+            sink.success(attempt);
+        }
+
+        private synchronized void failed(Throwable error, boolean fromHedge) {
+            if (done) {
+                return;
+            }
+            if (fromHedge) {
+                hedgeFailed = true;
+            } else {
+                primaryError = error;
+            }
+            // Wait for the other attempt while it can still answer
+            if (primaryError != null && (!hedged || hedgeFailed)) {
+                done = true;
+                dispose(timer);
+                sink.error(primaryError);
+            }
+        }
+
+        private synchronized void cancel() {
+            done = true;
+            dispose(timer);
+            dispose(primary);
+            dispose(hedge);
+        }
+
+        private void dispose(Disposable disposable) {
+            if (disposable != null) {
+                disposable.dispose();
+            }
+        }
+    }
+
+    /**
+     * Collects the status and headers an attempt's routing filter sets, without
+     * touching the real response until the attempt has won.
+     */
+    private static class IsolatedResponse extends ServerHttpResponseDecorator {
+
+        private final HttpHeaders headers = new HttpHeaders();
+        private HttpStatusCode status;
+
+        IsolatedResponse(ServerHttpResponse delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public boolean setStatusCode(HttpStatusCode status) {
+            this.status = status;
+            return true;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() {
+            return status;
+        }
+
+        @Override
+        @Deprecated
+        public boolean setRawStatusCode(Integer value) {
+            this.status = value != null ? HttpStatusCode.valueOf(value) : null;
+            return true;
+        }
+
+        @Override
+        @Deprecated
+        public Integer getRawStatusCode() {
+            return status != null ? status.value() : null;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.ecommerce.gateway.filter;
+
+import com.ecommerce.gateway.config.HedgingProperties;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-route hedging state: the delay after which a request is hedged, taken
+ * as a percentile of the route's recent latencies, and the budget capping how
+ * many requests may be hedged. Every request earns a fraction of a hedge and
+ * every hedge spends a whole one, in the manner of a retry budget.
+ */
+class HedgingPolicy {
+
+    private static final long HEDGE_COST = 1_000;
+
+    private final HedgingProperties properties;
+    private final long[] window;
+    private final int recomputeEvery;
+    private int next;
+    private long samples;
+    private volatile long delayNanos;
+    private final AtomicLong budget = new AtomicLong();
+    private final long earnedPerRequest;
+    private final long maxBudget;
+
+    HedgingPolicy(HedgingProperties properties) {
+        this.properties = properties;
+        this.window = new long[properties.getWindowSize()];
+        this.recomputeEvery = Math.max(1, window.length / 16);
+        this.delayNanos = properties.getMaxDelay().toNanos();
+        this.earnedPerRequest = Math.round(properties.getMaxHedgeRatio() * HEDGE_COST);
+        this.maxBudget = properties.getMaxBurst() * HEDGE_COST;
+    }
+
+    void onRequest() {
+        budget.updateAndGet(current -> Math.min(maxBudget, current + earnedPerRequest));
+    }
+
+    boolean tryAcquireHedge() {
+        while (true) {
+            long current = budget.get();
+            if (current < HEDGE_COST) {
+                return false;
+            }
+            if (budget.compareAndSet(current, current - HEDGE_COST)) {
+                return true;
+            }
+        }
+    }
+
+    long delayNanos() {
+        return delayNanos;
+    }
+
+    // Sorting a copy every few samples keeps the request path down to an array store
+    synchronized void record(long latencyNanos) {
+        window[next] = latencyNanos;
+        next = (next + 1) % window.length;
+        samples++;
+        if (samples >= properties.getMinSamples() && samples % recomputeEvery == 0) {
+            int size = (int) Math.min(samples, window.length);
+            long[] sorted = Arrays.copyOf(window, size);
+            Arrays.sort(sorted);
+            int rank = (int) Math.ceil(properties.getPercentile() / 100 * size) - 1;
+            long percentile = sorted[Math.max(0, Math.min(size - 1, rank))];
+            delayNanos = Math.max(properties.getMinDelay().toNanos(),
+                    Math.min(properties.getMaxDelay().toNanos(), percentile));
+        }
+    }
+}
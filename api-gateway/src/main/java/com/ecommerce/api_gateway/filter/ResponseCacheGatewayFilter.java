@@ -0,0 +1,557 @@
+package com.ecommerce.gateway.filter;
+
+import com.ecommerce.gateway.config.ResponseCacheProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseCookie;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared response cache for anonymous GETs on a route, with request
+ * coalescing: concurrent identical requests that miss the cache wait on a
+ * single upstream call and are all answered from its buffered result.
+ *
+ * Upstream {@code Cache-Control} decides freshness ({@code s-maxage}, then
+ * {@code max-age}, capped by the configured maximum); {@code no-store} and
+ * {@code private} responses are shared with the requests already waiting but
+ * never stored, and {@code no-cache} ones are stored only for revalidation.
+ * Expired entries with an ETag are revalidated with {@code If-None-Match}, so
+ * an unchanged product costs the backend a 304 instead of a full body. Clients
+ * get a 304 from the gateway when their {@code If-None-Match} matches.
+ *
+ * Requests carrying credentials or cookies, client {@code no-cache}, and
+ * streaming endpoints bypass the filter. Set-Cookie is never shared. A
+ * successful write through the route drops the cached responses for the
+ * product it addresses ({@code /api/products/{id}} and everything under it),
+ * or every response of the route when it names no product (batch stock
+ * updates, imports).
+ */
+@Component
+@Slf4j
+public class ResponseCacheGatewayFilter implements GatewayFilter, Ordered {
+
+    static final String CACHE_STATUS_HEADER = "X-Gateway-Cache";
+
+    // Per-connection or per-client headers that must not be replayed to other requests
+    private static final Set<String> UNSHARED_HEADERS = Set.of(
+            "connection", "keep-alive", "transfer-encoding", "content-length", "set-cookie", "date");
+    private static final Set<String> VARY_IN_KEY = Set.of("accept", "accept-encoding");
+
+    private final ResponseCacheProperties properties;
+    private final Cache<String, CachedResponse> cache;
+    private final Map<String, Mono<CachedResponse>> inflight = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter coalesced;
+    private final Counter revalidated;
+    private final Counter bypassed;
+
+    public ResponseCacheGatewayFilter(ResponseCacheProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaximumSize().toBytes())
+                .weigher((String key, CachedResponse response) -> key.length() + response.body().length)
+                .expireAfter(new Expiry<String, CachedResponse>() {
+                    @Override
+                    public long expireAfterCreate(String key, CachedResponse response, long currentTime) {
+                        return retention(response);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, CachedResponse response, long currentTime,
+                                                  long currentDuration) {
+                        return retention(response);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, CachedResponse response, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "gateway-responses");
+
+        this.hits = outcomeCounter(meterRegistry, "hit");
+        this.misses = outcomeCounter(meterRegistry, "miss");
+        this.coalesced = outcomeCounter(meterRegistry, "coalesced");
+        this.revalidated = outcomeCounter(meterRegistry, "revalidated");
+        this.bypassed = outcomeCounter(meterRegistry, "bypass");
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!properties.isEnabled()) {
+            return chain.filter(exchange);
+        }
+        if (!HttpMethod.GET.equals(request.getMethod())) {
+            // Invalidate before the response reaches the client so its next read cannot see the old entry
+            exchange.getResponse().beforeCommit(() -> Mono.fromRunnable(() -> invalidateAfterWrite(exchange)));
+            return chain.filter(exchange);
+        }
+        if (!isShareable(request)) {
+            bypassed.increment();
+            return chain.filter(exchange);
+        }
+
+        String key = cacheKey(exchange);
+        CachedResponse cached = cache.getIfPresent(key);
+        if (cached != null && cached.isFresh()) {
+            hits.increment();
+            return write(exchange, cached, "HIT");
+        }
+
+        Sinks.One<CachedResponse> sink = Sinks.one();
+        Mono<CachedResponse> shared = sink.asMono();
+        Mono<CachedResponse> leader = inflight.putIfAbsent(key, shared);
+        if (leader != null) {
+            coalesced.increment();
+            // If the shared call fails or its body is too large to share, each waiting request makes its own attempt
+            return leader.flatMap(response -> write(exchange, response, "COALESCED"))
+                    .onErrorResume(ex -> chain.filter(exchange));
+        }
+
+        misses.increment();
+        // Detached from this client's subscription, so its disconnect cannot strand the others
+        fetch(exchange, chain, cached).subscribe(
+                response -> {
+                    if (response.storable()) {
+                        cache.put(key, response);
+                    }
+                    inflight.remove(key, shared);
+                    sink.tryEmitValue(response);
+                },
+                ex -> {
+                    inflight.remove(key, shared);
+                    sink.tryEmitError(ex);
+                });
+        return shared.flatMap(response -> write(exchange, response, response.revalidated() ? "REVALIDATED" : "MISS"))
+                .onErrorResume(ex -> {
+                    if (ex instanceof PassedThrough) {
+                        // Already streamed to this client by the shared call
+                        return Mono.empty();
+                    }
+                    // The shared call ran on this exchange; clear its routed state before going again
+                    ServerWebExchangeUtils.reset(exchange);
+                    return chain.filter(exchange);
+                });
+    }
+
+    // Must wrap NettyWriteResponseFilter so the upstream body lands in the capture buffer
+    @Override
+    public int getOrder() {
+        return NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+    }
+
+    private Mono<CachedResponse> fetch(ServerWebExchange exchange, GatewayFilterChain chain, CachedResponse stale) {
+        // The shared call must return a full body whatever validators the first client sent. A copy,
+        // because mutate() can write through to the client's own request headers
+        HttpHeaders upstreamHeaders = new HttpHeaders();
+        upstreamHeaders.putAll(exchange.getRequest().getHeaders());
+        upstreamHeaders.remove(HttpHeaders.IF_NONE_MATCH);
+        upstreamHeaders.remove(HttpHeaders.IF_MODIFIED_SINCE);
+        if (stale != null && stale.etag() != null) {
+            upstreamHeaders.setIfNoneMatch(stale.etag());
+        }
+        ServerHttpRequest upstreamRequest = new ServerHttpRequestDecorator(exchange.getRequest()) {
+            @Override
+            public HttpHeaders getHeaders() {
+                return upstreamHeaders;
+            }
+        };
+        CapturingResponse capture = new CapturingResponse(exchange.getResponse(),
+                (int) properties.getMaxBodySize().toBytes());
+
+        return chain.filter(exchange.mutate().request(upstreamRequest).response(capture).build())
+                .then(Mono.defer(() -> capture.passedThrough()
+                        ? Mono.error(new PassedThrough())
+                        : Mono.fromSupplier(() -> toCachedResponse(capture, stale))));
+    }
+
+    private CachedResponse toCachedResponse(CapturingResponse capture, CachedResponse stale) {
+        HttpStatusCode status = capture.getStatusCode() != null ? capture.getStatusCode() : HttpStatus.OK;
+        if (stale != null && status.value() == HttpStatus.NOT_MODIFIED.value()) {
+            revalidated.increment();
+            HttpHeaders headers = new HttpHeaders();
+            headers.addAll(stale.headers());
+            // A 304 carries the current caching headers; the body and its validator stay
+            copyIfPresent(capture.getHeaders(), headers, HttpHeaders.CACHE_CONTROL);
+            copyIfPresent(capture.getHeaders(), headers, HttpHeaders.EXPIRES);
+            long freshness = freshnessNanos(headers);
+            return new CachedResponse(stale.status(), HttpHeaders.readOnlyHttpHeaders(headers), stale.body(),
+                    stale.etag(), System.nanoTime(), Math.max(0, freshness), stale.storable() && freshness >= 0,
+                    true);
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        capture.getHeaders().forEach((name, values) -> {
+            if (!UNSHARED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                headers.put(name, values);
+            }
+        });
+        String etag = headers.getETag();
+        long freshness = freshnessNanos(headers);
+        boolean storable = status.value() == HttpStatus.OK.value()
+                && freshness >= 0
+                && (freshness > 0 || etag != null)
+                && !capture.getHeaders().containsKey(HttpHeaders.SET_COOKIE)
+                && varyIsCovered(headers);
+        return new CachedResponse(status, HttpHeaders.readOnlyHttpHeaders(headers), capture.body(), etag,
+                System.nanoTime(), Math.max(0, freshness), storable, false);
+    }
+
+    private Mono<Void> write(ServerWebExchange exchange, CachedResponse cached, String outcome) {
+        ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders headers = response.getHeaders();
+        cached.headers().forEach(headers::put);
+        headers.set(CACHE_STATUS_HEADER, outcome);
+        if ("HIT".equals(outcome)) {
+            headers.set(HttpHeaders.AGE, Long.toString(cached.ageSeconds()));
+        }
+
+        if (cached.etag() != null && cached.status().is2xxSuccessful()
+                && matchesIfNoneMatch(exchange.getRequest(), cached.etag())) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            headers.remove(HttpHeaders.CONTENT_TYPE);
+            return response.setComplete();
+        }
+        response.setStatusCode(cached.status());
+        headers.setContentLength(cached.body().length);
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(cached.body())));
+    }
+
+    // Unsafe methods invalidate the target URI (RFC 9111, section 4.4); a write to a sub-resource such as
+    // /{id}/stock changes the product too, so the whole /{id} subtree goes
+    private void invalidateAfterWrite(ServerWebExchange exchange) {
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        if (status == null || status.isError()) {
+            return;
+        }
+        String resource = resourcePath(exchange.getRequest().getURI().getRawPath());
+        if (resource != null) {
+            cache.asMap().keySet().removeIf(key -> key.startsWith(resource + '?') || key.startsWith(resource + '/'));
+            return;
+        }
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        String routeId = route != null ? route.getId() : "";
+        cache.asMap().keySet().removeIf(key -> routeId.equals(routeOf(key)));
+    }
+
+    /**
+     * The path up to and including its first numeric segment, e.g.
+     * {@code /api/products/7} for {@code /api/products/7/stock}, or null when
+     * the path names no id.
+     */
+    private static String resourcePath(String path) {
+        int start = 0;
+        while (start < path.length()) {
+            int end = path.indexOf('/', start + 1);
+            if (end < 0) {
+                end = path.length();
+            }
+            String segment = path.substring(start + 1, end);
+            if (!segment.isEmpty() && segment.chars().allMatch(Character::isDigit)) {
+                return path.substring(0, end);
+            }
+            start = end;
+        }
+        return null;
+    }
+
+    private static String routeOf(String key) {
+        int start = key.indexOf('\n') + 1;
+        return key.substring(start, key.indexOf('\n', start));
+    }
+
+    private boolean isShareable(ServerHttpRequest request) {
+        HttpHeaders headers = request.getHeaders();
+        if (headers.containsKey(HttpHeaders.AUTHORIZATION) || headers.containsKey(HttpHeaders.COOKIE)) {
+            return false;
+        }
+        String cacheControl = headers.getCacheControl();
+        if (cacheControl != null && (hasDirective(cacheControl, "no-cache") || hasDirective(cacheControl, "no-store"))) {
+            return false;
+        }
+        if (headers.getOrEmpty(HttpHeaders.PRAGMA).stream().anyMatch(value -> hasDirective(value, "no-cache"))) {
+            return false;
+        }
+        for (MediaType accept : headers.getAccept()) {
+            if (MediaType.TEXT_EVENT_STREAM.equalsTypeAndSubtype(accept)
+                    || MediaType.APPLICATION_NDJSON.equalsTypeAndSubtype(accept)) {
+                return false;
+            }
+        }
+        String path = request.getURI().getRawPath();
+        return properties.getBypassPaths().stream().noneMatch(path::startsWith);
+    }
+
+    // The path comes first so that writes can drop every variant of it
+    private static String cacheKey(ServerWebExchange exchange) {
+        ServerHttpRequest request = exchange.getRequest();
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        String query = request.getURI().getRawQuery();
+        return request.getURI().getRawPath() + '?' + (query != null ? query : "")
+                + '\n' + (route != null ? route.getId() : "")
+                + '\n' + String.join(",", request.getHeaders().getOrEmpty(HttpHeaders.ACCEPT))
+                + '\n' + String.join(",", request.getHeaders().getOrEmpty(HttpHeaders.ACCEPT_ENCODING));
+    }
+
+    /**
+     * Freshness lifetime in nanoseconds: 0 means revalidate before every use,
+     * -1 means the response must not be stored.
+     */
+    private long freshnessNanos(HttpHeaders headers) {
+        String cacheControl = headers.getCacheControl();
+        if (cacheControl == null) {
+            return properties.getDefaultTtl().toNanos();
+        }
+        Long maxAge = null;
+        Long sharedMaxAge = null;
+        for (String directive : cacheControl.split(",")) {
+            String token = directive.trim().toLowerCase(Locale.ROOT);
+            if (token.equals("no-store") || token.equals("private")) {
+                return -1;
+            }
+            if (token.equals("no-cache")) {
+                return 0;
+            }
+            if (token.startsWith("s-maxage=")) {
+                sharedMaxAge = parseSeconds(token.substring("s-maxage=".length()));
+            } else if (token.startsWith("max-age=")) {
+                maxAge = parseSeconds(token.substring("max-age=".length()));
+            }
+        }
+        Long seconds = sharedMaxAge != null ? sharedMaxAge : maxAge;
+        if (seconds == null) {
+            return properties.getDefaultTtl().toNanos();
+        }
+        return Math.min(Duration.ofSeconds(seconds).toNanos(), properties.getMaxTtl().toNanos());
+    }
+
+    private long retention(CachedResponse response) {
+        long stale = response.etag() != null ? properties.getStaleRetention().toNanos() : 0;
+        return Math.max(1, response.freshNanos() + stale);
+    }
+
+    private static boolean varyIsCovered(HttpHeaders headers) {
+        return headers.getVary().stream()
+                .map(name -> name.trim().toLowerCase(Locale.ROOT))
+                .allMatch(VARY_IN_KEY::contains);
+    }
+
+    private static boolean matchesIfNoneMatch(ServerHttpRequest request, String etag) {
+        List<String> candidates = request.getHeaders().getIfNoneMatch();
+        String opaque = stripWeak(etag);
+        return candidates.stream().anyMatch(candidate -> candidate.equals("*") || stripWeak(candidate).equals(opaque));
+    }
+
+    private static String stripWeak(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    private static boolean hasDirective(String header, String directive) {
+        for (String token : header.split(",")) {
+            if (token.trim().equalsIgnoreCase(directive)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Long parseSeconds(String value) {
+        try {
+            return Math.max(0, Long.parseLong(value.trim()));
+        } catch (NumberFormatException ex) {
+            return 0L;
+        }
+    }
+
+    private static void copyIfPresent(HttpHeaders from, HttpHeaders to, String name) {
+        List<String> values = from.get(name);
+        if (values != null) {
+            to.put(name, values);
+        }
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("gateway.response.cache.requests")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * A buffered upstream response. The body array is shared by every request
+     * answered from it and must not be modified.
+     */
+    record CachedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body, String etag,
+                          long storedAtNanos, long freshNanos, boolean storable, boolean revalidated) {
+
+        boolean isFresh() {
+            return System.nanoTime() - storedAtNanos < freshNanos;
+        }
+
+        long ageSeconds() {
+            return TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - storedAtNanos);
+        }
+    }
+
+    /**
+     * Ends the shared call whose body outgrew {@code max-body-size}: the
+     * leading request has been answered by streaming it through, the waiting
+     * ones have to go upstream themselves.
+     */
+    private static final class PassedThrough extends RuntimeException {
+
+        PassedThrough() {
+            super("Response body exceeds the shareable size", null, false, false);
+        }
+    }
+
+    /**
+     * Stands in for the client response during the shared call: status,
+     * headers and body are kept here instead of being written, and cookies
+     * are dropped. A body larger than the limit is instead streamed to the
+     * client response, with what was buffered so far sent first.
+     */
+    private static final class CapturingResponse extends ServerHttpResponseDecorator {
+
+        private final int maxBodySize;
+        private final HttpHeaders headers = new HttpHeaders();
+        private final MultiValueMap<String, ResponseCookie> cookies = new LinkedMultiValueMap<>();
+        private HttpStatusCode status;
+        private byte[] body = new byte[0];
+        private volatile boolean passedThrough;
+
+        CapturingResponse(ServerHttpResponse delegate, int maxBodySize) {
+            super(delegate);
+            this.maxBodySize = maxBodySize;
+        }
+
+        @Override
+        public boolean setStatusCode(HttpStatusCode status) {
+            this.status = status;
+            return true;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() {
+            return status;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public MultiValueMap<String, ResponseCookie> getCookies() {
+            return cookies;
+        }
+
+        @Override
+        public void addCookie(ResponseCookie cookie) {
+            cookies.add(cookie.getName(), cookie);
+        }
+
+        @Override
+        public boolean isCommitted() {
+            return false;
+        }
+
+        // Chunks are grouped until the limit is crossed: a body within it arrives as one list on completion,
+        // a larger one as the list that crossed it followed by one list per chunk
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            long[] size = {0};
+            boolean[] oversize = {false};
+            return Flux.<DataBuffer>from(body)
+                    .bufferUntil(buffer -> {
+                        if (!oversize[0]) {
+                            size[0] += buffer.readableByteCount();
+                            oversize[0] = size[0] > maxBodySize;
+                        }
+                        return oversize[0];
+                    })
+                    .switchOnFirst((first, lists) -> oversize[0]
+                            ? passThrough(lists.concatMapIterable(buffers -> buffers))
+                            : lists.doOnNext(this::keep).then())
+                    .then();
+        }
+
+        private Mono<Void> passThrough(Flux<DataBuffer> body) {
+            passedThrough = true;
+            ServerHttpResponse client = getDelegate();
+            if (status != null) {
+                client.setStatusCode(status);
+            }
+            client.getHeaders().putAll(headers);
+            client.getHeaders().set(CACHE_STATUS_HEADER, "MISS");
+            return client.writeWith(body);
+        }
+
+        private void keep(List<DataBuffer> buffers) {
+            DataBuffer joined = bufferFactory().join(buffers);
+            byte[] bytes = new byte[joined.readableByteCount()];
+            joined.read(bytes);
+            DataBufferUtils.release(joined);
+            this.body = bytes;
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return writeWith(Flux.from(body).concatMap(Flux::from));
+        }
+
+        @Override
+        public Mono<Void> setComplete() {
+            return Mono.empty();
+        }
+
+        byte[] body() {
+            return body;
+        }
+
+        boolean passedThrough() {
+            return passedThrough;
+        }
+    }
+}
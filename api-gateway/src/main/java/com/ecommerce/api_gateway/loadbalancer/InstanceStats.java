@@ -0,0 +1,84 @@
+package com.ecommerce.gateway.loadbalancer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * What the gateway has observed of one service instance: requests in flight,
+ * a peak-sensitive moving average of response latency, and its failure streak.
+ *
+ * The average jumps straight to any slower response and only decays back
+ * with time, so a replica that stalls (a GC pause, a noisy neighbour) is
+ * avoided from its first slow answer instead of after a window of them.
+ */
+public class InstanceStats {
+
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private double rttNanos;
+    private long lastUpdateNanos;
+    private long samples;
+    private int consecutiveFailures;
+    private volatile long ejectedUntilNanos;
+
+    void start() {
+        outstanding.incrementAndGet();
+    }
+
+    // Latency of a completed response; returns the number of responses seen since the last reset
+    synchronized long recordSuccess(long sampleNanos, long nowNanos, long decayNanos) {
+        release();
+        consecutiveFailures = 0;
+        double weight = weight(nowNanos, decayNanos);
+        double current = rttNanos * weight;
+        rttNanos = samples == 0 || sampleNanos > current
+                ? sampleNanos
+                : current + sampleNanos * (1 - weight);
+        lastUpdateNanos = nowNanos;
+        return ++samples;
+    }
+
+    // Returns the length of the failure streak
+    synchronized int recordFailure() {
+        release();
+        return ++consecutiveFailures;
+    }
+
+    void cancel() {
+        release();
+    }
+
+    /**
+     * Latency average as of now, or 0 while nothing has been measured.
+     */
+    public synchronized double rttNanos(long nowNanos, long decayNanos) {
+        return samples == 0 ? 0 : decayed(nowNanos, decayNanos);
+    }
+
+    public int getOutstanding() {
+        return outstanding.get();
+    }
+
+    public boolean isEjected(long nowNanos) {
+        return ejectedUntilNanos - nowNanos > 0;
+    }
+
+    // The instance comes back with a clean slate, so its old latency does not eject it again at once
+    synchronized void eject(long untilNanos) {
+        ejectedUntilNanos = untilNanos;
+        consecutiveFailures = 0;
+        samples = 0;
+        rttNanos = 0;
+    }
+
+    // Floored, since stats dropped and recreated mid-request see completions without their start
+    private void release() {
+        outstanding.updateAndGet(count -> Math.max(0, count - 1));
+    }
+
+    private double decayed(long nowNanos, long decayNanos) {
+        return rttNanos * weight(nowNanos, decayNanos);
+    }
+
+    private double weight(long nowNanos, long decayNanos) {
+        return Math.exp(-Math.max(0, nowNanos - lastUpdateNanos) / (double) decayNanos);
+    }
+}
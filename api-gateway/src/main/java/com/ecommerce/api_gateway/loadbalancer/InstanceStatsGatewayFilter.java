@@ -0,0 +1,59 @@
+package com.ecommerce.gateway.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Times each upstream call against the instance the load balancer picked for
+ * it, from just before the request is sent until the response headers are
+ * back, and counts it as in flight meanwhile. Runs here rather than as a
+ * load-balancer lifecycle so that calls abandoned by the client are released
+ * too. Errors and 5xx responses count towards the instance's failure streak.
+ */
+@Component
+public class InstanceStatsGatewayFilter implements GlobalFilter, Ordered {
+
+    private final InstanceStatsRegistry registry;
+
+    public InstanceStatsGatewayFilter(InstanceStatsRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Response<ServiceInstance> chosen = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        if (chosen == null || !chosen.hasServer()) {
+            return chain.filter(exchange);
+        }
+
+        ServiceInstance instance = chosen.getServer();
+        registry.recordStart(instance);
+        long start = System.nanoTime();
+        return chain.filter(exchange)
+                .doOnSuccess(done -> {
+                    HttpStatusCode status = exchange.getResponse().getStatusCode();
+                    if (status != null && status.is5xxServerError()) {
+                        registry.recordFailure(instance);
+                    } else {
+                        registry.recordSuccess(instance, System.nanoTime() - start);
+                    }
+                })
+                .doOnError(ex -> registry.recordFailure(instance))
+                .doOnCancel(() -> registry.recordCancel(instance));
+    }
+
+    // Right after the instance is chosen, and inside hedging so each attempt is timed on its own instance
+    @Override
+    public int getOrder() {
+        return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 2;
+    }
+}
@@ -0,0 +1,138 @@
+package com.ecommerce.gateway.loadbalancer;
+
+import com.ecommerce.gateway.config.LoadBalancingProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Per-instance statistics shared by the latency-aware load balancers (one per
+ * service, each in its own load-balancer child context) and the filter that
+ * times upstream calls. Also decides outlier ejection: an instance is taken
+ * out of rotation for a while after a run of failures, or when its latency
+ * stands far above its peers', but never so many that less than the
+ * configured share of a service remains.
+ */
+@Component
+@Slf4j
+public class InstanceStatsRegistry {
+
+    private final LoadBalancingProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Map<String, InstanceStats>> services = new ConcurrentHashMap<>();
+    private final Map<String, Counter> ejections = new ConcurrentHashMap<>();
+
+    public InstanceStatsRegistry(LoadBalancingProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public InstanceStats statsFor(ServiceInstance instance) {
+        return services.computeIfAbsent(instance.getServiceId(), id -> new ConcurrentHashMap<>())
+                .computeIfAbsent(key(instance), key -> new InstanceStats());
+    }
+
+    /**
+     * Tracks exactly the instances discovery currently lists for the service,
+     * so the ejection cap is measured against all of them.
+     */
+    public void sync(String serviceId, Collection<ServiceInstance> instances) {
+        Map<String, InstanceStats> stats = services.computeIfAbsent(serviceId, id -> new ConcurrentHashMap<>());
+        instances.forEach(instance -> stats.computeIfAbsent(key(instance), key -> new InstanceStats()));
+        if (stats.size() > instances.size()) {
+            Set<String> live = instances.stream().map(InstanceStatsRegistry::key).collect(Collectors.toSet());
+            stats.keySet().retainAll(live);
+        }
+    }
+
+    public void recordStart(ServiceInstance instance) {
+        statsFor(instance).start();
+    }
+
+    public void recordSuccess(ServiceInstance instance, long latencyNanos) {
+        InstanceStats stats = statsFor(instance);
+        long now = System.nanoTime();
+        long samples = stats.recordSuccess(latencyNanos, now, decayNanos());
+        if (samples >= properties.getMinSamples() && isLatencyOutlier(instance, stats, now)) {
+            eject(instance, stats, now, "latency");
+        }
+    }
+
+    public void recordFailure(ServiceInstance instance) {
+        InstanceStats stats = statsFor(instance);
+        if (stats.recordFailure() >= properties.getFailureThreshold()) {
+            eject(instance, stats, System.nanoTime(), "failures");
+        }
+    }
+
+    public void recordCancel(ServiceInstance instance) {
+        statsFor(instance).cancel();
+    }
+
+    /**
+     * Expected cost of sending the next request to the instance: its latency
+     * average times one more than its requests in flight. Unmeasured instances
+     * are priced at {@code unmeasuredRttNanos}.
+     */
+    public double cost(ServiceInstance instance, long nowNanos, double unmeasuredRttNanos) {
+        InstanceStats stats = statsFor(instance);
+        double rtt = stats.rttNanos(nowNanos, decayNanos());
+        return (rtt > 0 ? rtt : unmeasuredRttNanos) * (stats.getOutstanding() + 1);
+    }
+
+    // Unmeasured instances are assumed average, so they get traffic without being flooded with it
+    public double averageRttNanos(Collection<ServiceInstance> instances, long nowNanos) {
+        return instances.stream()
+                .mapToDouble(instance -> statsFor(instance).rttNanos(nowNanos, decayNanos()))
+                .filter(rtt -> rtt > 0)
+                .average()
+                .orElse(1);
+    }
+
+    public long decayNanos() {
+        return properties.getDecayTime().toNanos();
+    }
+
+    private boolean isLatencyOutlier(ServiceInstance instance, InstanceStats stats, long now) {
+        double[] peers = services.get(instance.getServiceId()).entrySet().stream()
+                .filter(entry -> !entry.getKey().equals(key(instance)) && !entry.getValue().isEjected(now))
+                .mapToDouble(entry -> entry.getValue().rttNanos(now, decayNanos()))
+                .filter(rtt -> rtt > 0)
+                .sorted()
+                .toArray();
+        if (peers.length == 0) {
+            return false;
+        }
+        double median = peers[peers.length / 2];
+        return stats.rttNanos(now, decayNanos()) > median * properties.getOutlierLatencyFactor();
+    }
+
+    private synchronized void eject(ServiceInstance instance, InstanceStats stats, long now, String reason) {
+        Collection<InstanceStats> all = services.get(instance.getServiceId()).values();
+        long ejected = all.stream().filter(other -> other.isEjected(now)).count();
+        if (stats.isEjected(now) || (ejected + 1) * 100 > (long) all.size() * properties.getMaxEjectionPercent()) {
+            return;
+        }
+        stats.eject(now + properties.getEjectionTime().toNanos());
+        ejections.computeIfAbsent(instance.getServiceId() + ':' + reason,
+                        key -> Counter.builder("gateway.loadbalancer.ejections")
+                                .tag("service", instance.getServiceId())
+                                .tag("reason", reason)
+                                .register(meterRegistry))
+                .increment();
+        log.warn("Ejected {} instance {}:{} for {} ({})", instance.getServiceId(), instance.getHost(),
+                 instance.getPort(), properties.getEjectionTime(), reason);
+    }
+
+    private static String key(ServiceInstance instance) {
+        return instance.getHost() + ':' + instance.getPort();
+    }
+}
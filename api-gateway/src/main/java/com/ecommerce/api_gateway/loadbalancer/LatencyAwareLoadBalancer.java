@@ -0,0 +1,76 @@
+package com.ecommerce.gateway.loadbalancer;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Replaces round robin for gateway routes: picks two instances at random
+ * and sends the request to the one with the lower expected cost, its
+ * latency average times one more than its requests in flight. Two random
+ * choices keep load spread out without every gateway herding onto the single
+ * fastest replica, while a replica that slows down or backs up stops getting
+ * its full share at once. Ejected outliers are skipped until their ejection
+ * ends, unless nothing else is left.
+ */
+public class LatencyAwareLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    private final ObjectProvider<ServiceInstanceListSupplier> supplierProvider;
+    private final InstanceStatsRegistry registry;
+
+    public LatencyAwareLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> supplierProvider,
+                                    InstanceStatsRegistry registry) {
+        this.supplierProvider = supplierProvider;
+        this.registry = registry;
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = supplierProvider.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request).next().map(this::choose);
+    }
+
+    Response<ServiceInstance> choose(List<ServiceInstance> instances) {
+        if (instances.isEmpty()) {
+            return new EmptyResponse();
+        }
+        registry.sync(instances.get(0).getServiceId(), instances);
+        if (instances.size() == 1) {
+            return new DefaultResponse(instances.get(0));
+        }
+
+        long now = System.nanoTime();
+        List<ServiceInstance> candidates = instances.stream()
+                .filter(instance -> !registry.statsFor(instance).isEjected(now))
+                .toList();
+        if (candidates.isEmpty()) {
+            candidates = instances;
+        }
+        if (candidates.size() == 1) {
+            return new DefaultResponse(candidates.get(0));
+        }
+
+        double unmeasured = registry.averageRttNanos(candidates, now);
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(candidates.size());
+        int second = random.nextInt(candidates.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        ServiceInstance a = candidates.get(first);
+        ServiceInstance b = candidates.get(second);
+        return new DefaultResponse(
+                registry.cost(a, now, unmeasured) <= registry.cost(b, now, unmeasured) ? a : b);
+    }
+}
@@ -0,0 +1,38 @@
+package com.ecommerce.gateway.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * Load-balancer client configuration, instantiated in each service's child
+ * context. Deliberately not a {@code @Configuration}, so component scanning
+ * does not register it in the main context as well.
+ */
+public class LatencyAwareLoadBalancerConfiguration {
+
+    @Bean
+    public ReactorLoadBalancer<ServiceInstance> latencyAwareLoadBalancer(Environment environment,
+                                                                         LoadBalancerClientFactory clientFactory,
+                                                                         InstanceStatsRegistry registry) {
+        String serviceId = LoadBalancerClientFactory.getName(environment);
+        return new LatencyAwareLoadBalancer(
+                clientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class), registry);
+    }
+
+    // The default discovery-plus-cache supplier, overlaid with instances pushed by eureka-server
+    @Bean
+    public ServiceInstanceListSupplier registryStreamServiceInstanceListSupplier(
+            ConfigurableApplicationContext context) {
+        return ServiceInstanceListSupplier.builder()
+                .withDiscoveryClient()
+                .withCaching()
+                .with((ctx, delegate) -> new RegistryStreamServiceInstanceListSupplier(
+                        delegate, ctx.getBean(RegistryStream.class)))
+                .build(context);
+    }
+}
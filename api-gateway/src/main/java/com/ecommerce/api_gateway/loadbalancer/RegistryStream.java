@@ -0,0 +1,183 @@
+package com.ecommerce.gateway.loadbalancer;
+
+import com.ecommerce.gateway.config.RegistryStreamProperties;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Mirror of eureka-server's registry kept current from its change stream
+ * ({@code /registry/stream}), so {@code lb://} routes see instances come and
+ * go within milliseconds instead of after the next registry poll and
+ * load-balancer cache refresh. The mirror is only trusted while the stream is
+ * up: it is rebuilt from the snapshot sent on every (re)connect, and while the
+ * stream is down {@link #instances} returns {@code null} so the load balancer
+ * falls back to polled discovery.
+ */
+@Component
+@Slf4j
+public class RegistryStream implements DisposableBean {
+
+    private static final ParameterizedTypeReference<ServerSentEvent<String>> EVENT =
+            new ParameterizedTypeReference<>() {};
+    private static final TypeReference<List<Delta>> SNAPSHOT = new TypeReference<>() {};
+
+    private final RegistryStreamProperties properties;
+    private final ObjectMapper objectMapper;
+    private final WebClient webClient;
+
+    // Application name -> instance id -> instance; only touched by the stream's events, which arrive in order
+    private final Map<String, Map<String, Delta>> registry = new HashMap<>();
+    // Application name -> UP instances, as handed to the load balancers
+    private final Map<String, List<ServiceInstance>> upInstances = new ConcurrentHashMap<>();
+    private volatile boolean live;
+    private volatile Disposable subscription;
+
+    public RegistryStream(RegistryStreamProperties properties, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.webClient = WebClient.create();
+    }
+
+    /**
+     * The service's UP instances as last streamed, empty once the last of them
+     * has gone, or {@code null} when the stream is down or has never seen the
+     * service, in which case polled discovery decides.
+     */
+    public List<ServiceInstance> instances(String serviceId) {
+        return live ? upInstances.get(serviceId.toUpperCase(Locale.ROOT)) : null;
+    }
+
+    public boolean isLive() {
+        return live;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isEnabled() || subscription != null) {
+            return;
+        }
+        subscription = Mono.defer(this::session)
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, properties.getMinReconnectDelay())
+                        .maxBackoff(properties.getMaxReconnectDelay())
+                        .transientErrors(true)
+                        .doBeforeRetry(signal -> log.debug("Registry stream unavailable, reconnecting: {}",
+                                signal.failure().getMessage())))
+                .subscribe();
+    }
+
+    @Override
+    public void destroy() {
+        Disposable current = subscription;
+        if (current != null) {
+            current.dispose();
+        }
+        drop(null);
+    }
+
+    // One connection: ends in an error (never completes) so the retry reconnects
+    private Mono<Void> session() {
+        return webClient.get()
+                .uri(properties.getUrl())
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .retrieve()
+                .bodyToFlux(EVENT)
+                .timeout(properties.getIdleTimeout())
+                .doOnNext(this::apply)
+                .then(Mono.<Void>error(new IOException("registry stream closed by server")))
+                .doOnError(this::drop);
+    }
+
+    private void apply(ServerSentEvent<String> event) {
+        if (event.event() == null || event.data() == null) {
+            // Keep-alive
+            return;
+        }
+        try {
+            switch (event.event()) {
+                case "snapshot" -> snapshot(objectMapper.readValue(event.data(), SNAPSHOT));
+                case "register", "status" -> put(objectMapper.readValue(event.data(), Delta.class));
+                case "cancel" -> remove(objectMapper.readValue(event.data(), Delta.class));
+                default -> log.debug("Ignoring registry stream event {}", event.event());
+            }
+        } catch (IOException e) {
+            log.warn("Unreadable registry stream event {}: {}", event.event(), e.getMessage());
+        }
+    }
+
+    private void snapshot(List<Delta> instances) {
+        registry.clear();
+        instances.forEach(delta -> apps(delta).put(delta.instanceId(), delta));
+        upInstances.keySet().retainAll(registry.keySet());
+        registry.keySet().forEach(this::publish);
+        if (!live) {
+            log.info("Registry stream connected: {} instances of {} services", instances.size(), registry.size());
+        }
+        live = true;
+    }
+
+    private void put(Delta delta) {
+        apps(delta).put(delta.instanceId(), delta);
+        publish(app(delta));
+    }
+
+    private void remove(Delta delta) {
+        Map<String, Delta> instances = registry.get(app(delta));
+        if (instances != null && instances.remove(delta.instanceId()) != null) {
+            publish(app(delta));
+        }
+    }
+
+    private void publish(String app) {
+        upInstances.put(app, registry.getOrDefault(app, Map.of()).values().stream()
+                .filter(delta -> "UP".equals(delta.status()))
+                .map(delta -> (ServiceInstance) new DefaultServiceInstance(delta.instanceId(), app, delta.host(),
+                        delta.port(), delta.secure(), delta.metadata() == null ? Map.of() : delta.metadata()))
+                .toList());
+    }
+
+    private void drop(Throwable error) {
+        if (live) {
+            log.warn("Registry stream lost, falling back to polled discovery: {}",
+                     error == null ? "shutting down" : error.getMessage());
+        }
+        live = false;
+        upInstances.clear();
+    }
+
+    private Map<String, Delta> apps(Delta delta) {
+        return registry.computeIfAbsent(app(delta), key -> new HashMap<>());
+    }
+
+    private static String app(Delta delta) {
+        return delta.app().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * An instance as eureka-server streams it; cancellations carry only the
+     * application and instance id.
+     */
+    record Delta(String app, String instanceId, String host, int port, boolean secure, String status,
+                 Map<String, String> metadata) {
+    }
+}
@@ -0,0 +1,31 @@
+package com.ecommerce.gateway.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.DelegatingServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+/**
+ * Serves a service's instances from the {@link RegistryStream} mirror while
+ * the stream is up, and from the (polled, cached) delegate otherwise.
+ */
+public class RegistryStreamServiceInstanceListSupplier extends DelegatingServiceInstanceListSupplier {
+
+    private final RegistryStream registryStream;
+
+    public RegistryStreamServiceInstanceListSupplier(ServiceInstanceListSupplier delegate,
+                                                     RegistryStream registryStream) {
+        super(delegate);
+        this.registryStream = registryStream;
+    }
+
+    @Override
+    public Flux<List<ServiceInstance>> get() {
+        return Flux.defer(() -> {
+            List<ServiceInstance> streamed = registryStream.instances(getServiceId());
+            return streamed != null ? Flux.just(streamed) : delegate.get();
+        });
+    }
+}
@@ -0,0 +1,42 @@
+package com.ecommerce.gateway.metrics;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts state transitions of every circuit breaker the gateway creates
+ * ({@code productServiceCB} and the others), tagged with the states left and
+ * entered. Current states are already published by resilience4j as
+ * {@code resilience4j.circuitbreaker.state}; this keeps the flapping between
+ * scrapes that a gauge misses.
+ */
+@Component
+@Slf4j
+public class CircuitBreakerTransitionMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    public CircuitBreakerTransitionMetrics(CircuitBreakerRegistry circuitBreakerRegistry, MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        circuitBreakerRegistry.getAllCircuitBreakers().forEach(this::bind);
+        circuitBreakerRegistry.getEventPublisher().onEntryAdded(event -> bind(event.getAddedEntry()));
+    }
+
+    private void bind(CircuitBreaker circuitBreaker) {
+        circuitBreaker.getEventPublisher().onStateTransition(event -> {
+            CircuitBreaker.StateTransition transition = event.getStateTransition();
+            Counter.builder("gateway.circuitbreaker.transitions")
+                    .tag("name", circuitBreaker.getName())
+                    .tag("from", transition.getFromState().name())
+                    .tag("to", transition.getToState().name())
+                    .register(meterRegistry)
+                    .increment();
+            log.warn("Circuit breaker {} went from {} to {}", circuitBreaker.getName(),
+                     transition.getFromState(), transition.getToState());
+        });
+    }
+}
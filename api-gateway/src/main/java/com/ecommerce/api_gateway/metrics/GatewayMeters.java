@@ -0,0 +1,91 @@
+package com.ecommerce.gateway.metrics;
+
+import com.ecommerce.gateway.config.GatewayMetricsProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The gateway's request timers and counters, registered once per tag
+ * combination and looked up without locking afterwards. Timers keep an HDR
+ * histogram per percentile window, so recording is a lock-free update and
+ * percentiles are computed only when the metrics are read.
+ */
+@Component
+public class GatewayMeters {
+
+    private final GatewayMetricsProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public GatewayMeters(GatewayMetricsProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    // From the request reaching the gateway until its response is committed
+    public Timer requestLatency(String routeId, String outcome) {
+        return timer("gateway.request.latency", "Time until the response is committed",
+                "route", routeId, "outcome", outcome);
+    }
+
+    // The part of the request latency not spent waiting on upstreams
+    public Timer requestOverhead(String routeId) {
+        return timer("gateway.request.overhead", "Request latency minus time spent waiting on upstreams",
+                "route", routeId, null, null);
+    }
+
+    // From sending to an upstream instance until its response headers are back, connecting included
+    public Timer upstreamLatency(String routeId, String instance) {
+        return timer("gateway.upstream.latency", "Time from sending upstream until response headers arrive",
+                "route", routeId, "instance", instance);
+    }
+
+    // Until a pooled connection or HTTP/2 stream is available to send on
+    public Timer upstreamAcquire(String routeId, String instance) {
+        return timer("gateway.upstream.acquire", "Time waiting for an upstream connection",
+                "route", routeId, "instance", instance);
+    }
+
+    public Timer upstreamConnect(String instance, String status) {
+        return timer("gateway.upstream.connect", "Time to open a new upstream connection",
+                "instance", instance, "status", status);
+    }
+
+    public Counter retries(String routeId) {
+        return counters.computeIfAbsent(routeId, id -> Counter.builder("gateway.request.retries")
+                .description("Upstream attempts repeated by the Retry filter")
+                .tag("route", id)
+                .register(meterRegistry));
+    }
+
+    private Timer timer(String name, String description, String tag, String value,
+                        String otherTag, String otherValue) {
+        String key = otherTag == null ? name + ':' + value : name + ':' + value + ':' + otherValue;
+        Timer timer = timers.get(key);
+        if (timer != null) {
+            return timer;
+        }
+        return timers.computeIfAbsent(key, k -> {
+            Timer.Builder builder = Timer.builder(name)
+                    .description(description)
+                    .tag(tag, value)
+                    .publishPercentiles(properties.getPercentiles().stream().mapToDouble(Double::doubleValue).toArray())
+                    .publishPercentileHistogram(properties.isPercentileHistogram())
+                    .distributionStatisticExpiry(properties.getPercentileWindow());
+            if (otherTag != null) {
+                builder.tag(otherTag, otherValue);
+            }
+            return builder.register(meterRegistry);
+        });
+    }
+}
@@ -0,0 +1,62 @@
+package com.ecommerce.gateway.metrics;
+
+import org.springframework.boot.actuate.metrics.http.Outcome;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every routed request from the moment it reaches the gateway filters
+ * until its response is committed, and splits that into the time spent
+ * waiting on upstreams (see {@link UpstreamTimingFilter}) and the rest, the
+ * gateway's own overhead. Also counts the retries the request needed.
+ * Nothing is recorded for requests the client abandons before a response.
+ */
+@Component
+public class GatewayTimingFilter implements GlobalFilter, Ordered {
+
+    private final GatewayMeters meters;
+
+    public GatewayTimingFilter(GatewayMeters meters) {
+        this.meters = meters;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (!meters.isEnabled() || route == null) {
+            return chain.filter(exchange);
+        }
+
+        RequestTiming timing = new RequestTiming(System.nanoTime());
+        exchange.getAttributes().put(RequestTiming.ATTRIBUTE, timing);
+        exchange.getResponse().beforeCommit(() -> {
+            record(route.getId(), exchange.getResponse().getStatusCode(), timing);
+            return Mono.empty();
+        });
+        return chain.filter(exchange);
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    private void record(String routeId, HttpStatusCode status, RequestTiming timing) {
+        long latency = System.nanoTime() - timing.getStartNanos();
+        Outcome outcome = status != null ? Outcome.forStatus(status.value()) : Outcome.SUCCESS;
+        meters.requestLatency(routeId, outcome.name()).record(latency, TimeUnit.NANOSECONDS);
+        meters.requestOverhead(routeId).record(Math.max(0, latency - timing.getUpstreamNanos()), TimeUnit.NANOSECONDS);
+        if (timing.getAttempts() > 1) {
+            meters.retries(routeId).increment(timing.getAttempts() - 1);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.ecommerce.gateway.metrics;
+
+import org.springframework.web.server.ServerWebExchange;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Timing of one routed request, kept in its exchange attributes. Attempts
+ * that route on a copy of the attributes (retries, hedges) share it, so it
+ * adds up the time spent waiting on upstreams across all of them.
+ */
+public final class RequestTiming {
+
+    public static final String ATTRIBUTE = RequestTiming.class.getName();
+
+    private final long startNanos;
+    private final AtomicLong upstreamNanos = new AtomicLong();
+    private final AtomicInteger attempts = new AtomicInteger();
+
+    RequestTiming(long startNanos) {
+        this.startNanos = startNanos;
+    }
+
+    public static RequestTiming of(ServerWebExchange exchange) {
+        return exchange.getAttribute(ATTRIBUTE);
+    }
+
+    long getStartNanos() {
+        return startNanos;
+    }
+
+    long getUpstreamNanos() {
+        return upstreamNanos.get();
+    }
+
+    int getAttempts() {
+        return attempts.get();
+    }
+
+    void upstreamAttemptStarted() {
+        attempts.incrementAndGet();
+    }
+
+    void upstreamAttemptFinished(long nanos) {
+        upstreamNanos.addAndGet(nanos);
+    }
+}
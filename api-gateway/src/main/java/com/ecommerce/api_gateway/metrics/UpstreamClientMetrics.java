@@ -0,0 +1,73 @@
+package com.ecommerce.gateway.metrics;
+
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.stereotype.Component;
+import reactor.netty.channel.ChannelMetricsRecorder;
+import reactor.netty.http.client.HttpClient;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times, per upstream instance, opening new connections from the gateway's
+ * HTTP clients and how long requests wait for a pooled connection (or HTTP/2
+ * stream) before they are sent. Connect times come from the clients' channel
+ * metrics recorder, called on the event loop, so reactor-netty's per-request
+ * meters stay off; the wait is measured from the start of the attempt that
+ * {@link UpstreamTimingFilter} puts in the request's context.
+ */
+@Component
+public class UpstreamClientMetrics implements HttpClientCustomizer, ChannelMetricsRecorder {
+
+    private final GatewayMeters meters;
+
+    public UpstreamClientMetrics(GatewayMeters meters) {
+        this.meters = meters;
+    }
+
+    @Override
+    public HttpClient customize(HttpClient httpClient) {
+        if (!meters.isEnabled()) {
+            return httpClient;
+        }
+        return httpClient.metrics(true, () -> this)
+                .doOnRequest((request, connection) -> request.currentContextView()
+                        .<UpstreamTimingFilter.Attempt>getOrEmpty(UpstreamTimingFilter.Attempt.class)
+                        .ifPresent(attempt -> meters.upstreamAcquire(attempt.routeId(), attempt.instance())
+                                .record(System.nanoTime() - attempt.startNanos(), TimeUnit.NANOSECONDS)));
+    }
+
+    @Override
+    public void recordConnectTime(SocketAddress remoteAddress, Duration time, String status) {
+        meters.upstreamConnect(instance(remoteAddress), status).record(time);
+    }
+
+    @Override
+    public void recordDataReceived(SocketAddress remoteAddress, long bytes) {
+    }
+
+    @Override
+    public void recordDataSent(SocketAddress remoteAddress, long bytes) {
+    }
+
+    @Override
+    public void incrementErrorsCount(SocketAddress remoteAddress) {
+    }
+
+    @Override
+    public void recordTlsHandshakeTime(SocketAddress remoteAddress, Duration time, String status) {
+    }
+
+    @Override
+    public void recordResolveAddressTime(SocketAddress remoteAddress, Duration time, String status) {
+    }
+
+    private static String instance(SocketAddress address) {
+        if (address instanceof InetSocketAddress inet) {
+            return inet.getHostString() + ':' + inet.getPort();
+        }
+        return String.valueOf(address);
+    }
+}
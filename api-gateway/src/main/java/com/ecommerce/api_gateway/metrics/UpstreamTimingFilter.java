@@ -0,0 +1,73 @@
+package com.ecommerce.gateway.metrics;
+
+import com.ecommerce.gateway.filter.HedgingGatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times each upstream attempt per route and instance, from just before the
+ * routing filter sends it until the response headers are back. Attempts
+ * cancelled midway, such as the loser of a hedge, are not recorded. Hedges
+ * are not counted as attempts, so the attempt count measures retries only.
+ */
+@Component
+public class UpstreamTimingFilter implements GlobalFilter, Ordered {
+
+    private final GatewayMeters meters;
+
+    public UpstreamTimingFilter(GatewayMeters meters) {
+        this.meters = meters;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        RequestTiming timing = RequestTiming.of(exchange);
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        URI url = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
+        if (timing == null || route == null || url == null
+                || !("http".equals(url.getScheme()) || "https".equals(url.getScheme()))) {
+            return chain.filter(exchange);
+        }
+
+        if (exchange.getAttribute(HedgingGatewayFilter.HEDGE_ATTEMPT_ATTR) == null) {
+            timing.upstreamAttemptStarted();
+        }
+        Attempt attempt = new Attempt(route.getId(), url.getHost() + ':' + port(url), System.nanoTime());
+        return chain.filter(exchange)
+                .doOnSuccess(done -> finished(timing, attempt))
+                .doOnError(ex -> finished(timing, attempt))
+                .contextWrite(context -> context.put(Attempt.class, attempt));
+    }
+
+    // Just ahead of the routing filters
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE - 10;
+    }
+
+    private void finished(RequestTiming timing, Attempt attempt) {
+        long elapsed = System.nanoTime() - attempt.startNanos();
+        timing.upstreamAttemptFinished(elapsed);
+        meters.upstreamLatency(attempt.routeId(), attempt.instance()).record(elapsed, TimeUnit.NANOSECONDS);
+    }
+
+    private static int port(URI url) {
+        if (url.getPort() >= 0) {
+            return url.getPort();
+        }
+        return "https".equals(url.getScheme()) ? 443 : 80;
+    }
+
+    // Read back by the HTTP client to time the wait for a connection (see UpstreamClientMetrics)
+    record Attempt(String routeId, String instance, long startNanos) {
+    }
+}
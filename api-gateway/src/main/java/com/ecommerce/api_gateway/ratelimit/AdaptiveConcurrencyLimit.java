@@ -0,0 +1,122 @@
+package com.ecommerce.gateway.ratelimit;
+
+import com.ecommerce.gateway.config.ConcurrencyLimitProperties;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-flight request limit for one route that follows the backend's latency,
+ * using the gradient scheme from Netflix's concurrency-limits: while recent
+ * latency stays within tolerance of its long-run baseline the limit grows by
+ * about the square root of itself, and as latency climbs the limit shrinks in
+ * proportion (at most halving per estimate), so requests queue at the gateway
+ * as fast 503s instead of inside the backend. Failed requests back the limit
+ * off multiplicatively.
+ *
+ * Admission is a compare-and-set on the in-flight count; the estimate itself
+ * is updated under the instance lock once per completed request.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    // Samples averaged into the recent latency that is compared against the baseline
+    private static final int SHORT_WINDOW = 10;
+
+    private final ConcurrencyLimitProperties properties;
+    private final AtomicInteger inflight = new AtomicInteger();
+    private volatile int limit;
+    private double estimatedLimit;
+    private double shortRttNanos;
+    private double longRttNanos;
+    private long samples;
+
+    public AdaptiveConcurrencyLimit(ConcurrencyLimitProperties properties) {
+        this.properties = properties;
+        this.estimatedLimit = clamp(properties.getInitialLimit());
+        this.limit = (int) estimatedLimit;
+    }
+
+    /**
+     * Takes a permit unless the route already has {@link #getLimit()} requests in flight.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inflight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns a permit and feeds the request into the estimate.
+     *
+     * @param rttNanos        time the request held its permit
+     * @param inflightAtStart requests in flight when it was admitted, itself included
+     * @param dropped         whether it failed, timed out or was answered with a 5xx
+     */
+    public void release(long rttNanos, int inflightAtStart, boolean dropped) {
+        inflight.decrementAndGet();
+        update(rttNanos, inflightAtStart, dropped);
+    }
+
+    /**
+     * Returns a permit without a sample, for requests the client abandoned.
+     */
+    public void cancel() {
+        inflight.decrementAndGet();
+    }
+
+    public boolean isSaturated() {
+        return inflight.get() >= limit;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    private synchronized void update(long rttNanos, int inflightAtStart, boolean dropped) {
+        if (dropped) {
+            estimatedLimit = clamp(estimatedLimit * properties.getBackoffRatio());
+            limit = (int) estimatedLimit;
+            return;
+        }
+
+        samples++;
+        shortRttNanos = average(shortRttNanos, rttNanos, SHORT_WINDOW);
+        longRttNanos = average(longRttNanos, rttNanos, properties.getLongWindow());
+
+        // After a slow spell the baseline lags far behind; let it catch up so the
+        // recovery is not read as headroom and the limit does not overshoot
+        if (longRttNanos / shortRttNanos > 2) {
+            longRttNanos *= 0.95;
+        }
+
+        // A route that never fills half its limit says nothing about what it could take
+        if (inflightAtStart < estimatedLimit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, properties.getRttTolerance() * longRttNanos / shortRttNanos));
+        double next = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        double smoothing = properties.getSmoothing();
+        estimatedLimit = clamp(estimatedLimit * (1 - smoothing) + next * smoothing);
+        limit = (int) estimatedLimit;
+    }
+
+    // Plain mean while warming up, then an exponential average over the window
+    private double average(double current, long sample, int window) {
+        double weight = Math.max(1.0 / samples, 2.0 / (window + 1));
+        return current + (sample - current) * weight;
+    }
+
+    private double clamp(double value) {
+        return Math.max(properties.getMinLimit(), Math.min(properties.getMaxLimit(), value));
+    }
+}
@@ -0,0 +1,163 @@
+package com.ecommerce.gateway.ratelimit;
+
+import com.ecommerce.gateway.config.RateLimitProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.filter.ratelimit.AbstractRateLimiter;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process token bucket for the {@code RequestRateLimiter} filter, so edge
+ * admission control needs no round trip to Redis. Limits are per gateway
+ * instance: with N instances behind a balancer a client gets up to N times
+ * the configured rate.
+ *
+ * Each bucket is one {@link AtomicLong} holding the time at which it will be
+ * full again (the generic cell rate algorithm), so admitting a request is a
+ * single compare-and-set with no lock and no refill timer. Buckets live in a
+ * size-bounded cache and are dropped once idle long enough to have refilled,
+ * which loses nothing: a fresh bucket starts full.
+ */
+@Component
+@Primary // The Redis limiter auto-configured alongside stays available by name
+@Slf4j
+public class LocalRateLimiter extends AbstractRateLimiter<LocalRateLimiter.Config> {
+
+    public static final String CONFIGURATION_PROPERTY_NAME = "local-rate-limiter";
+    public static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+    public static final String REPLENISH_RATE_HEADER = "X-RateLimit-Replenish-Rate";
+    public static final String BURST_CAPACITY_HEADER = "X-RateLimit-Burst-Capacity";
+    public static final String REQUESTED_TOKENS_HEADER = "X-RateLimit-Requested-Tokens";
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final RateLimitProperties properties;
+    private final Config defaultConfig;
+    private final Cache<String, AtomicLong> buckets;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public LocalRateLimiter(RateLimitProperties properties, ConfigurationService configurationService,
+                            MeterRegistry meterRegistry) {
+        super(Config.class, CONFIGURATION_PROPERTY_NAME, configurationService);
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.defaultConfig = Config.of(properties.getDefaultLimit(), null);
+        properties.getRoutes().forEach((routeId, limit) ->
+                getConfig().put(routeId, Config.of(limit, properties.getDefaultLimit())));
+
+        // Idle past the slowest refill, a bucket is full again and can be forgotten
+        long refillNanos = getConfig().values().stream()
+                .mapToLong(Config::refillNanos)
+                .reduce(defaultConfig.refillNanos(), Math::max);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxKeys())
+                .expireAfterAccess(Duration.ofNanos(Math.max(refillNanos, NANOS_PER_SECOND)))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, buckets, "gateway-rate-limit-buckets");
+    }
+
+    @Override
+    public Mono<Response> isAllowed(String routeId, String id) {
+        Config config = getConfig().getOrDefault(routeId, defaultConfig);
+        if (!properties.isEnabled()) {
+            return Mono.just(new Response(true, headers(config, -1)));
+        }
+
+        long interval = config.intervalNanos();
+        long cost = interval * config.getRequestedTokens();
+        long capacity = interval * config.getBurstCapacity();
+        AtomicLong fullAt = buckets.get(routeId + ':' + id, key -> new AtomicLong(System.nanoTime()));
+
+        while (true) {
+            long now = System.nanoTime();
+            long current = fullAt.get();
+            long base = current - now > 0 ? current : now;
+            long next = base + cost;
+            long debt = next - now;
+            if (debt > capacity) {
+                count(routeId, "rejected");
+                Map<String, String> headers = headers(config, (capacity - (base - now)) / interval);
+                long waitNanos = debt - capacity;
+                headers.put(HttpHeaders.RETRY_AFTER,
+                        Long.toString((waitNanos + NANOS_PER_SECOND - 1) / NANOS_PER_SECOND));
+                return Mono.just(new Response(false, headers));
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                count(routeId, "allowed");
+                return Mono.just(new Response(true, headers(config, (capacity - debt) / interval)));
+            }
+        }
+    }
+
+    private Map<String, String> headers(Config config, long remaining) {
+        Map<String, String> headers = new HashMap<>();
+        headers.put(REMAINING_HEADER, Long.toString(remaining));
+        headers.put(REPLENISH_RATE_HEADER, Integer.toString(config.getReplenishRate()));
+        headers.put(BURST_CAPACITY_HEADER, Integer.toString(config.getBurstCapacity()));
+        headers.put(REQUESTED_TOKENS_HEADER, Integer.toString(config.getRequestedTokens()));
+        return headers;
+    }
+
+    private void count(String routeId, String outcome) {
+        counters.computeIfAbsent(routeId + ':' + outcome, key -> Counter.builder("gateway.ratelimit.requests")
+                        .tag("route", routeId)
+                        .tag("outcome", outcome)
+                        .register(meterRegistry))
+                .increment();
+    }
+
+    @Data
+    @Validated
+    public static class Config {
+
+        @Min(1)
+        private int replenishRate;
+
+        @Min(1)
+        private int burstCapacity = 1;
+
+        @Min(1)
+        private int requestedTokens = 1;
+
+        static Config of(RateLimitProperties.Limit limit, RateLimitProperties.Limit fallback) {
+            Config config = new Config();
+            config.setReplenishRate(pick(limit.getReplenishRate(), fallback != null ? fallback.getReplenishRate() : null));
+            config.setBurstCapacity(pick(limit.getBurstCapacity(), fallback != null ? fallback.getBurstCapacity() : null));
+            config.setRequestedTokens(pick(limit.getRequestedTokens(), fallback != null ? fallback.getRequestedTokens() : null));
+            return config;
+        }
+
+        private static int pick(Integer value, Integer fallback) {
+            return value != null ? value : fallback != null ? fallback : 1;
+        }
+
+        // Time for one token to drip back in
+        long intervalNanos() {
+            return Math.max(1, NANOS_PER_SECOND / replenishRate);
+        }
+
+        long refillNanos() {
+            return intervalNanos() * burstCapacity;
+        }
+    }
+}
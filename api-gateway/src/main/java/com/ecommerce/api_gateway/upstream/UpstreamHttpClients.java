@@ -0,0 +1,122 @@
+package com.ecommerce.gateway.upstream;
+
+import com.ecommerce.gateway.config.UpstreamClientProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.cloud.gateway.config.HttpClientFactory;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.config.HttpClientSslConfigurer;
+import org.springframework.stereotype.Component;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.Http2AllocationStrategy;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One HTTP client per upstream service, each with its own connection pool
+ * sized from {@code gateway.upstream}, so a service that saturates its pool
+ * does not starve the others, and services that accept it can be reached
+ * over h2c, multiplexing requests instead of queueing them per connection.
+ * Clients are otherwise built exactly like the gateway's shared one
+ * (SSL, proxy, timeouts and {@link HttpClientCustomizer}s included), and
+ * created on first use.
+ */
+@Component
+@Slf4j
+public class UpstreamHttpClients implements DisposableBean {
+
+    private final UpstreamClientProperties properties;
+    private final HttpClientProperties httpClientProperties;
+    private final ServerProperties serverProperties;
+    private final HttpClientSslConfigurer sslConfigurer;
+    private final List<HttpClientCustomizer> customizers;
+    private final Map<String, HttpClient> clients = new ConcurrentHashMap<>();
+    private final Map<String, ConnectionProvider> providers = new ConcurrentHashMap<>();
+
+    public UpstreamHttpClients(UpstreamClientProperties properties, HttpClientProperties httpClientProperties,
+                               ServerProperties serverProperties, HttpClientSslConfigurer sslConfigurer,
+                               List<HttpClientCustomizer> customizers) {
+        this.properties = properties;
+        this.httpClientProperties = httpClientProperties;
+        this.serverProperties = serverProperties;
+        this.sslConfigurer = sslConfigurer;
+        this.customizers = customizers;
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public HttpClient forService(String serviceId) {
+        String key = serviceId.toLowerCase(Locale.ROOT);
+        HttpClient client = clients.get(key);
+        return client != null ? client : clients.computeIfAbsent(key, this::create);
+    }
+
+    @Override
+    public void destroy() {
+        providers.values().forEach(ConnectionProvider::dispose);
+    }
+
+    private HttpClient create(String serviceId) {
+        UpstreamClientProperties.Pool pool = properties.poolFor(serviceId);
+        ConnectionProvider provider = connectionProvider(serviceId, pool);
+        providers.put(serviceId, provider);
+        HttpClient client = new ServiceHttpClientFactory(httpClientProperties, serverProperties, sslConfigurer,
+                customizers, provider).create();
+        log.info("Upstream pool for {}: {} connections per instance{}", serviceId, pool.getMaxConnections(),
+                 pool.isH2c() ? ", h2c with " + pool.getMaxConcurrentStreams() + " streams each" : "");
+        return pool.isH2c() ? client.protocol(HttpProtocol.H2C) : client;
+    }
+
+    private ConnectionProvider connectionProvider(String serviceId, UpstreamClientProperties.Pool pool) {
+        ConnectionProvider.Builder builder = ConnectionProvider.builder("gateway-" + serviceId)
+                .maxConnections(pool.getMaxConnections())
+                .pendingAcquireMaxCount(pool.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(pool.getPendingAcquireTimeout())
+                .maxIdleTime(pool.getMaxIdleTime())
+                .maxLifeTime(pool.getMaxLifeTime())
+                .evictInBackground(pool.getEvictionInterval())
+                .metrics(properties.isMetrics());
+        if (pool.isLifo()) {
+            builder.lifo();
+        }
+        if (pool.isH2c()) {
+            builder.allocationStrategy(Http2AllocationStrategy.builder()
+                    .maxConcurrentStreams(pool.getMaxConcurrentStreams())
+                    .maxConnections(pool.getMaxConnections())
+                    .minConnections(pool.getMinConnections())
+                    .build());
+        }
+        return builder.build();
+    }
+
+    // The gateway's own client factory, on a given pool
+    private static final class ServiceHttpClientFactory extends HttpClientFactory {
+
+        private final ConnectionProvider provider;
+
+        ServiceHttpClientFactory(HttpClientProperties properties, ServerProperties serverProperties,
+                                 HttpClientSslConfigurer sslConfigurer, List<HttpClientCustomizer> customizers,
+                                 ConnectionProvider provider) {
+            super(properties, serverProperties, sslConfigurer, customizers);
+            this.provider = provider;
+        }
+
+        HttpClient create() {
+            return createInstance();
+        }
+
+        @Override
+        protected ConnectionProvider buildConnectionProvider(HttpClientProperties properties) {
+            return provider;
+        }
+    }
+}
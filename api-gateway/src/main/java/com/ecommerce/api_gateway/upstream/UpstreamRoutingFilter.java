@@ -0,0 +1,62 @@
+package com.ecommerce.gateway.upstream;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyRoutingFilter;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.RouteMetadataUtils;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+
+import java.util.List;
+
+/**
+ * Routes requests for {@code lb://} routes through their service's own
+ * client (see {@link UpstreamHttpClients}). Runs just ahead of Spring Cloud
+ * Gateway's {@code routingFilter}, which then finds them already routed and
+ * still handles every other route; it stays enabled because the filter that
+ * writes upstream responses back is only registered alongside it. WebSocket
+ * upgrades are left to the {@code WebsocketRoutingFilter}.
+ */
+@Component
+public class UpstreamRoutingFilter extends NettyRoutingFilter {
+
+    private final UpstreamHttpClients clients;
+
+    public UpstreamRoutingFilter(HttpClient httpClient, ObjectProvider<List<HttpHeadersFilter>> headersFiltersProvider,
+                                 HttpClientProperties properties, UpstreamHttpClients clients) {
+        super(httpClient, headersFiltersProvider, properties);
+        this.clients = clients;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (!clients.isEnabled() || route == null || !"lb".equals(route.getUri().getScheme())
+                || "websocket".equalsIgnoreCase(exchange.getRequest().getHeaders().getUpgrade())) {
+            return chain.filter(exchange);
+        }
+        return super.filter(exchange, chain);
+    }
+
+    @Override
+    public int getOrder() {
+        return NettyRoutingFilter.ORDER - 1;
+    }
+
+    @Override
+    protected HttpClient getHttpClient(Route route, ServerWebExchange exchange) {
+        HttpClient client = clients.forService(route.getUri().getHost());
+        Object connectTimeout = route.getMetadata().get(RouteMetadataUtils.CONNECT_TIMEOUT_ATTR);
+        if (connectTimeout != null) {
+            return client.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, Integer.valueOf(connectTimeout.toString()));
+        }
+        return client;
+    }
+}
@@ -0,0 +1,95 @@
+package com.ecommerce.gateway.filter;
+
+import com.ecommerce.api_gateway.ApiGatewayApplication;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.server.HttpServer;
+import reactor.util.function.Tuple2;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(classes = ApiGatewayApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class AdaptiveConcurrencyGatewayFilterFactoryTest {
+
+    private static final AtomicInteger upstreamCalls = new AtomicInteger();
+
+    private static final DisposableServer upstream = HttpServer.create()
+            .port(0)
+            // product-service accepts h2c as well
+            .protocol(HttpProtocol.HTTP11, HttpProtocol.H2C)
+            .route(routes -> routes
+                    .get("/api/products/{id}", (request, response) -> {
+                        upstreamCalls.incrementAndGet();
+                        return response.header(HttpHeaders.CONTENT_TYPE, "application/json")
+                                .header(HttpHeaders.CACHE_CONTROL, "no-store")
+                                .sendString(Mono.just("{\"id\":" + request.param("id") + "}")
+                                        .delayElement(Duration.ofMillis(500)));
+                    }))
+            .bindNow();
+
+    @Value("${local.server.port}")
+    private int port;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void routeToUpstream(DynamicPropertyRegistry registry) {
+        registry.add("eureka.client.enabled", () -> "false");
+        registry.add("spring.cloud.discovery.client.simple.instances[PRODUCT-SERVICE][0].uri",
+                () -> "http://localhost:" + upstream.port());
+        registry.add("gateway.concurrency-limit.initial-limit", () -> "1");
+        registry.add("gateway.concurrency-limit.min-limit", () -> "1");
+        registry.add("gateway.concurrency-limit.max-limit", () -> "1");
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        upstream.disposeNow();
+    }
+
+    @Test
+    void requestsOverTheLimitGetTheFallbackAtOnceAndAreNotRetried() {
+        WebClient client = WebClient.create("http://localhost:" + port);
+
+        Mono<ResponseEntity<String>> slow = client.get().uri("/api/products/1")
+                .retrieve().toEntity(String.class);
+        Mono<ResponseEntity<String>> shed = Mono.delay(Duration.ofMillis(200))
+                .then(client.get().uri("/api/products/2")
+                        .exchangeToMono(response -> response.toEntity(String.class)));
+
+        Tuple2<ResponseEntity<String>, ResponseEntity<String>> responses = Mono.zip(slow, shed)
+                .block(Duration.ofSeconds(10));
+        ResponseEntity<String> admitted = responses.getT1();
+        ResponseEntity<String> rejected = responses.getT2();
+
+        assertEquals(HttpStatus.OK, admitted.getStatusCode());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, rejected.getStatusCode());
+        assertEquals("concurrency",
+                rejected.getHeaders().getFirst(AdaptiveConcurrencyGatewayFilterFactory.SHED_HEADER));
+        assertEquals("1", rejected.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertTrue(rejected.getBody().contains("Product Service is temporarily unavailable"));
+
+        // Shed once: the 503 was not fed back into the GET retry
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(1.0, meterRegistry.get("gateway.concurrency.requests")
+                .tag("route", "product-service").tag("outcome", "shed").counter().count());
+    }
+}
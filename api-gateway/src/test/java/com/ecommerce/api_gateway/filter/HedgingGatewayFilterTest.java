@@ -0,0 +1,94 @@
+package com.ecommerce.gateway.filter;
+
+import com.ecommerce.api_gateway.ApiGatewayApplication;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(classes = ApiGatewayApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class HedgingGatewayFilterTest {
+
+    // The first call for each product stalls, whichever replica gets it
+    private static final Map<String, AtomicInteger> callsById = new ConcurrentHashMap<>();
+
+    private static final DisposableServer first = replica("first");
+    private static final DisposableServer second = replica("second");
+
+    @Value("${local.server.port}")
+    private int port;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void routeToReplicas(DynamicPropertyRegistry registry) {
+        registry.add("eureka.client.enabled", () -> "false");
+        registry.add("spring.cloud.discovery.client.simple.instances[PRODUCT-SERVICE][0].uri",
+                () -> "http://localhost:" + first.port());
+        registry.add("spring.cloud.discovery.client.simple.instances[PRODUCT-SERVICE][1].uri",
+                () -> "http://localhost:" + second.port());
+        registry.add("gateway.hedging.max-delay", () -> "100ms");
+        registry.add("gateway.hedging.max-hedge-ratio", () -> "1.0");
+    }
+
+    @AfterAll
+    static void stopReplicas() {
+        first.disposeNow();
+        second.disposeNow();
+    }
+
+    @Test
+    void stalledReplicaIsOvertakenByTheHedge() {
+        WebClient client = WebClient.create("http://localhost:" + port);
+
+        long start = System.nanoTime();
+        ResponseEntity<String> response = client.get().uri("/api/products/7")
+                .retrieve().toEntity(String.class).block(Duration.ofSeconds(5));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("won", response.getHeaders().getFirst(HedgingGatewayFilter.HEDGE_HEADER));
+        assertTrue(response.getBody().contains("\"id\":7"));
+        assertTrue(elapsedMillis < 1_000, "took " + elapsedMillis + " ms");
+        assertEquals(2, callsById.get("7").get());
+        assertEquals(1.0, meterRegistry.get("gateway.hedging.requests")
+                .tag("route", "product-service").tag("outcome", "hedge-won").counter().count());
+    }
+
+    private static DisposableServer replica(String name) {
+        return HttpServer.create()
+                .port(0)
+                // product-service accepts h2c as well
+                .protocol(HttpProtocol.HTTP11, HttpProtocol.H2C)
+                .route(routes -> routes.get("/api/products/{id}", (request, response) -> {
+                    String id = request.param("id");
+                    boolean stall = callsById.computeIfAbsent(id, key -> new AtomicInteger()).incrementAndGet() == 1;
+                    return response.header(HttpHeaders.CONTENT_TYPE, "application/json")
+                            .header(HttpHeaders.CACHE_CONTROL, "no-store")
+                            .sendString(Mono.just("{\"id\":" + id + ",\"replica\":\"" + name + "\"}")
+                                    .delayElement(stall ? Duration.ofSeconds(3) : Duration.ZERO));
+                }))
+                .bindNow();
+    }
+}
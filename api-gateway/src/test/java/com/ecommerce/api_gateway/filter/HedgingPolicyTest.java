@@ -0,0 +1,58 @@
+package com.ecommerce.gateway.filter;
+
+import com.ecommerce.gateway.config.HedgingProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class HedgingPolicyTest {
+
+    @Test
+    void delayFollowsThePercentileWithinItsBounds() {
+        HedgingProperties properties = new HedgingProperties();
+        properties.setWindowSize(100);
+        HedgingPolicy policy = new HedgingPolicy(properties);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(500), policy.delayNanos());
+
+        // 1..100 ms, so the 95th percentile is 95 ms
+        for (int round = 0; round < 6; round++) {
+            for (int millis = 1; millis <= 100; millis++) {
+                policy.record(TimeUnit.MILLISECONDS.toNanos(millis));
+            }
+        }
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(95), policy.delayNanos());
+
+        for (int i = 0; i < properties.getWindowSize(); i++) {
+            policy.record(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        assertEquals(properties.getMinDelay().toNanos(), policy.delayNanos());
+    }
+
+    @Test
+    void hedgesAreCappedByTheBudget() {
+        HedgingPolicy policy = new HedgingPolicy(new HedgingProperties());
+        assertFalse(policy.tryAcquireHedge());
+
+        int hedges = 0;
+        for (int request = 0; request < 1_000; request++) {
+            policy.onRequest();
+            if (policy.tryAcquireHedge()) {
+                hedges++;
+            }
+        }
+        assertEquals(50, hedges);
+
+        // Quiet periods save up no more than the burst
+        for (int request = 0; request < 10_000; request++) {
+            policy.onRequest();
+        }
+        int burst = 0;
+        while (policy.tryAcquireHedge()) {
+            burst++;
+        }
+        assertEquals(10, burst);
+    }
+}
@@ -0,0 +1,212 @@
+package com.ecommerce.gateway.filter;
+
+import com.ecommerce.api_gateway.ApiGatewayApplication;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(classes = ApiGatewayApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ResponseCacheGatewayFilterTest {
+
+    private static final String ETAG = "\"7-3\"";
+    private static final AtomicInteger categoryCalls = new AtomicInteger();
+    private static final Map<String, AtomicInteger> productCalls = new ConcurrentHashMap<>();
+    private static final AtomicInteger notModifiedCalls = new AtomicInteger();
+    private static final AtomicInteger checkStockCalls = new AtomicInteger();
+    private static final AtomicInteger largeCalls = new AtomicInteger();
+    // Twice the default max-body-size
+    private static final byte[] LARGE_BODY = new byte[2 * 1024 * 1024];
+
+    private static final DisposableServer upstream = HttpServer.create()
+            .port(0)
+            // product-service accepts h2c as well
+            .protocol(HttpProtocol.HTTP11, HttpProtocol.H2C)
+            .route(routes -> routes
+                    .get("/api/products/category/{category}", (request, response) -> {
+                        categoryCalls.incrementAndGet();
+                        // What product-service sends on list and category pages
+                        return response.header(HttpHeaders.CONTENT_TYPE, "application/json")
+                                .header(HttpHeaders.CACHE_CONTROL, "max-age=1")
+                                .sendString(Mono.just("{\"category\":\"" + request.param("category") + "\"}")
+                                        .delayElement(Duration.ofMillis(300)));
+                    })
+                    .get("/api/products/search", (request, response) -> {
+                        largeCalls.incrementAndGet();
+                        return response.header(HttpHeaders.CONTENT_TYPE, "application/octet-stream")
+                                .header(HttpHeaders.CACHE_CONTROL, "max-age=60")
+                                .sendByteArray(Mono.just(LARGE_BODY).delayElement(Duration.ofMillis(300)));
+                    })
+                    .get("/api/products/{id}/check-stock", (request, response) -> {
+                        checkStockCalls.incrementAndGet();
+                        return response.header(HttpHeaders.CONTENT_TYPE, "application/json")
+                                .sendString(Mono.just("true"));
+                    })
+                    .get("/api/products/{id}", (request, response) -> {
+                        productCalls.computeIfAbsent(request.param("id"), id -> new AtomicInteger()).incrementAndGet();
+                        if (ETAG.equals(request.requestHeaders().get(HttpHeaders.IF_NONE_MATCH))) {
+                            notModifiedCalls.incrementAndGet();
+                            return response.status(304).header(HttpHeaders.ETAG, ETAG).send();
+                        }
+                        return response.header(HttpHeaders.CONTENT_TYPE, "application/json")
+                                .header(HttpHeaders.ETAG, ETAG)
+                                .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                                .sendString(Mono.just("{\"id\":7}"));
+                    })
+                    .put("/api/products/category/{category}", (request, response) -> response.send())
+                    .put("/api/products/{id}/stock", (request, response) -> response.send()))
+            .bindNow();
+
+    @Value("${local.server.port}")
+    private int port;
+
+    @DynamicPropertySource
+    static void routeToUpstream(DynamicPropertyRegistry registry) {
+        registry.add("eureka.client.enabled", () -> "false");
+        registry.add("spring.cloud.discovery.client.simple.instances[PRODUCT-SERVICE][0].uri",
+                () -> "http://localhost:" + upstream.port());
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        upstream.disposeNow();
+    }
+
+    @Test
+    void concurrentMissesShareOneUpstreamCallAndLaterOnesHitTheCache() {
+        WebClient client = WebClient.create("http://localhost:" + port);
+
+        List<ResponseEntity<String>> responses = Flux.range(0, 20)
+                .flatMap(i -> client.get().uri("/api/products/category/Coalesced").retrieve().toEntity(String.class))
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertEquals(1, categoryCalls.get());
+        assertEquals(20, responses.size());
+        responses.forEach(response -> {
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            assertEquals("{\"category\":\"Coalesced\"}", response.getBody());
+        });
+        assertTrue(responses.stream().anyMatch(response ->
+                "COALESCED".equals(response.getHeaders().getFirst(ResponseCacheGatewayFilter.CACHE_STATUS_HEADER))));
+
+        ResponseEntity<String> cached = client.get().uri("/api/products/category/Coalesced")
+                .retrieve().toEntity(String.class).block(Duration.ofSeconds(5));
+        assertEquals("HIT", cached.getHeaders().getFirst(ResponseCacheGatewayFilter.CACHE_STATUS_HEADER));
+        assertEquals(1, categoryCalls.get());
+
+        client.put().uri("/api/products/category/Coalesced").retrieve().toBodilessEntity().block(Duration.ofSeconds(5));
+        client.get().uri("/api/products/category/Coalesced").retrieve().toEntity(String.class).block(Duration.ofSeconds(5));
+        assertEquals(2, categoryCalls.get());
+    }
+
+    @Test
+    void repeatedCategoryPageIsAnsweredFromTheCacheUntilItsMaxAgeRunsOut() throws InterruptedException {
+        WebClient client = WebClient.create("http://localhost:" + port);
+        String page = "/api/products/category/Paged?page=0&size=20";
+        int before = categoryCalls.get();
+
+        ResponseEntity<String> first = client.get().uri(page).retrieve().toEntity(String.class).block(Duration.ofSeconds(5));
+        assertEquals("MISS", first.getHeaders().getFirst(ResponseCacheGatewayFilter.CACHE_STATUS_HEADER));
+        ResponseEntity<String> second = client.get().uri(page).retrieve().toEntity(String.class).block(Duration.ofSeconds(5));
+        assertEquals("HIT", second.getHeaders().getFirst(ResponseCacheGatewayFilter.CACHE_STATUS_HEADER));
+        assertEquals(first.getBody(), second.getBody());
+        assertEquals(before + 1, categoryCalls.get());
+
+        Thread.sleep(1100);
+        client.get().uri(page).retrieve().toEntity(String.class).block(Duration.ofSeconds(5));
+        assertEquals(before + 2, categoryCalls.get());
+    }
+
+    @Test
+    void storedEtagIsRevalidatedUpstreamAndAnsweredWithNotModified() {
+        WebClient client = WebClient.create("http://localhost:" + port);
+
+        ResponseEntity<String> first = client.get().uri("/api/products/7")
+                .retrieve().toEntity(String.class).block(Duration.ofSeconds(5));
+        assertEquals("{\"id\":7}", first.getBody());
+        assertEquals(ETAG, first.getHeaders().getETag());
+
+        // no-cache: stored, but checked with the backend before every reuse
+        ResponseEntity<String> second = client.get().uri("/api/products/7")
+                .retrieve().toEntity(String.class).block(Duration.ofSeconds(5));
+        assertEquals("REVALIDATED", second.getHeaders().getFirst(ResponseCacheGatewayFilter.CACHE_STATUS_HEADER));
+        assertEquals("{\"id\":7}", second.getBody());
+        assertEquals(1, notModifiedCalls.get());
+
+        ResponseEntity<Void> conditional = client.get().uri("/api/products/7")
+                .header(HttpHeaders.IF_NONE_MATCH, ETAG)
+                .exchangeToMono(response -> response.toBodilessEntity())
+                .block(Duration.ofSeconds(5));
+        assertEquals(HttpStatus.NOT_MODIFIED, conditional.getStatusCode());
+        assertEquals(3, productCalls.get("7").get());
+    }
+
+    @Test
+    void oversizeResponseStreamsToTheLeaderAndSendsOnlyTheWaitersUpstream() {
+        WebClient client = WebClient.builder()
+                .baseUrl("http://localhost:" + port)
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(LARGE_BODY.length))
+                .build();
+
+        List<ResponseEntity<byte[]>> responses = Flux.range(0, 5)
+                .flatMap(i -> client.get().uri("/api/products/search?q=large").retrieve().toEntity(byte[].class))
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        // One call for the leader and one per waiter, none repeated
+        assertEquals(5, largeCalls.get());
+        responses.forEach(response -> {
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            assertEquals(LARGE_BODY.length, response.getBody().length);
+        });
+    }
+
+    @Test
+    void responsesWithoutCacheControlOrEtagAreNeverReused() {
+        WebClient client = WebClient.create("http://localhost:" + port);
+
+        for (int i = 0; i < 3; i++) {
+            ResponseEntity<String> response = client.get().uri("/api/products/9/check-stock?quantity=1")
+                    .retrieve().toEntity(String.class).block(Duration.ofSeconds(5));
+            assertEquals("MISS", response.getHeaders().getFirst(ResponseCacheGatewayFilter.CACHE_STATUS_HEADER));
+        }
+        assertEquals(3, checkStockCalls.get());
+    }
+
+    @Test
+    void writeToASubResourceDropsTheWholeProduct() {
+        WebClient client = WebClient.create("http://localhost:" + port);
+
+        client.get().uri("/api/products/8").retrieve().toEntity(String.class).block(Duration.ofSeconds(5));
+        ResponseEntity<String> stored = client.get().uri("/api/products/8")
+                .retrieve().toEntity(String.class).block(Duration.ofSeconds(5));
+        assertEquals("REVALIDATED", stored.getHeaders().getFirst(ResponseCacheGatewayFilter.CACHE_STATUS_HEADER));
+
+        client.put().uri("/api/products/8/stock").retrieve().toBodilessEntity().block(Duration.ofSeconds(5));
+        ResponseEntity<String> afterWrite = client.get().uri("/api/products/8")
+                .retrieve().toEntity(String.class).block(Duration.ofSeconds(5));
+        assertEquals("MISS", afterWrite.getHeaders().getFirst(ResponseCacheGatewayFilter.CACHE_STATUS_HEADER));
+        assertEquals(3, productCalls.get("8").get());
+    }
+}
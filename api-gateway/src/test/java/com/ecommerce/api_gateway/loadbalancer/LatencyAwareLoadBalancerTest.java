@@ -0,0 +1,110 @@
+package com.ecommerce.gateway.loadbalancer;
+
+import com.ecommerce.gateway.config.LoadBalancingProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.loadbalancer.support.ServiceInstanceListSuppliers;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyAwareLoadBalancerTest {
+
+    private static final String SERVICE = "PRODUCT-SERVICE";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final InstanceStatsRegistry registry = new InstanceStatsRegistry(new LoadBalancingProperties(), meterRegistry);
+
+    private final ServiceInstance a = instance("a");
+    private final ServiceInstance b = instance("b");
+    private final ServiceInstance c = instance("c");
+
+    @Test
+    void prefersTheFasterInstanceUntilItBacksUp() {
+        LatencyAwareLoadBalancer balancer = balancer(a, b);
+        respond(a, 100);
+        respond(b, 10);
+
+        assertEquals(Map.of(b, 100), picks(balancer, 100));
+
+        // 10 ms with 20 waiting costs more than 100 ms with none
+        for (int i = 0; i < 20; i++) {
+            registry.recordStart(b);
+        }
+        assertEquals(Map.of(a, 100), picks(balancer, 100));
+    }
+
+    @Test
+    void failingInstanceIsEjectedButNeverTheWholeService() {
+        LatencyAwareLoadBalancer balancer = balancer(a, b);
+        picks(balancer, 10);
+        fail(a, 5);
+
+        assertTrue(registry.statsFor(a).isEjected(System.nanoTime()));
+        assertEquals(Map.of(b, 50), picks(balancer, 50));
+
+        // Ejecting b as well would leave nothing, so the cap keeps it in
+        fail(b, 5);
+        assertFalse(registry.statsFor(b).isEjected(System.nanoTime()));
+        assertEquals(1.0, meterRegistry.get("gateway.loadbalancer.ejections")
+                .tag("service", SERVICE).tag("reason", "failures").counter().count());
+    }
+
+    @Test
+    void latencyOutlierIsEjected() {
+        LatencyAwareLoadBalancer balancer = balancer(a, b, c);
+        for (int i = 0; i < 20; i++) {
+            respond(a, 10);
+            respond(b, 12);
+            respond(c, 80);
+        }
+
+        assertTrue(registry.statsFor(c).isEjected(System.nanoTime()));
+        assertFalse(picks(balancer, 200).containsKey(c));
+    }
+
+    @Test
+    void unmeasuredInstanceStillGetsTraffic() {
+        LatencyAwareLoadBalancer balancer = balancer(a, b);
+        respond(a, 10);
+
+        // Assumed average until measured, so it wins the ties it is in
+        assertTrue(picks(balancer, 100).containsKey(b));
+    }
+
+    private LatencyAwareLoadBalancer balancer(ServiceInstance... instances) {
+        return new LatencyAwareLoadBalancer(ServiceInstanceListSuppliers.toProvider(SERVICE, instances), registry);
+    }
+
+    private Map<ServiceInstance, Integer> picks(LatencyAwareLoadBalancer balancer, int times) {
+        Map<ServiceInstance, Integer> picks = new HashMap<>();
+        for (int i = 0; i < times; i++) {
+            picks.merge(balancer.choose(new DefaultRequest<>()).block().getServer(), 1, Integer::sum);
+        }
+        return picks;
+    }
+
+    private void respond(ServiceInstance instance, long millis) {
+        registry.recordStart(instance);
+        registry.recordSuccess(instance, TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    private void fail(ServiceInstance instance, int times) {
+        for (int i = 0; i < times; i++) {
+            registry.recordStart(instance);
+            registry.recordFailure(instance);
+        }
+    }
+
+    private static ServiceInstance instance(String host) {
+        return new DefaultServiceInstance(host, SERVICE, host, 8080, false);
+    }
+}
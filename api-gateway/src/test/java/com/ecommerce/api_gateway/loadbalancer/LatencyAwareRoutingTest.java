@@ -0,0 +1,78 @@
+package com.ecommerce.gateway.loadbalancer;
+
+import com.ecommerce.api_gateway.ApiGatewayApplication;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(classes = ApiGatewayApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class LatencyAwareRoutingTest {
+
+    private static final AtomicInteger fastCalls = new AtomicInteger();
+    private static final AtomicInteger slowCalls = new AtomicInteger();
+
+    private static final DisposableServer fast = stub(fastCalls, Duration.ZERO);
+    private static final DisposableServer slow = stub(slowCalls, Duration.ofMillis(200));
+
+    @Value("${local.server.port}")
+    private int port;
+
+    @DynamicPropertySource
+    static void routeToStubs(DynamicPropertyRegistry registry) {
+        registry.add("eureka.client.enabled", () -> "false");
+        registry.add("spring.cloud.discovery.client.simple.instances[PRODUCT-SERVICE][0].uri",
+                () -> "http://localhost:" + fast.port());
+        registry.add("spring.cloud.discovery.client.simple.instances[PRODUCT-SERVICE][1].uri",
+                () -> "http://localhost:" + slow.port());
+    }
+
+    @AfterAll
+    static void stopStubs() {
+        fast.disposeNow();
+        slow.disposeNow();
+    }
+
+    @Test
+    void slowReplicaStopsGettingItsShareOnceMeasured() {
+        WebClient client = WebClient.create("http://localhost:" + port);
+
+        for (int id = 1; id <= 40; id++) {
+            assertEquals(HttpStatus.OK, client.get().uri("/api/products/" + id)
+                    .retrieve().toBodilessEntity().block(Duration.ofSeconds(5)).getStatusCode());
+        }
+
+        assertEquals(40, fastCalls.get() + slowCalls.get());
+        // Round robin would have sent it 20
+        assertTrue(slowCalls.get() <= 3, "slow replica served " + slowCalls.get());
+    }
+
+    private static DisposableServer stub(AtomicInteger calls, Duration delay) {
+        return HttpServer.create()
+                .port(0)
+                // product-service accepts h2c as well
+                .protocol(HttpProtocol.HTTP11, HttpProtocol.H2C)
+                .route(routes -> routes.get("/api/products/{id}", (request, response) -> {
+                    calls.incrementAndGet();
+                    return response.header(HttpHeaders.CONTENT_TYPE, "application/json")
+                            .header(HttpHeaders.CACHE_CONTROL, "no-store")
+                            .sendString(Mono.just("{\"id\":" + request.param("id") + "}").delayElement(delay));
+                }))
+                .bindNow();
+    }
+}
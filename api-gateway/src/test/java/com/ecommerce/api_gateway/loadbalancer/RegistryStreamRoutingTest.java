@@ -0,0 +1,149 @@
+package com.ecommerce.gateway.loadbalancer;
+
+import com.ecommerce.api_gateway.ApiGatewayApplication;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(classes = ApiGatewayApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class RegistryStreamRoutingTest {
+
+    private static final DisposableServer polled = replica("polled");
+    private static final DisposableServer pushed = replica("pushed");
+    private static final DisposableServer added = replica("added");
+
+    // Stands in for eureka-server's /registry/stream; the current subscriber's events go to its sink
+    private static final AtomicReference<Sinks.Many<String>> events = new AtomicReference<>();
+    private static final AtomicBoolean streamAvailable = new AtomicBoolean(true);
+    private static final DisposableServer eureka = HttpServer.create()
+            .port(0)
+            .route(routes -> routes.get("/registry/stream", (request, response) -> {
+                if (!streamAvailable.get()) {
+                    return response.status(503).send();
+                }
+                Sinks.Many<String> sink = Sinks.many().unicast().onBackpressureBuffer();
+                sink.tryEmitNext(event("snapshot", "[" + instance("pushed-1", pushed, "UP") + "]"));
+                events.set(sink);
+                return response.header(HttpHeaders.CONTENT_TYPE, "text/event-stream").sendString(sink.asFlux());
+            }))
+            .bindNow();
+
+    @Value("${local.server.port}")
+    private int port;
+
+    @Autowired
+    private RegistryStream registryStream;
+
+    @DynamicPropertySource
+    static void routeToReplicas(DynamicPropertyRegistry registry) {
+        registry.add("eureka.client.enabled", () -> "false");
+        registry.add("spring.cloud.discovery.client.simple.instances[PRODUCT-SERVICE][0].uri",
+                () -> "http://localhost:" + polled.port());
+        registry.add("gateway.registry-stream.url", () -> "http://localhost:" + eureka.port() + "/registry/stream");
+        registry.add("gateway.registry-stream.min-reconnect-delay", () -> "100ms");
+        registry.add("gateway.registry-stream.max-reconnect-delay", () -> "200ms");
+    }
+
+    @AfterAll
+    static void stopServers() {
+        eureka.disposeNow();
+        polled.disposeNow();
+        pushed.disposeNow();
+        added.disposeNow();
+    }
+
+    @Test
+    void pushedInstancesRouteImmediatelyAndPollingTakesOverWhenTheStreamDrops() {
+        awaitTrue(registryStream::isLive);
+        assertEquals("pushed", replicaFor(1));
+
+        // No poll or cache refresh in between: the deltas alone move the traffic
+        events.get().tryEmitNext(event("register", instance("added-1", added, "UP")));
+        events.get().tryEmitNext(event("status", instance("pushed-1", pushed, "OUT_OF_SERVICE")));
+        awaitTrue(() -> "added".equals(replicaFor(2)));
+        for (int id = 3; id <= 10; id++) {
+            assertEquals("added", replicaFor(id));
+        }
+
+        // The stream knows the service has no UP instance left, so polling must not bring a dead one back
+        events.get().tryEmitNext(event("cancel", instance("added-1", added, "UP")));
+        awaitTrue(() -> List.of().equals(registryStream.instances("product-service")));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, statusFor(11));
+        assertNull(registryStream.instances("unknown-service"));
+
+        streamAvailable.set(false);
+        events.get().tryEmitComplete();
+        awaitTrue(() -> !registryStream.isLive());
+        assertEquals("polled", replicaFor(12));
+
+        // Back to the streamed view as soon as it reconnects
+        streamAvailable.set(true);
+        awaitTrue(registryStream::isLive);
+        assertEquals("pushed", replicaFor(13));
+    }
+
+    private String replicaFor(int id) {
+        return WebClient.create("http://localhost:" + port).get().uri("/api/products/" + id)
+                .retrieve().bodyToMono(String.class).block(Duration.ofSeconds(5));
+    }
+
+    private HttpStatusCode statusFor(int id) {
+        return WebClient.create("http://localhost:" + port).get().uri("/api/products/" + id)
+                .exchangeToMono(response -> Mono.just(response.statusCode())).block(Duration.ofSeconds(5));
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met within 5s");
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static String event(String name, String data) {
+        return "event:" + name + "\ndata:" + data + "\n\n";
+    }
+
+    private static String instance(String id, DisposableServer server, String status) {
+        return "{\"app\":\"PRODUCT-SERVICE\",\"instanceId\":\"" + id + "\",\"host\":\"localhost\",\"port\":"
+                + server.port() + ",\"secure\":false,\"status\":\"" + status + "\",\"metadata\":{}}";
+    }
+
+    private static DisposableServer replica(String name) {
+        return HttpServer.create()
+                .port(0)
+                // product-service accepts h2c as well
+                .protocol(HttpProtocol.HTTP11, HttpProtocol.H2C)
+                .route(routes -> routes.get("/api/products/{id}", (request, response) ->
+                        response.header(HttpHeaders.CACHE_CONTROL, "no-store").sendString(Mono.just(name))))
+                .bindNow();
+    }
+}
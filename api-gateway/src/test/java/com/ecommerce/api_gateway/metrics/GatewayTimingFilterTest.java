@@ -0,0 +1,110 @@
+package com.ecommerce.gateway.metrics;
+
+import com.ecommerce.api_gateway.ApiGatewayApplication;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(classes = ApiGatewayApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class GatewayTimingFilterTest {
+
+    private static final AtomicInteger flakyCalls = new AtomicInteger();
+
+    private static final DisposableServer upstream = HttpServer.create()
+            .port(0)
+            // product-service accepts h2c as well
+            .protocol(HttpProtocol.HTTP11, HttpProtocol.H2C)
+            .route(routes -> routes.get("/api/products/{id}", (request, response) -> {
+                // The first call for "flaky" fails, so the Retry filter repeats it
+                if ("flaky".equals(request.param("id")) && flakyCalls.incrementAndGet() == 1) {
+                    return response.status(500).send();
+                }
+                return response.header(HttpHeaders.CONTENT_TYPE, "application/json")
+                        .header(HttpHeaders.CACHE_CONTROL, "no-store")
+                        .sendString(Mono.just("{\"id\":\"" + request.param("id") + "\"}")
+                                .delayElement(Duration.ofMillis(100)));
+            }))
+            .bindNow();
+
+    @Value("${local.server.port}")
+    private int port;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+
+    @DynamicPropertySource
+    static void routeToUpstream(DynamicPropertyRegistry registry) {
+        registry.add("eureka.client.enabled", () -> "false");
+        registry.add("spring.cloud.discovery.client.simple.instances[PRODUCT-SERVICE][0].uri",
+                () -> "http://localhost:" + upstream.port());
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        upstream.disposeNow();
+    }
+
+    @Test
+    void requestTimeIsSplitIntoGatewayAndUpstreamTime() {
+        WebClient client = WebClient.create("http://localhost:" + port);
+
+        assertEquals(HttpStatus.OK, client.get().uri("/api/products/1")
+                .retrieve().toBodilessEntity().block(Duration.ofSeconds(5)).getStatusCode());
+
+        Timer latency = meterRegistry.get("gateway.request.latency")
+                .tag("route", "product-service").tag("outcome", "SUCCESS").timer();
+        Timer upstreamLatency = meterRegistry.get("gateway.upstream.latency")
+                .tag("route", "product-service").tag("instance", "localhost:" + upstream.port()).timer();
+        Timer overhead = meterRegistry.get("gateway.request.overhead").tag("route", "product-service").timer();
+        assertEquals(1, latency.count());
+        assertEquals(1, upstreamLatency.count());
+        assertTrue(upstreamLatency.totalTime(TimeUnit.MILLISECONDS) >= 100);
+        assertTrue(overhead.totalTime(TimeUnit.NANOSECONDS) < latency.totalTime(TimeUnit.NANOSECONDS));
+        assertTrue(meterRegistry.get("gateway.upstream.connect").tag("status", "SUCCESS").timer().count() >= 1);
+        assertTrue(latency.takeSnapshot().percentileValues().length > 0);
+    }
+
+    @Test
+    void retriesAreCountedPerRoute() {
+        WebClient client = WebClient.create("http://localhost:" + port);
+
+        assertEquals(HttpStatus.OK, client.get().uri("/api/products/flaky")
+                .retrieve().toBodilessEntity().block(Duration.ofSeconds(5)).getStatusCode());
+
+        assertEquals(2, flakyCalls.get());
+        assertEquals(1.0, meterRegistry.get("gateway.request.retries").tag("route", "product-service")
+                .counter().count());
+    }
+
+    @Test
+    void circuitBreakerTransitionsAreCounted() {
+        circuitBreakerRegistry.circuitBreaker("transitionsTestCB").transitionToOpenState();
+
+        assertEquals(1.0, meterRegistry.get("gateway.circuitbreaker.transitions")
+                .tag("name", "transitionsTestCB").tag("from", "CLOSED").tag("to", "OPEN").counter().count());
+    }
+}
@@ -0,0 +1,70 @@
+package com.ecommerce.gateway.ratelimit;
+
+import com.ecommerce.gateway.config.ConcurrencyLimitProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @Test
+    void growsWhileLatencyHoldsAndShrinksWhenItClimbs() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(new ConcurrencyLimitProperties());
+        assertEquals(20, limit.getLimit());
+
+        for (int i = 0; i < 50; i++) {
+            sample(limit, FAST, limit.getLimit());
+        }
+        int grown = limit.getLimit();
+        assertTrue(grown > 40, "limit only reached " + grown);
+
+        for (int i = 0; i < 20; i++) {
+            sample(limit, FAST * 4, limit.getLimit());
+        }
+        assertTrue(limit.getLimit() < grown / 2, "limit stayed at " + limit.getLimit());
+    }
+
+    @Test
+    void doesNotGrowWhileMostlyIdleAndBacksOffOnFailures() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(new ConcurrencyLimitProperties());
+        for (int i = 0; i < 50; i++) {
+            sample(limit, FAST, 2);
+        }
+        assertEquals(20, limit.getLimit());
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limit.tryAcquire());
+            limit.release(FAST, 1, true);
+        }
+        assertEquals(4, limit.getLimit());
+    }
+
+    @Test
+    void admitsNoMoreThanTheLimitInFlight() {
+        ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+        properties.setInitialLimit(3);
+        properties.setMinLimit(1);
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(properties);
+
+        assertTrue(limit.tryAcquire());
+        assertTrue(limit.tryAcquire());
+        assertTrue(limit.tryAcquire());
+        assertFalse(limit.tryAcquire());
+        assertTrue(limit.isSaturated());
+
+        limit.cancel();
+        assertEquals(2, limit.getInflight());
+        assertTrue(limit.tryAcquire());
+    }
+
+    private static void sample(AdaptiveConcurrencyLimit limit, long rttNanos, int inflight) {
+        assertTrue(limit.tryAcquire());
+        limit.release(rttNanos, inflight, false);
+    }
+}
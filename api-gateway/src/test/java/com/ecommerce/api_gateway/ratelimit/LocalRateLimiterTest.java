@@ -0,0 +1,82 @@
+package com.ecommerce.gateway.ratelimit;
+
+import com.ecommerce.gateway.config.RateLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.ratelimit.RateLimiter;
+import org.springframework.http.HttpHeaders;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocalRateLimiterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void admitsTheBurstThenRejectsWithRetryAfter() {
+        LocalRateLimiter limiter = limiter(1, 5);
+
+        for (int i = 4; i >= 0; i--) {
+            RateLimiter.Response response = limiter.isAllowed("products", "10.0.0.1").block();
+            assertTrue(response.isAllowed());
+            assertEquals(Integer.toString(i), response.getHeaders().get(LocalRateLimiter.REMAINING_HEADER));
+        }
+        RateLimiter.Response rejected = limiter.isAllowed("products", "10.0.0.1").block();
+        assertFalse(rejected.isAllowed());
+        assertEquals("1", rejected.getHeaders().get(HttpHeaders.RETRY_AFTER));
+
+        // Buckets are per key and per route
+        assertTrue(limiter.isAllowed("products", "10.0.0.2").block().isAllowed());
+        assertTrue(limiter.isAllowed("orders", "10.0.0.1").block().isAllowed());
+        assertEquals(1.0, meterRegistry.get("gateway.ratelimit.requests")
+                .tag("route", "products").tag("outcome", "rejected").counter().count());
+    }
+
+    @Test
+    void concurrentCallersNeverExceedTheBurst() throws Exception {
+        LocalRateLimiter limiter = limiter(1, 100);
+        AtomicInteger allowed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < 1_000; i++) {
+                    if (limiter.isAllowed("products", "hot-client").block().isAllowed()) {
+                        allowed.incrementAndGet();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        long started = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long refilled = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started) + 1;
+        assertTrue(allowed.get() >= 100 && allowed.get() <= 100 + refilled,
+                "Admitted " + allowed.get() + " requests with a burst of 100");
+    }
+
+    private LocalRateLimiter limiter(int replenishRate, int burstCapacity) {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setDefaultLimit(new RateLimitProperties.Limit(replenishRate, burstCapacity, 1));
+        return new LocalRateLimiter(properties, null, meterRegistry);
+    }
+}
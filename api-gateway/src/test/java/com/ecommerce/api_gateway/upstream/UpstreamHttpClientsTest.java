@@ -0,0 +1,89 @@
+package com.ecommerce.gateway.upstream;
+
+import com.ecommerce.api_gateway.ApiGatewayApplication;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@SpringBootTest(classes = ApiGatewayApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class UpstreamHttpClientsTest {
+
+    private static final Set<String> protocols = ConcurrentHashMap.newKeySet();
+    private static final Set<String> connections = ConcurrentHashMap.newKeySet();
+
+    private static final DisposableServer upstream = HttpServer.create()
+            .port(0)
+            .protocol(HttpProtocol.HTTP11, HttpProtocol.H2C)
+            .route(routes -> routes.get("/api/products/{id}", (request, response) -> {
+                // HTTP/2 streams reach the handler converted to HTTP/1.1 requests, marked with their stream id
+                protocols.add(request.requestHeaders().contains("x-http2-stream-id") ? "h2c" : request.protocol());
+                connections.add(String.valueOf(request.remoteAddress()));
+                return response.header(HttpHeaders.CONTENT_TYPE, "application/json")
+                        .header(HttpHeaders.CACHE_CONTROL, "no-store")
+                        .sendString(Mono.just("{\"id\":" + request.param("id") + "}").delayElement(Duration.ofMillis(50)));
+            }))
+            .bindNow();
+
+    @Value("${local.server.port}")
+    private int port;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void routeToUpstream(DynamicPropertyRegistry registry) {
+        registry.add("eureka.client.enabled", () -> "false");
+        registry.add("spring.cloud.discovery.client.simple.instances[PRODUCT-SERVICE][0].uri",
+                () -> "http://localhost:" + upstream.port());
+        registry.add("gateway.upstream.services.product-service.min-connections", () -> "1");
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        upstream.disposeNow();
+    }
+
+    @Test
+    void concurrentRequestsAreMultiplexedOverH2c() {
+        WebClient client = WebClient.create("http://localhost:" + port);
+
+        List<ResponseEntity<String>> responses = Flux.range(1, 10)
+                .flatMap(id -> client.get().uri("/api/products/" + id).retrieve().toEntity(String.class))
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        responses.forEach(response -> assertEquals(HttpStatus.OK, response.getStatusCode()));
+        assertEquals(Set.of("h2c"), protocols);
+        assertEquals(1, connections.size());
+
+        String instance = "localhost:" + upstream.port();
+        assertNotNull(meterRegistry.find("reactor.netty.connection.provider.active.streams")
+                .tag("name", "http2.gateway-product-service").tag("remote.address", instance).gauge());
+        assertNotNull(meterRegistry.find("reactor.netty.connection.provider.pending.connections")
+                .tag("name", "gateway-product-service").tag("remote.address", instance).gauge());
+        assertEquals(10, meterRegistry.get("gateway.upstream.acquire")
+                .tag("route", "product-service").tag("instance", instance).timer().count());
+    }
+}
@@ -0,0 +1,65 @@
+package com.ecommerce.eureka_server.snapshot;
+
+import com.netflix.appinfo.DataCenterInfo;
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.appinfo.LeaseInfo;
+import com.netflix.appinfo.MyDataCenterInfo;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The registry as written to disk: when it was taken and, per instance, just
+ * what clients resolve it by and the lease terms it registered with.
+ */
+public record RegistrySnapshot(long savedAt, List<Instance> instances) {
+
+    public record Instance(String app, String instanceId, String hostName, String ipAddr, int port,
+                           boolean portEnabled, int securePort, boolean securePortEnabled, String status,
+                           String vipAddress, String secureVipAddress, String homePageUrl, String statusPageUrl,
+                           String healthCheckUrl, String secureHealthCheckUrl, int leaseRenewalIntervalSecs,
+                           int leaseDurationSecs, long lastDirtyTimestamp, Map<String, String> metadata) {
+
+        static Instance of(InstanceInfo info) {
+            LeaseInfo lease = info.getLeaseInfo();
+            return new Instance(info.getAppName(), info.getInstanceId(), info.getHostName(), info.getIPAddr(),
+                    info.getPort(), info.isPortEnabled(InstanceInfo.PortType.UNSECURE), info.getSecurePort(),
+                    info.isPortEnabled(InstanceInfo.PortType.SECURE), info.getStatus().name(),
+                    info.getVIPAddress(), info.getSecureVipAddress(), info.getHomePageUrl(),
+                    info.getStatusPageUrl(), info.getHealthCheckUrl(), info.getSecureHealthCheckUrl(),
+                    lease == null ? LeaseInfo.DEFAULT_LEASE_RENEWAL_INTERVAL : lease.getRenewalIntervalInSecs(),
+                    lease == null ? LeaseInfo.DEFAULT_LEASE_DURATION : lease.getDurationInSecs(),
+                    info.getLastDirtyTimestamp(), info.getMetadata());
+        }
+
+        InstanceInfo toInstanceInfo(Map<String, String> extraMetadata) {
+            Map<String, String> allMetadata = new ConcurrentHashMap<>(metadata == null ? Map.of() : metadata);
+            allMetadata.putAll(extraMetadata);
+            return InstanceInfo.Builder.newBuilder()
+                    .setAppName(app)
+                    .setInstanceId(instanceId)
+                    .setHostName(hostName)
+                    .setIPAddr(ipAddr)
+                    .setPort(port)
+                    .enablePort(InstanceInfo.PortType.UNSECURE, portEnabled)
+                    .setSecurePort(securePort)
+                    .enablePort(InstanceInfo.PortType.SECURE, securePortEnabled)
+                    .setStatus(InstanceInfo.InstanceStatus.toEnum(status))
+                    .setVIPAddressDeser(vipAddress)
+                    .setSecureVIPAddressDeser(secureVipAddress)
+                    .setHomePageUrlForDeser(homePageUrl)
+                    .setStatusPageUrlForDeser(statusPageUrl)
+                    .setHealthCheckUrlsForDeser(healthCheckUrl, secureHealthCheckUrl)
+                    .setLeaseInfo(LeaseInfo.Builder.newBuilder()
+                            .setRenewalIntervalInSecs(leaseRenewalIntervalSecs)
+                            .setDurationInSecs(leaseDurationSecs)
+                            .build())
+                    .setDataCenterInfo(new MyDataCenterInfo(DataCenterInfo.Name.MyOwn))
+                    .setMetadata(allMetadata)
+                    // Unchanged clients renew as usual; ones that changed while we were down re-register
+                    .setLastDirtyTimestamp(lastDirtyTimestamp)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.ecommerce.eureka_server.snapshot;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.eureka.registry.PeerAwareInstanceRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.netflix.eureka.server.event.EurekaInstanceCanceledEvent;
+import org.springframework.cloud.netflix.eureka.server.event.EurekaInstanceRegisteredEvent;
+import org.springframework.cloud.netflix.eureka.server.event.EurekaInstanceRenewedEvent;
+import org.springframework.cloud.netflix.eureka.server.event.EurekaRegistryAvailableEvent;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a copy of the registry on local disk, written periodically and on
+ * shutdown, and loads it back once the registry opens on startup. Without it
+ * a restarted server knows no instances until each client's next heartbeat
+ * re-registers it, and {@code lb://} routes fail in the meantime.
+ *
+ * Loaded instances are provisional: they carry {@value #PROVISIONAL} metadata
+ * until their own client renews the lease, and keep the lease duration they
+ * registered with, so instances that went away while the server was down are
+ * evicted after one lease as usual. Snapshots older than {@code max-age} are
+ * ignored.
+ */
+@Component
+public class RegistrySnapshotStore implements SmartLifecycle {
+
+    public static final String PROVISIONAL = "eureka-snapshot-provisional";
+
+    private static final Logger log = LoggerFactory.getLogger(RegistrySnapshotStore.class);
+
+    private final PeerAwareInstanceRegistry registry;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final Path path;
+    private final Duration interval;
+    private final Duration maxAge;
+    // app/instanceId of loaded instances not yet renewed by their client
+    private final Set<String> provisional = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "registry-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean loaded;
+    private volatile boolean running;
+
+    public RegistrySnapshotStore(PeerAwareInstanceRegistry registry, ObjectMapper objectMapper,
+                                 @Value("${registry-snapshot.enabled:true}") boolean enabled,
+                                 @Value("${registry-snapshot.path:data/registry-snapshot.json}") Path path,
+                                 @Value("${registry-snapshot.interval:30s}") Duration interval,
+                                 @Value("${registry-snapshot.max-age:15m}") Duration maxAge) {
+        this.registry = registry;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.path = path;
+        this.interval = interval;
+        this.maxAge = maxAge;
+    }
+
+    @EventListener(EurekaRegistryAvailableEvent.class)
+    public void load() {
+        if (!enabled || loaded) {
+            return;
+        }
+        loaded = true;
+        if (Files.exists(path)) {
+            try {
+                restore(objectMapper.readValue(path.toFile(), RegistrySnapshot.class));
+            } catch (IOException | RuntimeException e) {
+                log.warn("Could not load registry snapshot {}: {}", path, e.getMessage());
+            }
+        }
+        long millis = interval.toMillis();
+        writer.scheduleWithFixedDelay(this::save, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Writes the registry as it stands, replacing the previous snapshot only
+     * once the new one is completely on disk.
+     */
+    public synchronized void save() {
+        List<RegistrySnapshot.Instance> instances = registry.getApplications().getRegisteredApplications().stream()
+                .flatMap(application -> application.getInstances().stream())
+                .map(RegistrySnapshot.Instance::of)
+                .toList();
+        try {
+            Path directory = path.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+            try {
+                objectMapper.writeValue(temp.toFile(), new RegistrySnapshot(System.currentTimeMillis(), instances));
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            log.debug("Saved registry snapshot of {} instances to {}", instances.size(), path);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not save registry snapshot {}: {}", path, e.getMessage());
+        }
+    }
+
+    public boolean isProvisional(String app, String instanceId) {
+        return provisional.contains(key(app, instanceId));
+    }
+
+    @EventListener
+    public void onRenewed(EurekaInstanceRenewedEvent event) {
+        if (provisional.remove(key(event.getAppName(), event.getServerId()))) {
+            InstanceInfo info = registry.getInstanceByAppAndId(event.getAppName(), event.getServerId(), false);
+            if (info != null) {
+                info.getMetadata().remove(PROVISIONAL);
+                info.setIsDirty();
+                registry.getResponseCache().invalidate(info.getAppName(), info.getVIPAddress(),
+                        info.getSecureVipAddress());
+            }
+        }
+    }
+
+    // A client registering again replaces the loaded entry outright
+    @EventListener
+    public void onRegistered(EurekaInstanceRegisteredEvent event) {
+        provisional.remove(key(event.getInstanceInfo().getAppName(), event.getInstanceInfo().getInstanceId()));
+    }
+
+    @EventListener
+    public void onCanceled(EurekaInstanceCanceledEvent event) {
+        provisional.remove(key(event.getAppName(), event.getServerId()));
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    // Runs before the Eureka server shuts its registry down (phase 0), so the final snapshot is complete
+    @Override
+    public void stop() {
+        running = false;
+        writer.shutdownNow();
+        if (enabled && loaded) {
+            save();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return 1;
+    }
+
+    private void restore(RegistrySnapshot snapshot) {
+        Duration age = Duration.ofMillis(System.currentTimeMillis() - snapshot.savedAt());
+        if (age.compareTo(maxAge) > 0) {
+            log.info("Ignoring registry snapshot {}: {} old", path, age);
+            return;
+        }
+        int restored = 0;
+        for (RegistrySnapshot.Instance instance : snapshot.instances()) {
+            if (registry.getInstanceByAppAndId(instance.app(), instance.instanceId(), false) != null) {
+                // Already registered (or synced from a peer) with fresher data
+                continue;
+            }
+            InstanceInfo info = instance.toInstanceInfo(Map.of(PROVISIONAL, "true"));
+            // Registered as a replication so it is not pushed on to peers, which hold their own copy
+            registry.register(info, instance.leaseDurationSecs(), true);
+            provisional.add(key(instance.app(), instance.instanceId()));
+            restored++;
+        }
+        log.info("Restored {} provisional instances from registry snapshot {} ({} old)", restored, path, age);
+    }
+
+    private static String key(String app, String instanceId) {
+        return app.toUpperCase(Locale.ROOT) + '/' + instanceId;
+    }
+}
@@ -0,0 +1,24 @@
+package com.ecommerce.eureka_server.stream;
+
+import com.netflix.appinfo.InstanceInfo;
+
+import java.util.Map;
+
+/**
+ * One instance as sent on the registry stream. Cancellations carry only the
+ * application and instance id.
+ */
+public record RegistryDelta(String app, String instanceId, String host, int port, boolean secure, String status,
+                            Map<String, String> metadata) {
+
+    static RegistryDelta of(InstanceInfo info) {
+        boolean secure = info.isPortEnabled(InstanceInfo.PortType.SECURE);
+        return new RegistryDelta(info.getAppName(), info.getInstanceId(), info.getHostName(),
+                secure ? info.getSecurePort() : info.getPort(), secure, info.getStatus().name(),
+                info.getMetadata());
+    }
+
+    static RegistryDelta cancelled(String app, String instanceId) {
+        return new RegistryDelta(app, instanceId, null, 0, false, null, Map.of());
+    }
+}
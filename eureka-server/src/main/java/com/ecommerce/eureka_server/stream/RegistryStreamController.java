@@ -0,0 +1,23 @@
+package com.ecommerce.eureka_server.stream;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/registry")
+public class RegistryStreamController {
+
+    private final RegistryStreamPublisher publisher;
+
+    public RegistryStreamController(RegistryStreamPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream() {
+        return publisher.subscribe();
+    }
+}
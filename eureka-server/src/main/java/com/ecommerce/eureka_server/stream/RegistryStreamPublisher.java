@@ -0,0 +1,133 @@
+package com.ecommerce.eureka_server.stream;
+
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.eureka.registry.PeerAwareInstanceRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.netflix.eureka.server.event.EurekaInstanceCanceledEvent;
+import org.springframework.cloud.netflix.eureka.server.event.EurekaInstanceRegisteredEvent;
+import org.springframework.cloud.netflix.eureka.server.event.EurekaInstanceRenewedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streams registry changes to subscribers (the gateways) as server-sent
+ * events: a {@code snapshot} of every instance on subscribe, then
+ * {@code register}, {@code cancel} (evictions included) and {@code status}
+ * as they happen, so subscribers do not wait for their next registry poll.
+ *
+ * Everything is sent from one thread, which keeps each subscriber's events in
+ * order and keeps slow subscribers from holding up registrations. Eureka
+ * announces changes just before applying them, so a snapshot can miss an
+ * instance registering at that moment; renewals therefore re-announce any
+ * instance whose last streamed status differs, which also covers status
+ * overrides made through the REST API.
+ */
+@Component
+public class RegistryStreamPublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(RegistryStreamPublisher.class);
+
+    private final PeerAwareInstanceRegistry registry;
+    private final List<SseEmitter> subscribers = new CopyOnWriteArrayList<>();
+    // Last status streamed per instance id
+    private final Map<String, String> streamed = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService sender = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "registry-stream");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public RegistryStreamPublisher(PeerAwareInstanceRegistry registry,
+                                   @Value("${registry-stream.keep-alive:15s}") Duration keepAlive) {
+        this.registry = registry;
+        sender.scheduleWithFixedDelay(this::keepAlive, keepAlive.toMillis(), keepAlive.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    public SseEmitter subscribe() {
+        // No timeout: subscribers hold the stream open and reconnect on their own
+        SseEmitter emitter = new SseEmitter(0L);
+        emitter.onCompletion(() -> subscribers.remove(emitter));
+        emitter.onError(error -> subscribers.remove(emitter));
+        sender.execute(() -> {
+            List<RegistryDelta> snapshot = registry.getApplications().getRegisteredApplications().stream()
+                    .flatMap(application -> application.getInstances().stream())
+                    .map(RegistryDelta::of)
+                    .toList();
+            if (send(emitter, SseEmitter.event().name("snapshot").data(snapshot))) {
+                subscribers.add(emitter);
+                log.info("Registry stream subscriber added, {} now", subscribers.size());
+            }
+        });
+        return emitter;
+    }
+
+    @EventListener
+    public void onRegistered(EurekaInstanceRegisteredEvent event) {
+        InstanceInfo info = event.getInstanceInfo();
+        streamed.put(info.getInstanceId(), info.getStatus().name());
+        broadcast("register", RegistryDelta.of(info));
+    }
+
+    @EventListener
+    public void onCanceled(EurekaInstanceCanceledEvent event) {
+        streamed.remove(event.getServerId());
+        broadcast("cancel", RegistryDelta.cancelled(event.getAppName(), event.getServerId()));
+    }
+
+    @EventListener
+    public void onRenewed(EurekaInstanceRenewedEvent event) {
+        InstanceInfo info = event.getInstanceInfo();
+        if (info == null) {
+            return;
+        }
+        String status = info.getStatus().name();
+        String previous = streamed.put(info.getInstanceId(), status);
+        if (!Objects.equals(previous, status)) {
+            broadcast(previous == null ? "register" : "status", RegistryDelta.of(info));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+        subscribers.forEach(SseEmitter::complete);
+    }
+
+    private void broadcast(String name, RegistryDelta delta) {
+        sender.execute(() -> subscribers.forEach(emitter ->
+                send(emitter, SseEmitter.event().name(name).data(delta))));
+    }
+
+    // Comments keep idle connections open through proxies and let subscribers detect a dead stream
+    private void keepAlive() {
+        subscribers.forEach(emitter -> send(emitter, SseEmitter.event().comment("keep-alive")));
+    }
+
+    private boolean send(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            subscribers.remove(emitter);
+            emitter.completeWithError(e);
+            log.debug("Dropped registry stream subscriber: {}", e.getMessage());
+            return false;
+        }
+    }
+}
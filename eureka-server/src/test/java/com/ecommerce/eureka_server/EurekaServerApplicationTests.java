@@ -3,7 +3,7 @@ package com.ecommerce.eureka_server;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "registry-snapshot.enabled=false")
 class EurekaServerApplicationTests {
 
 	@Test
@@ -0,0 +1,116 @@
+package com.ecommerce.eureka_server.snapshot;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.eureka.registry.PeerAwareInstanceRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class RegistrySnapshotStoreTest {
+
+    // Left behind by the previous run of the server
+    private static final Path snapshot = writeSnapshot(new RegistrySnapshot(System.currentTimeMillis(), List.of(
+            new RegistrySnapshot.Instance("PRODUCT-SERVICE", "product-1", "localhost", "127.0.0.1", 8081, true,
+                    443, false, "UP", "product-service", "product-service", "http://localhost:8081/",
+                    "http://localhost:8081/actuator/info", "http://localhost:8081/actuator/health", null,
+                    30, 90, 1L, Map.of("zone", "local")))));
+
+    @Value("${local.server.port}")
+    private int port;
+
+    @Autowired
+    private PeerAwareInstanceRegistry registry;
+
+    @Autowired
+    private RegistrySnapshotStore store;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    @DynamicPropertySource
+    static void snapshotPath(DynamicPropertyRegistry registry) {
+        registry.add("registry-snapshot.path", snapshot::toString);
+    }
+
+    @Test
+    void snapshotIsRestoredProvisionallyUntilRenewedAndSavedAgain() throws Exception {
+        InstanceInfo restored = awaitInstance("product-1");
+        assertEquals(8081, restored.getPort());
+        assertEquals("local", restored.getMetadata().get("zone"));
+        assertEquals("true", restored.getMetadata().get(RegistrySnapshotStore.PROVISIONAL));
+        assertTrue(store.isProvisional("PRODUCT-SERVICE", "product-1"));
+
+        // Resolvable before its client has sent a single heartbeat
+        HttpResponse<String> apps = http.send(HttpRequest.newBuilder(eureka("/apps/PRODUCT-SERVICE"))
+                .header("Accept", "application/json").build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, apps.statusCode());
+        assertTrue(apps.body().contains("\"instanceId\":\"product-1\""), apps.body());
+
+        HttpResponse<Void> renewed = http.send(HttpRequest.newBuilder(eureka("/apps/PRODUCT-SERVICE/product-1"))
+                .PUT(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.discarding());
+        assertEquals(200, renewed.statusCode());
+        assertFalse(store.isProvisional("PRODUCT-SERVICE", "product-1"));
+        assertNull(registry.getInstanceByAppAndId("PRODUCT-SERVICE", "product-1", false)
+                .getMetadata().get(RegistrySnapshotStore.PROVISIONAL));
+
+        registry.register(InstanceInfo.Builder.newBuilder()
+                .setAppName("PRODUCT-SERVICE").setInstanceId("product-2").setHostName("localhost")
+                .setPort(8082).build(), false);
+        store.save();
+
+        RegistrySnapshot saved = objectMapper.readValue(snapshot.toFile(), RegistrySnapshot.class);
+        assertTrue(System.currentTimeMillis() - saved.savedAt() < 60_000);
+        assertEquals(List.of("product-1", "product-2"), saved.instances().stream()
+                .map(RegistrySnapshot.Instance::instanceId).sorted().toList());
+    }
+
+    private InstanceInfo awaitInstance(String instanceId) throws InterruptedException {
+        // Restored once the registry opens, which Eureka does off the main thread
+        long deadline = System.currentTimeMillis() + 5_000;
+        InstanceInfo info;
+        while ((info = registry.getInstanceByAppAndId("PRODUCT-SERVICE", instanceId, false)) == null
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertNotNull(info, instanceId + " not restored within 5s");
+        return info;
+    }
+
+    private URI eureka(String path) {
+        return URI.create("http://localhost:" + port + "/eureka" + path);
+    }
+
+    private static Path writeSnapshot(RegistrySnapshot contents) {
+        try {
+            Path file = Files.createTempDirectory("registry-snapshot").resolve("registry-snapshot.json");
+            new ObjectMapper().writeValue(file.toFile(), contents);
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
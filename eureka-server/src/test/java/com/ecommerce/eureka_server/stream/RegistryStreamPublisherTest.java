@@ -0,0 +1,94 @@
+package com.ecommerce.eureka_server.stream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "registry-snapshot.enabled=false")
+class RegistryStreamPublisherTest {
+
+    private static final String INSTANCE = """
+            {"instance": {
+              "instanceId": "product-1", "hostName": "localhost", "app": "PRODUCT-SERVICE",
+              "ipAddr": "127.0.0.1", "status": "UP",
+              "port": {"$": 8081, "@enabled": "true"},
+              "dataCenterInfo": {"@class": "com.netflix.appinfo.InstanceInfo$DefaultDataCenterInfo",
+                                 "name": "MyOwn"}
+            }}""";
+
+    @Value("${local.server.port}")
+    private int port;
+
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    @Test
+    void subscribersSeeRegistrationsAndCancellations() throws Exception {
+        BlockingQueue<String> events = subscribe();
+        assertEquals("snapshot", nextEventName(events));
+
+        HttpResponse<String> registered = http.send(HttpRequest.newBuilder(eureka("/apps/PRODUCT-SERVICE"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(INSTANCE))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(204, registered.statusCode());
+        assertEquals("register", nextEventName(events));
+        String data = events.poll(5, TimeUnit.SECONDS);
+        assertTrue(data.contains("\"instanceId\":\"product-1\"") && data.contains("\"port\":8081"), data);
+
+        http.send(HttpRequest.newBuilder(eureka("/apps/PRODUCT-SERVICE/product-1")).DELETE().build(),
+                HttpResponse.BodyHandlers.discarding());
+        assertEquals("cancel", nextEventName(events));
+    }
+
+    private BlockingQueue<String> subscribe() throws Exception {
+        HttpResponse<InputStream> response = http.send(HttpRequest.newBuilder(
+                        URI.create("http://localhost:" + port + "/registry/stream"))
+                .timeout(Duration.ofSeconds(30))
+                .build(), HttpResponse.BodyHandlers.ofInputStream());
+        assertEquals(200, response.statusCode());
+
+        BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+        Thread reader = new Thread(() -> {
+            try (BufferedReader body = new BufferedReader(
+                    new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+                body.lines().filter(line -> !line.isBlank()).forEach(lines::add);
+            } catch (Exception ignored) {
+                // Stream closed with the context
+            }
+        });
+        reader.setDaemon(true);
+        reader.start();
+        return lines;
+    }
+
+    private static String nextEventName(BlockingQueue<String> lines) throws InterruptedException {
+        String line;
+        do {
+            line = lines.poll(5, TimeUnit.SECONDS);
+            assertNotNull(line, "no event within 5s");
+        } while (!line.startsWith("event:"));
+        return line.substring("event:".length());
+    }
+
+    private URI eureka(String path) {
+        return URI.create("http://localhost:" + port + "/eureka" + path);
+    }
+}
@@ -0,0 +1,170 @@
+package com.ecommerce.product.benchmark;
+
+import com.ecommerce.product.dto.ImportResultDTO;
+import com.ecommerce.product.dto.ProductDTO;
+import com.ecommerce.product.service.ProductImporter;
+import com.ecommerce.product.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One bulk import of a whole catalog file, CSV or NDJSON, into an empty table
+ * or as an upsert over the same catalog, next to creating
+ * {@value #CREATE_PRODUCT_ROWS} products one createProduct call at a time.
+ * Divide rows by the reported time for rows/sec.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class ImportBenchmark {
+
+    static final int CREATE_PRODUCT_ROWS = 5_000;
+
+    @State(Scope.Benchmark)
+    public static class Catalog {
+
+        @Param({"100000", "500000"})
+        public int rows;
+
+        @Param({"CSV", "NDJSON"})
+        public ProductImporter.Format format;
+
+        @Param({"false", "true"})
+        public boolean upsert;
+
+        ConfigurableApplicationContext context;
+        ProductService productService;
+        JdbcTemplate jdbcTemplate;
+        byte[] file;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            context = ProductServiceContext.start("import_benchmark_" + rows + "_" + format + "_" + upsert);
+            productService = context.getBean(ProductService.class);
+            jdbcTemplate = context.getBean(JdbcTemplate.class);
+            file = format == ProductImporter.Format.CSV ? csv(rows) : ndjson(rows);
+        }
+
+        // An upsert run finds every SKU already there, so each row becomes an update
+        @Setup(Level.Invocation)
+        public void prepareTable() {
+            ProductServiceContext.truncate(jdbcTemplate);
+            if (upsert) {
+                importFile(false);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+
+        ImportResultDTO importFile(boolean upsert) {
+            return productService.importProducts(new ByteArrayInputStream(file), format, upsert);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class EmptyCatalog {
+
+        ConfigurableApplicationContext context;
+        ProductService productService;
+        JdbcTemplate jdbcTemplate;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            context = ProductServiceContext.start("create_benchmark");
+            productService = context.getBean(ProductService.class);
+            jdbcTemplate = context.getBean(JdbcTemplate.class);
+        }
+
+        @Setup(Level.Invocation)
+        public void prepareTable() {
+            ProductServiceContext.truncate(jdbcTemplate);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    public ImportResultDTO bulkImport(Catalog catalog) {
+        ImportResultDTO result = catalog.importFile(catalog.upsert);
+        if (result.getFailed() > 0) {
+            throw new IllegalStateException(result.getFailed() + " rows failed to import");
+        }
+        return result;
+    }
+
+    @Benchmark
+    public ProductDTO createProductOneByOne(EmptyCatalog catalog) {
+        ProductDTO last = null;
+        for (int i = 0; i < CREATE_PRODUCT_ROWS; i++) {
+            last = catalog.productService.createProduct(ProductDTO.builder()
+                    .sku("CREATE-" + i)
+                    .name("Created product " + i)
+                    .price(BigDecimal.valueOf(1999, 2))
+                    .quantity(10)
+                    .category(ProductServiceContext.CATEGORIES[i % ProductServiceContext.CATEGORIES.length])
+                    .isActive(true)
+                    .build());
+        }
+        return last;
+    }
+
+    private static byte[] csv(int rows) {
+        Random random = new Random(42);
+        StringBuilder out = new StringBuilder("sku,name,description,price,quantity,category,brand,isActive\n");
+        for (int i = 0; i < rows; i++) {
+            out.append("SKU-").append(i).append(",Imported product ").append(i)
+                    .append(",\"Sturdy, reliable item \"\"").append(i).append("\"\"\",")
+                    .append(BigDecimal.valueOf(1 + random.nextInt(99_999), 2)).append(',')
+                    .append(random.nextInt(500)).append(',')
+                    .append(ProductServiceContext.CATEGORIES[random.nextInt(ProductServiceContext.CATEGORIES.length)])
+                    .append(',')
+                    .append(ProductServiceContext.BRANDS[random.nextInt(ProductServiceContext.BRANDS.length)])
+                    .append(",true\n");
+        }
+        return out.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] ndjson(int rows) {
+        Random random = new Random(42);
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < rows; i++) {
+            out.append("{\"sku\":\"SKU-").append(i)
+                    .append("\",\"name\":\"Imported product ").append(i)
+                    .append("\",\"price\":").append(BigDecimal.valueOf(1 + random.nextInt(99_999), 2))
+                    .append(",\"quantity\":").append(random.nextInt(500))
+                    .append(",\"category\":\"")
+                    .append(ProductServiceContext.CATEGORIES[random.nextInt(ProductServiceContext.CATEGORIES.length)])
+                    .append("\",\"brand\":\"")
+                    .append(ProductServiceContext.BRANDS[random.nextInt(ProductServiceContext.BRANDS.length)])
+                    .append("\"}\n");
+        }
+        return out.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
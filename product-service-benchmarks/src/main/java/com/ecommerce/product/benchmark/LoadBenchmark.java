@@ -0,0 +1,124 @@
+package com.ecommerce.product.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Closed-loop HTTP load, one JMH thread per client, against product lookups
+ * and category pages with the product cache off and the production pool size
+ * of 5. Compares platform threads without admission control, platform threads
+ * with it, and virtual threads with it (Java 21+). Latency percentiles come
+ * from the sampled times; 503s and other failures are counted per iteration.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@Threads(400)
+public class LoadBenchmark {
+
+    private static final int ROWS = 10_000;
+
+    @State(Scope.Benchmark)
+    public static class Server {
+
+        @Param({"platform", "platform+admission", "virtual+admission"})
+        public String mode;
+
+        ConfigurableApplicationContext context;
+        HttpClient httpClient;
+        String baseUrl;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            boolean virtualThreads = mode.startsWith("virtual");
+            if (virtualThreads && Runtime.version().feature() < 21) {
+                throw new IllegalStateException("Virtual threads need Java 21+, running on "
+                        + Runtime.version().feature());
+            }
+            context = ProductServiceContext.startServer("load_benchmark_" + mode.replace('+', '_'),
+                    "--spring.datasource.hikari.maximum-pool-size=5",
+                    "--spring.threads.virtual.enabled=" + virtualThreads,
+                    "--product.admission.enabled=" + mode.endsWith("+admission"),
+                    "--product.cache.enabled=false");
+            ProductServiceContext.seed(context.getBean(JdbcTemplate.class), ROWS, 100);
+            baseUrl = ProductServiceContext.baseUrl(context);
+            httpClient = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Outcomes {
+
+        public long unavailable;
+        public long errors;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            unavailable = 0;
+            errors = 0;
+        }
+    }
+
+    @Benchmark
+    public int request(Server server, Outcomes outcomes) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(server.baseUrl + randomPath()))
+                .timeout(Duration.ofSeconds(30))
+                .build();
+        try {
+            int status = server.httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            if (status == 503) {
+                outcomes.unavailable++;
+            } else if (status != 200) {
+                outcomes.errors++;
+            }
+            return status;
+        } catch (Exception ex) {
+            outcomes.errors++;
+            return -1;
+        }
+    }
+
+    // Seeded ids run from 1 to ROWS
+    private static String randomPath() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return random.nextBoolean()
+                ? "/api/products/" + (1 + random.nextInt(ROWS))
+                : "/api/products/category/"
+                        + ProductServiceContext.CATEGORIES[random.nextInt(ProductServiceContext.CATEGORIES.length)]
+                        + "?size=20";
+    }
+}
@@ -0,0 +1,82 @@
+package com.ecommerce.product.benchmark;
+
+import com.ecommerce.product.dto.ProductDTO;
+import com.ecommerce.product.entity.Product;
+import com.ecommerce.product.service.impl.ProductServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.objenesis.ObjenesisStd;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity/DTO mapping in ProductServiceImpl, run on every read and write. The
+ * converters are private, so they are called through method handles on an
+ * instance created without its (dependency-heavy) constructor; neither touches
+ * instance state.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingBenchmark {
+
+    private ProductServiceImpl service;
+    private MethodHandle convertToDTO;
+    private MethodHandle convertToEntity;
+    private Product product;
+    private ProductDTO productDTO;
+
+    @Setup
+    public void setUp() throws Throwable {
+        service = new ObjenesisStd().newInstance(ProductServiceImpl.class);
+        MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(ProductServiceImpl.class, MethodHandles.lookup());
+        convertToDTO = lookup.findVirtual(ProductServiceImpl.class, "convertToDTO",
+                MethodType.methodType(ProductDTO.class, Product.class));
+        convertToEntity = lookup.findVirtual(ProductServiceImpl.class, "convertToEntity",
+                MethodType.methodType(Product.class, ProductDTO.class));
+
+        LocalDateTime now = LocalDateTime.now();
+        product = Product.builder()
+                .id(42L)
+                .sku("SKU-42")
+                .name("wireless headphones 42")
+                .description("A premium headphones for everyday use")
+                .price(new BigDecimal("129.99"))
+                .quantity(250)
+                .category("Electronics")
+                .brand("Acme")
+                .imageUrl("https://cdn.example.com/products/42.jpg")
+                .isActive(true)
+                .createdAt(now)
+                .updatedAt(now)
+                .version(3L)
+                .build();
+        productDTO = (ProductDTO) convertToDTO.invoke(service, product);
+    }
+
+    @Benchmark
+    public ProductDTO convertToDTO() throws Throwable {
+        return (ProductDTO) convertToDTO.invoke(service, product);
+    }
+
+    @Benchmark
+    public Product convertToEntity() throws Throwable {
+        return (Product) convertToEntity.invoke(service, productDTO);
+    }
+}
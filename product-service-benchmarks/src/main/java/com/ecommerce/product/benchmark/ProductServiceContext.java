@@ -0,0 +1,115 @@
+package com.ecommerce.product.benchmark;
+
+import com.ecommerce.product_service.ProductServiceApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Boots product-service without a web server against a private in-memory H2
+ * database, and seeds it with a deterministic catalog.
+ */
+final class ProductServiceContext {
+
+    static final String[] CATEGORIES = {"Electronics", "Home", "Outdoor", "Kitchen", "Fashion", "Office"};
+    static final String[] BRANDS = {"Acme", "Globex", "Initech", "Umbrella", "Soylent", "Hooli"};
+    static final String[] ADJECTIVES = {"wireless", "portable", "stainless", "organic", "compact",
+            "premium", "ergonomic", "vintage", "smart", "waterproof", "foldable", "ceramic"};
+    static final String[] NOUNS = {"headphones", "speaker", "bottle", "keyboard", "backpack",
+            "lamp", "blender", "jacket", "watch", "camera", "kettle", "charger", "monitor", "chair"};
+
+    private static final int SEED_BATCH_SIZE = 5_000;
+
+    private ProductServiceContext() {
+    }
+
+    /**
+     * Passed as command line arguments so they outrank the packaged application.yml.
+     * An override replaces the default for the same property.
+     */
+    static ConfigurableApplicationContext start(String database, String... overrides) {
+        return start(WebApplicationType.NONE, database, overrides);
+    }
+
+    /**
+     * As {@link #start}, but with the servlet container listening on a random port.
+     */
+    static ConfigurableApplicationContext startServer(String database, String... overrides) {
+        List<String> args = new ArrayList<>(List.of("--server.port=0"));
+        args.addAll(Arrays.asList(overrides));
+        return start(WebApplicationType.SERVLET, database, args.toArray(String[]::new));
+    }
+
+    static String baseUrl(ConfigurableApplicationContext context) {
+        return "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+    }
+
+    private static ConfigurableApplicationContext start(WebApplicationType webApplicationType, String database,
+                                                        String... overrides) {
+        Map<String, String> args = new LinkedHashMap<>();
+        Stream.concat(Stream.of(
+                        "--spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.datasource.hikari.maximum-pool-size=16",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--spring.main.banner-mode=off",
+                        "--eureka.client.enabled=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.ecommerce.product=WARN",
+                        "--product.search.index-enabled=false"),
+                Arrays.stream(overrides))
+                .forEach(arg -> args.put(arg.substring(0, arg.indexOf('=')), arg));
+        return new SpringApplicationBuilder(ProductServiceApplication.class)
+                .web(webApplicationType)
+                .run(args.values().toArray(String[]::new));
+    }
+
+    /**
+     * Empties the catalog and restarts ids at 1.
+     */
+    static void truncate(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.execute("TRUNCATE TABLE products RESTART IDENTITY");
+    }
+
+    /**
+     * Inserts {@code rows} products with SKUs {@code SKU-0..rows-1} and ids 1..rows.
+     */
+    static void seed(JdbcTemplate jdbcTemplate, int rows, int quantity) {
+        Random random = new Random(42);
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<Object[]> batch = new ArrayList<>(SEED_BATCH_SIZE);
+        for (int i = 0; i < rows; i++) {
+            String noun = NOUNS[random.nextInt(NOUNS.length)];
+            batch.add(new Object[]{
+                    "SKU-" + i,
+                    ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " " + noun + " " + i,
+                    "A " + ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " " + noun + " for everyday use",
+                    BigDecimal.valueOf(1 + random.nextInt(99_999), 2),
+                    quantity >= 0 ? quantity : random.nextInt(500),
+                    CATEGORIES[random.nextInt(CATEGORIES.length)],
+                    BRANDS[random.nextInt(BRANDS.length)],
+                    true, now, now, 0L});
+            if (batch.size() == SEED_BATCH_SIZE || i == rows - 1) {
+                jdbcTemplate.batchUpdate("INSERT INTO products (sku, name, description, price, quantity, " +
+                        "category, brand, is_active, created_at, updated_at, version) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+    }
+}
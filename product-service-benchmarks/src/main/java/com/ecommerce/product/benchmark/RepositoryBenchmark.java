@@ -0,0 +1,114 @@
+package com.ecommerce.product.benchmark;
+
+import com.ecommerce.product.entity.Product;
+import com.ecommerce.product.repository.ProductRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ProductRepository queries behind the read endpoints, against H2 seeded with
+ * the catalog sizes we plan for. Offset paging is measured deep into the table
+ * next to the keyset scroll that replaces it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class RepositoryBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private ProductRepository productRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = ProductServiceContext.start("repository_benchmark_" + rows);
+        productRepository = context.getBean(ProductRepository.class);
+        ProductServiceContext.seed(context.getBean(JdbcTemplate.class), rows, -1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<Product> findById() {
+        return productRepository.findById(randomId());
+    }
+
+    @Benchmark
+    public Optional<Product> findBySku() {
+        return productRepository.findBySku("SKU-" + (randomId() - 1));
+    }
+
+    @Benchmark
+    public Page<Product> activeProductsFirstPage() {
+        return productRepository.findByIsActiveTrue(PageRequest.of(0, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public Page<Product> activeProductsDeepOffsetPage() {
+        return productRepository.findByIsActiveTrue(PageRequest.of(rows / PAGE_SIZE / 2, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public Window<Product> activeProductsDeepKeysetPage() {
+        return productRepository.findByIsActiveTrue(
+                ScrollPosition.forward(Map.of("id", (long) rows / 2)),
+                Sort.by("id"),
+                Limit.of(PAGE_SIZE));
+    }
+
+    @Benchmark
+    public Page<Product> categoryPage() {
+        return productRepository.findByCategoryAndIsActiveTrue("Kitchen", PageRequest.of(0, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public Page<Product> searchProducts() {
+        return productRepository.searchProducts("headphones", PageRequest.of(0, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public Page<Product> narrowPriceRange() {
+        return productRepository.findByPriceRange(new BigDecimal("500.00"), new BigDecimal("500.50"), false, null,
+                PageRequest.of(0, PAGE_SIZE));
+    }
+
+    // Seeded ids run from 1 to rows
+    private long randomId() {
+        return 1 + ThreadLocalRandom.current().nextLong(rows);
+    }
+}
@@ -0,0 +1,77 @@
+package com.ecommerce.product.benchmark;
+
+import com.ecommerce.product.dto.ProductDTO;
+import com.ecommerce.product.entity.Product;
+import com.ecommerce.product.repository.ProductRepository;
+import com.ecommerce.product.service.ProductSearchIndex;
+import com.ecommerce.product.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The first page of a search through the JPQL LIKE query next to the same
+ * search served by the in-memory inverted index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class SearchBenchmark {
+
+    private static final PageRequest FIRST_PAGE = PageRequest.of(0, 20);
+
+    @Param({"100000", "1000000"})
+    public int rows;
+
+    @Param({"headphones", "wireless speaker", "stain", "kitchen kettle", "hooli cam"})
+    public String query;
+
+    private ConfigurableApplicationContext context;
+    private ProductRepository productRepository;
+    private ProductService productService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = ProductServiceContext.start("search_benchmark_" + rows,
+                "--product.search.index-enabled=true");
+        productRepository = context.getBean(ProductRepository.class);
+        productService = context.getBean(ProductService.class);
+        ProductServiceContext.seed(context.getBean(JdbcTemplate.class), rows, -1);
+        // Seeded behind the index's back, so build it over the full catalog before measuring
+        context.getBean(ProductSearchIndex.class).rebuild();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<Product> jpqlSearch() {
+        return productRepository.searchProducts(query, FIRST_PAGE);
+    }
+
+    @Benchmark
+    public Page<ProductDTO> indexSearch() {
+        return productService.searchProducts(query, FIRST_PAGE);
+    }
+}
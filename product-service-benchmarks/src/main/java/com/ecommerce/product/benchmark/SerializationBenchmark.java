@@ -0,0 +1,85 @@
+package com.ecommerce.product.benchmark;
+
+import com.ecommerce.product.dto.ProductDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON encoding of the response bodies the product endpoints return, with an
+ * ObjectMapper configured the way Spring Boot configures the web layer's.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"20", "100"})
+    public int pageSize;
+
+    private ObjectMapper objectMapper;
+    private ProductDTO product;
+    private Page<ProductDTO> page;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        List<ProductDTO> content = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            content.add(product(i));
+        }
+        product = content.get(0);
+        page = new PageImpl<>(content, PageRequest.of(3, pageSize), 100_000);
+    }
+
+    @Benchmark
+    public byte[] serializeProduct() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(product);
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    private static ProductDTO product(int i) {
+        LocalDateTime now = LocalDateTime.now();
+        return ProductDTO.builder()
+                .id((long) i)
+                .sku("SKU-" + i)
+                .name("wireless headphones " + i)
+                .description("A premium headphones for everyday use")
+                .price(BigDecimal.valueOf(12_999 + i, 2))
+                .quantity(250)
+                .category(ProductServiceContext.CATEGORIES[i % ProductServiceContext.CATEGORIES.length])
+                .brand(ProductServiceContext.BRANDS[i % ProductServiceContext.BRANDS.length])
+                .imageUrl("https://cdn.example.com/products/" + i + ".jpg")
+                .isActive(true)
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+    }
+}
@@ -0,0 +1,91 @@
+package com.ecommerce.product.benchmark;
+
+import com.ecommerce.product.dto.StockUpdateDTO;
+import com.ecommerce.product.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Concurrent ProductService.updateStock calls, all on one hot product or
+ * spread over many, through the conditional-UPDATE engine or the striped
+ * reservation ledger. Each thread alternates ADD and REDUCE so stock never
+ * runs out mid-run.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class StockContentionBenchmark {
+
+    private static final int INITIAL_STOCK = 1_000_000_000;
+
+    @State(Scope.Benchmark)
+    public static class Catalog {
+
+        @Param({"1", "1000"})
+        public int products;
+
+        @Param({"false", "true"})
+        public boolean ledger;
+
+        ConfigurableApplicationContext context;
+        ProductService productService;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            context = ProductServiceContext.start("stock_benchmark_" + products + "_" + ledger,
+                    "--product.stock.reservation.enabled=" + ledger,
+                    "--product.stock.reservation.journal-dir=" + Files.createTempDirectory("stock-journal"));
+            productService = context.getBean(ProductService.class);
+            ProductServiceContext.seed(context.getBean(JdbcTemplate.class), products, INITIAL_STOCK);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Caller {
+
+        final StockUpdateDTO add = update(StockUpdateDTO.OperationType.ADD);
+        final StockUpdateDTO reduce = update(StockUpdateDTO.OperationType.REDUCE);
+        boolean adding;
+
+        private static StockUpdateDTO update(StockUpdateDTO.OperationType operationType) {
+            StockUpdateDTO update = new StockUpdateDTO();
+            update.setQuantity(1);
+            update.setOperationType(operationType);
+            return update;
+        }
+    }
+
+    @Benchmark
+    public Integer updateStock(Catalog catalog, Caller caller) {
+        long productId = 1 + ThreadLocalRandom.current().nextInt(catalog.products);
+        caller.adding = !caller.adding;
+        return catalog.productService.updateStock(productId, caller.adding ? caller.add : caller.reduce);
+    }
+}
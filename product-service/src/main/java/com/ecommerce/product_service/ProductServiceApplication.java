@@ -2,10 +2,16 @@ package com.ecommerce.product_service;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 
-@SpringBootApplication
+// R2DBC is wired by ReactiveDataAccessConfig so that it does not displace the JDBC DataSource
+@SpringBootApplication(scanBasePackages = "com.ecommerce.product", exclude = R2dbcAutoConfiguration.class)
 @EnableDiscoveryClient  
+@EnableJpaRepositories(basePackages = "com.ecommerce.product.repository")
+@EntityScan(basePackages = "com.ecommerce.product.entity")
 public class ProductServiceApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,47 @@
+package com.ecommerce.product.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Puts the connection pool behind an {@link AdmissionLimiter} when
+ * {@code product.admission.enabled} is set. The limit follows the Hikari
+ * pool size unless configured explicitly.
+ */
+@Configuration
+@Slf4j
+public class AdmissionControlConfig {
+    
+    @Bean
+    static BeanPostProcessor admissionControlledDataSourcePostProcessor(
+            ObjectProvider<ProductAdmissionProperties> properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof AdmissionControlledDataSource) {
+                    return bean;
+                }
+                ProductAdmissionProperties admission = properties.getObject();
+                if (!admission.isEnabled()) {
+                    return bean;
+                }
+                
+                int maxConcurrency = admission.getMaxConcurrency() > 0 ? admission.getMaxConcurrency()
+                        : bean instanceof HikariDataSource hikari ? hikari.getMaximumPoolSize()
+                        : 10;
+                AdmissionLimiter limiter = new AdmissionLimiter(maxConcurrency, admission.getMaxQueue(),
+                        admission.getQueueTimeout(), meterRegistry.getObject());
+                log.info("Admission control on data source '{}': {} concurrent, {} queued, {} ms queue timeout",
+                         beanName, maxConcurrency, admission.getMaxQueue(), admission.getQueueTimeout().toMillis());
+                return new AdmissionControlledDataSource(dataSource, limiter);
+            }
+        };
+    }
+}
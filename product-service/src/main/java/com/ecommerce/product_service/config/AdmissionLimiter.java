@@ -0,0 +1,89 @@
+package com.ecommerce.product.config;
+
+import com.ecommerce.product.exception.AdmissionRejectedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fair counting gate sized to the connection pool. Callers beyond the limit
+ * wait in FIFO order for at most the queue timeout, and once the queue is full
+ * new callers are rejected at once instead of piling up on the pool.
+ *
+ * Waiting is a plain park, so on virtual threads thousands of queued requests
+ * cost little more than their stacks.
+ */
+public class AdmissionLimiter {
+
+    private final int maxConcurrency;
+    private final int maxQueue;
+    private final long queueTimeoutNanos;
+    private final Semaphore permits;
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    private final Timer waitTimer;
+    private final Counter rejectedQueueFull;
+    private final Counter rejectedTimeout;
+
+    public AdmissionLimiter(int maxConcurrency, int maxQueue, Duration queueTimeout, MeterRegistry meterRegistry) {
+        this.maxConcurrency = maxConcurrency;
+        this.maxQueue = maxQueue;
+        this.queueTimeoutNanos = queueTimeout.toNanos();
+        this.permits = new Semaphore(maxConcurrency, true);
+
+        Gauge.builder("product.admission.active", this, limiter -> limiter.maxConcurrency - limiter.permits.availablePermits())
+                .description("Callers holding a database connection")
+                .register(meterRegistry);
+        Gauge.builder("product.admission.waiting", waiting, AtomicInteger::get)
+                .description("Callers queued for a database connection")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("product.admission.wait")
+                .description("Time spent queued for a database connection")
+                .register(meterRegistry);
+        this.rejectedQueueFull = Counter.builder("product.admission.rejected")
+                .tag("reason", "queue-full")
+                .register(meterRegistry);
+        this.rejectedTimeout = Counter.builder("product.admission.rejected")
+                .tag("reason", "timeout")
+                .register(meterRegistry);
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public void acquire() {
+        if (permits.tryAcquire()) {
+            return;
+        }
+        if (waiting.incrementAndGet() > maxQueue) {
+            waiting.decrementAndGet();
+            rejectedQueueFull.increment();
+            throw new AdmissionRejectedException("Too many requests waiting for a database connection");
+        }
+
+        long started = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(queueTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                rejectedTimeout.increment();
+                throw new AdmissionRejectedException("Timed out waiting for a database connection");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new AdmissionRejectedException("Interrupted while waiting for a database connection");
+        } finally {
+            waiting.decrementAndGet();
+            waitTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void release() {
+        permits.release();
+    }
+}
@@ -0,0 +1,31 @@
+package com.ecommerce.product.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "product.low-stock")
+@Data
+public class LowStockProperties {
+    
+    // Serve /low-stock from the in-memory tracker once it is built
+    private boolean enabled = true;
+    
+    // Products with fewer units than this are tracked in memory; higher thresholds go to the database
+    private int maxTrackedQuantity = 1000;
+    
+    // Threshold for alert stream subscribers that do not pass one
+    private int alertThreshold = 10;
+    
+    // Upper bound for the limit a client may ask for per query
+    private int maxLimit = 1000;
+    
+    // Idle server-sent-events connections are closed after this long
+    private Duration streamTimeout = Duration.ofMinutes(30);
+    
+    // Alerts waiting to be pushed to subscribers
+    private int streamQueueCapacity = 10000;
+}
@@ -0,0 +1,25 @@
+package com.ecommerce.product.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "product.admission")
+@Data
+public class ProductAdmissionProperties {
+    
+    // Gate JDBC connection checkout behind a fair queue with bounded length and wait
+    private boolean enabled = true;
+    
+    // Concurrent connection holders; 0 follows the Hikari maximum-pool-size
+    private int maxConcurrency = 0;
+    
+    // Callers allowed to wait for a connection before new ones are turned away
+    private int maxQueue = 2000;
+    
+    // Longest a caller waits in the queue before it is turned away
+    private Duration queueTimeout = Duration.ofSeconds(5);
+}
@@ -0,0 +1,24 @@
+package com.ecommerce.product.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "product.cache")
+@Data
+public class ProductCacheProperties {
+    
+    private boolean enabled = true;
+    
+    // Upper bound on cached products; least recently used entries go first
+    private long maximumSize = 10_000;
+    
+    // Entries older than this are reloaded even without a write
+    private Duration timeToLive = Duration.ofMinutes(5);
+    
+    // Cache-Control max-age on list and category pages, letting the gateway share them briefly; 0 sends none
+    private Duration pageMaxAge = Duration.ofSeconds(1);
+}
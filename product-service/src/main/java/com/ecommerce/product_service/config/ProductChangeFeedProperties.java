@@ -0,0 +1,26 @@
+package com.ecommerce.product.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "product.changes")
+@Data
+public class ProductChangeFeedProperties {
+    
+    // Rows younger than this are held back, so a transaction that stamped
+    // updatedAt earlier but commits later cannot land behind a watermark
+    private Duration settleLag = Duration.ofSeconds(2);
+    
+    // Upper bound for the limit a client may ask for per poll
+    private int maxLimit = 1000;
+    
+    // Idle server-sent-events connections are closed after this long
+    private Duration streamTimeout = Duration.ofMinutes(30);
+    
+    // Committed changes waiting to be pushed to subscribers
+    private int streamQueueCapacity = 10000;
+}
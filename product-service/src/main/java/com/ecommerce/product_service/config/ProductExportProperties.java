@@ -0,0 +1,14 @@
+package com.ecommerce.product.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "product.export")
+@Data
+public class ProductExportProperties {
+    
+    // Rows the driver fetches per round trip while streaming an export
+    private int fetchSize = 1000;
+}
@@ -0,0 +1,22 @@
+package com.ecommerce.product.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "product.facets")
+@Data
+public class ProductFacetProperties {
+    
+    // Keep active-product counts per category, brand and category x brand in memory for /facets
+    private boolean enabled = true;
+    
+    // Rows loaded per query while building the counts
+    private int buildBatchSize = 1000;
+    
+    // How often the counts are checked against a GROUP BY over the products table
+    private Duration reconcileInterval = Duration.ofMinutes(5);
+}
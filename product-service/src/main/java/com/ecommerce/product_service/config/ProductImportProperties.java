@@ -0,0 +1,17 @@
+package com.ecommerce.product.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "product.import")
+@Data
+public class ProductImportProperties {
+    
+    // Rows written per JDBC batch and committed per transaction
+    private int chunkSize = 5000;
+    
+    // Row errors listed in the response; later ones are only counted
+    private int maxReportedErrors = 1000;
+}
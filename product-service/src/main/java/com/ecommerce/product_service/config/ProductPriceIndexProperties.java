@@ -0,0 +1,17 @@
+package com.ecommerce.product.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "product.price-index")
+@Data
+public class ProductPriceIndexProperties {
+    
+    // Serve /price-range from the in-memory price index once it is built
+    private boolean enabled = true;
+    
+    // Rows loaded per query while building the index at startup
+    private int buildBatchSize = 1000;
+}
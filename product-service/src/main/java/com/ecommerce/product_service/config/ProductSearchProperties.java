@@ -0,0 +1,17 @@
+package com.ecommerce.product.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "product.search")
+@Data
+public class ProductSearchProperties {
+    
+    // Serve /search from the in-memory inverted index once it is built
+    private boolean indexEnabled = true;
+    
+    // Rows loaded per query while building the index at startup
+    private int buildBatchSize = 1000;
+}
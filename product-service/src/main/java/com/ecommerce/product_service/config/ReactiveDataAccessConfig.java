@@ -0,0 +1,61 @@
+package com.ecommerce.product.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.r2dbc.ConnectionFactoryBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/**
+ * Builds the R2DBC pool behind the reactive read path from {@code spring.r2dbc.*}.
+ * The pool is deliberately not registered as a {@link ConnectionFactory} bean:
+ * Boot backs off its JDBC {@code DataSource} as soon as one exists, and JPA,
+ * the exporter and the importer all still run on JDBC. Only the
+ * {@link DatabaseClient} is exposed, so no reactive transaction manager or
+ * R2DBC repositories come into play either.
+ */
+@Configuration
+@EnableConfigurationProperties(R2dbcProperties.class)
+@Slf4j
+public class ReactiveDataAccessConfig implements DisposableBean {
+    
+    private final ConnectionPool connectionPool;
+    
+    public ReactiveDataAccessConfig(R2dbcProperties properties) {
+        ConnectionFactory connectionFactory = ConnectionFactoryBuilder.withUrl(properties.getUrl())
+                .username(properties.getUsername())
+                .password(properties.getPassword())
+                .build();
+        
+        R2dbcProperties.Pool pool = properties.getPool();
+        ConnectionPoolConfiguration.Builder configuration = ConnectionPoolConfiguration.builder(connectionFactory)
+                .name("product-r2dbc")
+                .initialSize(pool.getInitialSize())
+                .maxSize(pool.getMaxSize())
+                .maxIdleTime(pool.getMaxIdleTime())
+                .maxAcquireTime(pool.getMaxAcquireTime())
+                .maxCreateConnectionTime(pool.getMaxCreateConnectionTime());
+        if (pool.getValidationQuery() != null) {
+            configuration.validationQuery(pool.getValidationQuery());
+        }
+        this.connectionPool = new ConnectionPool(configuration.build());
+        log.info("R2DBC read pool on {}: {} initial, {} max connections",
+                 properties.getUrl(), pool.getInitialSize(), pool.getMaxSize());
+    }
+    
+    @Bean
+    public DatabaseClient reactiveDatabaseClient() {
+        return DatabaseClient.create(connectionPool);
+    }
+    
+    @Override
+    public void destroy() {
+        connectionPool.dispose();
+    }
+}
@@ -0,0 +1,27 @@
+package com.ecommerce.product.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "product.stock.reservation")
+@Data
+public class StockReservationProperties {
+    
+    // Serve stock updates from the in-memory ledger instead of one UPDATE per call
+    private boolean enabled = false;
+    
+    // Number of lock stripes, rounded up to a power of two
+    private int stripes = 64;
+    
+    // Write-behind interval and the number of unflushed reservations that forces an early flush
+    private long flushIntervalMs = 200;
+    private int flushThreshold = 1000;
+    
+    // Directory holding the append-only reservation journal segments
+    private String journalDir = "./data/stock-journal";
+    
+    // Identifies this node's checkpoint row; must be unique per node running the ledger
+    private String nodeId = "product-service";
+}
@@ -1,8 +1,17 @@
 package com.ecommerce.product.controller;
 
+import com.ecommerce.product.config.ProductCacheProperties;
+import com.ecommerce.product.dto.BatchStockDTO;
+import com.ecommerce.product.dto.ChangeFeedDTO;
+import com.ecommerce.product.dto.ImportResultDTO;
+import com.ecommerce.product.dto.CursorPageDTO;
 import com.ecommerce.product.dto.ProductDTO;
+import com.ecommerce.product.dto.ProductFacetsDTO;
 import com.ecommerce.product.dto.ProductUpdateDTO;
+import com.ecommerce.product.dto.StockAvailabilityDTO;
 import com.ecommerce.product.dto.StockUpdateDTO;
+import com.ecommerce.product.service.EncodedProduct;
+import com.ecommerce.product.service.ProductImporter;
 import com.ecommerce.product.service.ProductService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -11,13 +20,22 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/products")
@@ -26,7 +44,10 @@ import java.util.Map;
 @CrossOrigin(origins = "*") // Configure appropriately for production
 public class ProductController {
     
+    private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+    
     private final ProductService productService;
+    private final ProductCacheProperties cacheProperties;
     
     // Create a new product
     @PostMapping
@@ -36,12 +57,15 @@ public class ProductController {
         return new ResponseEntity<>(createdProduct, HttpStatus.CREATED);
     }
     
-    // Get product by ID
-    @GetMapping("/{id}")
-    public ResponseEntity<ProductDTO> getProductById(@PathVariable Long id) {
+    // Get product by ID, written from the cached JSON bytes; a matching If-None-Match gets a bodiless 304
+    @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getProductById(@PathVariable Long id) {
         log.info("REST request to get Product by ID: {}", id);
-        ProductDTO product = productService.getProductById(id);
-        return ResponseEntity.ok(product);
+        EncodedProduct product = productService.getEncodedProductById(id);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(product.etag())
+                .body(product.json());
     }
     
     // Get product by SKU
@@ -67,7 +91,26 @@ public class ProductController {
         Pageable pageable = PageRequest.of(page, size, Sort.by(direction, sortBy));
         
         Page<ProductDTO> products = productService.getAllProducts(pageable);
-        return ResponseEntity.ok(products);
+        return page().body(products);
+    }
+    
+    // Get all products with keyset pagination (selected when a cursor parameter is present)
+    @GetMapping(params = "cursor")
+    public ResponseEntity<CursorPageDTO<ProductDTO>> getAllProductsByCursor(
+            @RequestParam(defaultValue = "") String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(defaultValue = "ASC") String sortDirection,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        
+        log.info("REST request to get all Products by cursor - size: {}", size);
+        
+        Sort.Direction direction = sortDirection.equalsIgnoreCase("DESC") 
+            ? Sort.Direction.DESC : Sort.Direction.ASC;
+        
+        CursorPageDTO<ProductDTO> products = 
+            productService.getAllProducts(cursor, size, sortBy, direction, includeTotal);
+        return page().body(products);
     }
     
     // Get active products
@@ -79,7 +122,19 @@ public class ProductController {
         log.info("REST request to get active Products");
         Pageable pageable = PageRequest.of(page, size);
         Page<ProductDTO> products = productService.getActiveProducts(pageable);
-        return ResponseEntity.ok(products);
+        return page().body(products);
+    }
+    
+    // Get active products with keyset pagination
+    @GetMapping(value = "/active", params = "cursor")
+    public ResponseEntity<CursorPageDTO<ProductDTO>> getActiveProductsByCursor(
+            @RequestParam(defaultValue = "") String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        
+        log.info("REST request to get active Products by cursor");
+        CursorPageDTO<ProductDTO> products = productService.getActiveProducts(cursor, size, includeTotal);
+        return page().body(products);
     }
     
     // Get products by category
@@ -92,7 +147,21 @@ public class ProductController {
         log.info("REST request to get Products by category: {}", category);
         Pageable pageable = PageRequest.of(page, size);
         Page<ProductDTO> products = productService.getProductsByCategory(category, pageable);
-        return ResponseEntity.ok(products);
+        return page().body(products);
+    }
+    
+    // Get products by category with keyset pagination
+    @GetMapping(value = "/category/{category}", params = "cursor")
+    public ResponseEntity<CursorPageDTO<ProductDTO>> getProductsByCategoryByCursor(
+            @PathVariable String category,
+            @RequestParam(defaultValue = "") String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        
+        log.info("REST request to get Products by category by cursor: {}", category);
+        CursorPageDTO<ProductDTO> products = 
+            productService.getProductsByCategory(category, cursor, size, includeTotal);
+        return page().body(products);
     }
     
     // Search products
@@ -108,6 +177,71 @@ public class ProductController {
         return ResponseEntity.ok(products);
     }
     
+    // Export products as newline-delimited JSON, gzipped when the client accepts it
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+            @RequestParam(required = false) Boolean active,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, defaultValue = "") String acceptEncoding) {
+        
+        log.info("REST request to export Products - active: {}, category: {}, since: {}", active, category, since);
+        boolean gzip = acceptEncoding.toLowerCase().contains("gzip");
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, EXPORT_BUFFER_SIZE);
+                productService.exportProducts(active, category, since, compressed);
+                compressed.finish();
+            } else {
+                productService.exportProducts(active, category, since, out);
+            }
+        };
+        
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+    
+    // Products changed after a watermark, oldest first, with tombstones for deletes
+    @GetMapping("/changes")
+    public ResponseEntity<ChangeFeedDTO> getChanges(
+            @RequestParam(required = false) String since,
+            @RequestParam(defaultValue = "500") int limit) {
+        
+        log.info("REST request to get Product changes since: {}", since);
+        ChangeFeedDTO changes = productService.getChanges(since, limit);
+        return ResponseEntity.ok(changes);
+    }
+    
+    // Push committed product changes as server-sent events
+    @GetMapping(value = "/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(
+            @RequestParam(required = false) String since,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        
+        log.info("REST request to stream Product changes since: {}", lastEventId != null ? lastEventId : since);
+        return productService.streamChanges(lastEventId != null ? lastEventId : since);
+    }
+    
+    // Bulk import products from a CSV or NDJSON body, optionally updating existing SKUs
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<ImportResultDTO> importProducts(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            @RequestParam(defaultValue = "false") boolean upsert,
+            InputStream body) {
+        
+        log.info("REST request to import Products as {}, upsert: {}", contentType, upsert);
+        ProductImporter.Format format = contentType.isCompatibleWith(MediaType.parseMediaType("text/csv"))
+                ? ProductImporter.Format.CSV
+                : ProductImporter.Format.NDJSON;
+        ImportResultDTO result = productService.importProducts(body, format, upsert);
+        return ResponseEntity.ok(result);
+    }
+    
     // Update product
     @PutMapping("/{id}")
     public ResponseEntity<ProductDTO> updateProduct(
@@ -129,33 +263,51 @@ public class ProductController {
     
     // Update stock
     @PutMapping("/{id}/stock")
-    public ResponseEntity<Map<String, String>> updateStock(
+    public ResponseEntity<Map<String, Object>> updateStock(
             @PathVariable Long id,
             @Valid @RequestBody StockUpdateDTO stockUpdateDTO) {
         
         log.info("REST request to update stock for Product ID: {}", id);
-        productService.updateStock(id, stockUpdateDTO);
-        return ResponseEntity.ok(Map.of("message", "Stock updated successfully"));
+        Integer newQuantity = productService.updateStock(id, stockUpdateDTO);
+        return ResponseEntity.ok(Map.of(
+            "message", "Stock updated successfully",
+            "quantity", newQuantity
+        ));
     }
     
-    // Get low stock products
+    // Get low stock products, lowest stock first
     @GetMapping("/low-stock")
     public ResponseEntity<List<ProductDTO>> getLowStockProducts(
-            @RequestParam(defaultValue = "10") Integer threshold) {
+            @RequestParam(defaultValue = "10") Integer threshold,
+            @RequestParam(defaultValue = "100") int limit) {
         
-        log.info("REST request to get low stock Products with threshold: {}", threshold);
-        List<ProductDTO> products = productService.getLowStockProducts(threshold);
+        log.info("REST request to get low stock Products with threshold: {}, limit: {}", threshold, limit);
+        List<ProductDTO> products = productService.getLowStockProducts(threshold, limit);
         return ResponseEntity.ok(products);
     }
     
-    // Get products by price range
+    // Push products crossing a low-stock threshold (either way) as server-sent events
+    @GetMapping(value = "/low-stock/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamLowStockAlerts(@RequestParam(required = false) Integer threshold) {
+        log.info("REST request to stream low stock alerts with threshold: {}", threshold);
+        return productService.streamLowStockAlerts(threshold);
+    }
+    
+    // Get products by price range, cheapest first, optionally only active ones in one category
     @GetMapping("/price-range")
-    public ResponseEntity<List<ProductDTO>> getProductsByPriceRange(
+    public ResponseEntity<Page<ProductDTO>> getProductsByPriceRange(
             @RequestParam BigDecimal minPrice,
-            @RequestParam BigDecimal maxPrice) {
+            @RequestParam BigDecimal maxPrice,
+            @RequestParam(defaultValue = "false") boolean activeOnly,
+            @RequestParam(required = false) String category,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
         
-        log.info("REST request to get Products in price range: {} - {}", minPrice, maxPrice);
-        List<ProductDTO> products = productService.getProductsByPriceRange(minPrice, maxPrice);
+        log.info("REST request to get Products in price range: {} - {}, page: {}, size: {}", 
+                 minPrice, maxPrice, page, size);
+        Pageable pageable = PageRequest.of(page, size, Sort.by("price", "id"));
+        Page<ProductDTO> products = 
+            productService.getProductsByPriceRange(minPrice, maxPrice, activeOnly, category, pageable);
         return ResponseEntity.ok(products);
     }
     
@@ -167,6 +319,42 @@ public class ProductController {
         return ResponseEntity.ok(categories);
     }
     
+    // Active-product counts per category, brand and category x brand
+    @GetMapping("/facets")
+    public ResponseEntity<ProductFacetsDTO> getFacets() {
+        log.info("REST request to get product facet counts");
+        ProductFacetsDTO facets = productService.getFacets();
+        return ResponseEntity.ok(facets);
+    }
+    
+    // Check stock availability for several products at once
+    @PostMapping("/stock/check")
+    public ResponseEntity<Map<String, Object>> checkStockAvailability(
+            @Valid @RequestBody BatchStockDTO batch) {
+        
+        log.info("REST request to check stock availability for {} items", batch.getItems().size());
+        List<StockAvailabilityDTO> items = productService.checkStockAvailability(batch);
+        
+        return ResponseEntity.ok(Map.of(
+            "available", items.stream().allMatch(StockAvailabilityDTO::getAvailable),
+            "items", items
+        ));
+    }
+    
+    // Apply stock updates for several products in one transaction (all or nothing)
+    @PostMapping("/stock/apply")
+    public ResponseEntity<Map<String, Object>> applyStockUpdates(
+            @Valid @RequestBody BatchStockDTO batch) {
+        
+        log.info("REST request to apply stock {} for {} items", batch.getOperationType(), batch.getItems().size());
+        Map<Long, Integer> quantities = productService.applyStockUpdates(batch);
+        
+        return ResponseEntity.ok(Map.of(
+            "message", "Stock updated successfully",
+            "quantities", quantities
+        ));
+    }
+    
     // Check stock availability
     @GetMapping("/{id}/check-stock")
     public ResponseEntity<Map<String, Object>> checkStockAvailability(
@@ -182,4 +370,12 @@ public class ProductController {
             "available", available
         ));
     }
+    
+    // Page responses are briefly fresh, so the gateway can answer repeated page loads without a query
+    private ResponseEntity.BodyBuilder page() {
+        if (cacheProperties.getPageMaxAge().isZero()) {
+            return ResponseEntity.ok();
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.maxAge(cacheProperties.getPageMaxAge()));
+    }
 }
\ No newline at end of file
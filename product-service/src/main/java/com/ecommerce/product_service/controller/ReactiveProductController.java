@@ -0,0 +1,72 @@
+package com.ecommerce.product.controller;
+
+import com.ecommerce.product.dto.ProductDTO;
+import com.ecommerce.product.service.ReactiveProductService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+
+/**
+ * Catalog reads served from the R2DBC read path. Lists are streamed row by row
+ * as NDJSON when the client accepts {@code application/x-ndjson}, and collected
+ * into a JSON array otherwise.
+ */
+@RestController
+@RequestMapping("/api/products/reactive")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*") // Configure appropriately for production
+public class ReactiveProductController {
+    
+    private final ReactiveProductService reactiveProductService;
+    
+    // Get product by ID
+    @GetMapping("/{id}")
+    public Mono<ProductDTO> getProductById(@PathVariable Long id) {
+        log.info("REST request to reactively get Product by ID: {}", id);
+        return reactiveProductService.getProductById(id);
+    }
+    
+    // Get active products
+    @GetMapping(value = "/active", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<ProductDTO> getActiveProducts(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        
+        log.info("REST request to reactively get active Products - page: {}, size: {}", page, size);
+        return reactiveProductService.getActiveProducts(page, size);
+    }
+    
+    // Get products by category
+    @GetMapping(value = "/category/{category}", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<ProductDTO> getProductsByCategory(
+            @PathVariable String category,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        
+        log.info("REST request to reactively get Products by category: {}", category);
+        return reactiveProductService.getProductsByCategory(category, page, size);
+    }
+    
+    // Get products in price range
+    @GetMapping(value = "/price-range", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<ProductDTO> getProductsByPriceRange(
+            @RequestParam BigDecimal minPrice,
+            @RequestParam BigDecimal maxPrice) {
+        
+        log.info("REST request to reactively get Products in price range: {} - {}", minPrice, maxPrice);
+        return reactiveProductService.getProductsByPriceRange(minPrice, maxPrice);
+    }
+    
+    // Get all categories
+    @GetMapping("/categories")
+    public Flux<String> getAllCategories() {
+        log.info("REST request to reactively get all categories");
+        return reactiveProductService.getAllCategories();
+    }
+}
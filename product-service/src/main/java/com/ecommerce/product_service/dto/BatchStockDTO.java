@@ -0,0 +1,32 @@
+package com.ecommerce.product.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BatchStockDTO {
+    
+    @NotEmpty(message = "At least one item is required")
+    @Valid
+    private List<Item> items;
+    
+    // Only used when applying; a checkout decrements by default
+    @NotNull(message = "Operation type is required")
+    private StockUpdateDTO.OperationType operationType = StockUpdateDTO.OperationType.REDUCE;
+    
+    @Data
+    public static class Item {
+        
+        @NotNull(message = "Product ID is required")
+        private Long productId;
+        
+        @NotNull(message = "Quantity is required")
+        @Min(value = 1, message = "Quantity must be at least 1")
+        private Integer quantity;
+    }
+}
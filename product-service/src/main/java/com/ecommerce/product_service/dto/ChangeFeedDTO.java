@@ -0,0 +1,24 @@
+package com.ecommerce.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ChangeFeedDTO {
+    
+    // Ordered by (updatedAt, productId)
+    private List<ProductChangeDTO> changes;
+    
+    // Pass back as 'since' on the next poll; unchanged when nothing new was found
+    private String watermark;
+    
+    // More changes are ready right away
+    private boolean hasMore;
+}
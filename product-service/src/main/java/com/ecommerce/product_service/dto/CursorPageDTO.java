@@ -0,0 +1,25 @@
+package com.ecommerce.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CursorPageDTO<T> {
+    
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    
+    // Opaque token for the next page; null on the last page
+    private String nextCursor;
+    
+    // Only filled when the caller asks for it, as it costs a COUNT query
+    private Long totalElements;
+}
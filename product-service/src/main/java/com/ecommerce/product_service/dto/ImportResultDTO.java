@@ -0,0 +1,36 @@
+package com.ecommerce.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImportResultDTO {
+    
+    private long totalRows;
+    private long inserted;
+    private long updated;
+    private long failed;
+    private long durationMs;
+    
+    // Rejected rows, up to the configured limit
+    private List<RowError> errors;
+    private boolean errorsTruncated;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        
+        // Line in the uploaded file, header included
+        private long line;
+        private String sku;
+        private String message;
+    }
+}
@@ -0,0 +1,27 @@
+package com.ecommerce.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LowStockAlertDTO {
+    
+    private AlertType type;
+    private Long productId;
+    private Integer quantity;
+    
+    // Null when the product was not low enough to be tracked before
+    private Integer previousQuantity;
+    
+    // The subscriber's threshold that was crossed
+    private Integer threshold;
+    
+    public enum AlertType {
+        LOW, RESTOCKED
+    }
+}
@@ -0,0 +1,31 @@
+package com.ecommerce.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductChangeDTO {
+    
+    private ChangeType type;
+    private Long productId;
+    private String sku;
+    private Long version;
+    private LocalDateTime updatedAt;
+    
+    // Current state for UPSERT; null for DELETE tombstones
+    private ProductDTO product;
+    
+    // Watermark that resumes the feed right after this change
+    private String watermark;
+    
+    public enum ChangeType {
+        UPSERT, DELETE
+    }
+}
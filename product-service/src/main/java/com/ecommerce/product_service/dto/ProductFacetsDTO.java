@@ -0,0 +1,25 @@
+package com.ecommerce.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductFacetsDTO {
+    
+    // Active products in the whole catalog
+    private long totalActive;
+    
+    // Active products per category and per brand, keyed by name in sort order
+    private Map<String, Long> categories;
+    private Map<String, Long> brands;
+    
+    // Active products per brand within each category
+    private Map<String, Map<String, Long>> categoryBrands;
+}
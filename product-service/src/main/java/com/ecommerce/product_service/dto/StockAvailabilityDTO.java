@@ -0,0 +1,18 @@
+package com.ecommerce.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockAvailabilityDTO {
+    
+    private Long productId;
+    private Integer requestedQuantity;
+    private Integer availableQuantity;
+    private Boolean available;
+}
@@ -0,0 +1,22 @@
+package com.ecommerce.product.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "stock_ledger_checkpoints")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockLedgerCheckpoint {
+    
+    @Id
+    @Column(name = "node_id", length = 100)
+    private String nodeId;
+    
+    // Highest journal sequence whose delta is already applied to products.quantity
+    @Column(name = "last_sequence", nullable = false)
+    private Long lastSequence;
+}
@@ -0,0 +1,16 @@
+package com.ecommerce.product.event;
+
+import com.ecommerce.product.entity.Product;
+import lombok.Value;
+
+/**
+ * Published by the product service whenever a product row is created or its
+ * catalog fields change. Listeners that keep derived in-memory structures
+ * should use {@code @TransactionalEventListener} so they only see committed state.
+ */
+@Value
+public class ProductChangedEvent {
+    
+    Product product;
+    boolean created;
+}
@@ -0,0 +1,25 @@
+package com.ecommerce.product.event;
+
+import lombok.Value;
+
+import java.util.Map;
+
+/**
+ * Published by the product service after stock levels change, carrying the
+ * new quantity per product id. Stock moves do not raise
+ * {@link ProductChangedEvent}, since no catalog field changes.
+ *
+ * Concurrent moves are published from the request threads that made them, so
+ * listeners may see them out of order; each carries a revision (the row
+ * version, or the journal sequence under the reservation ledger) and a
+ * listener keeping state per product should drop changes older than the
+ * revision it already holds.
+ */
+@Value
+public class ProductStockChangedEvent {
+    
+    Map<Long, Integer> quantities;
+    
+    // Same keys as quantities
+    Map<Long, Long> revisions;
+}
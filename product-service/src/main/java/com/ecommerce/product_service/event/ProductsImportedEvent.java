@@ -0,0 +1,15 @@
+package com.ecommerce.product.event;
+
+import lombok.Value;
+
+/**
+ * Published after a bulk import has written products with JDBC batches. Such
+ * rows bypass {@link ProductChangedEvent}, so listeners holding derived state
+ * should refresh it wholesale.
+ */
+@Value
+public class ProductsImportedEvent {
+    
+    long inserted;
+    long updated;
+}
@@ -0,0 +1,7 @@
+package com.ecommerce.product.exception;
+
+public class AdmissionRejectedException extends RuntimeException {
+    public AdmissionRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.ecommerce.product.exception;
+
+public class InvalidThresholdException extends RuntimeException {
+    public InvalidThresholdException(String message) {
+        super(message);
+    }
+}
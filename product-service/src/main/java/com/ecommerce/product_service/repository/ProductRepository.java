@@ -1,8 +1,12 @@
 package com.ecommerce.product.repository;
 
 import com.ecommerce.product.entity.Product;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -10,6 +14,8 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,13 +24,46 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     
     Optional<Product> findBySku(String sku);
     
+    // Keyset scan over the whole table, used to build in-memory indexes
+    List<Product> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+    
     Page<Product> findByIsActiveTrue(Pageable pageable);
     
     Page<Product> findByCategory(String category, Pageable pageable);
     
     Page<Product> findByCategoryAndIsActiveTrue(String category, Pageable pageable);
     
-    List<Product> findByPriceBetween(BigDecimal minPrice, BigDecimal maxPrice);
+    // Keyset (seek) variants of the listings above; none of them issues a COUNT
+    Window<Product> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+    
+    Window<Product> findByIsActiveTrue(ScrollPosition position, Sort sort, Limit limit);
+    
+    Window<Product> findByCategoryAndIsActiveTrue(String category, ScrollPosition position, Sort sort, Limit limit);
+    
+    // Change feed: rows modified up to the cutoff, sorted by (updatedAt, id)
+    Window<Product> findByUpdatedAtLessThanEqual(LocalDateTime cutoff, ScrollPosition position, Sort sort, Limit limit);
+    
+    // The database clock that stamps updatedAt; change feed cutoffs are taken from it
+    @Query("SELECT LOCAL DATETIME")
+    LocalDateTime currentTimestamp();
+    
+    long countByCategoryAndIsActiveTrue(String category);
+    
+    // Keyset scan over active products, loading only what the facet counts need
+    List<FacetSource> findFacetSourcesByIsActiveTrueAndIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+    
+    // Reconciles the in-memory facet counts
+    @Query("SELECT p.category AS category, p.brand AS brand, COUNT(p) AS products FROM Product p " +
+           "WHERE p.isActive = true GROUP BY p.category, p.brand")
+    List<FacetCount> countActiveByCategoryAndBrand();
+    
+    // Database fallback for price-range queries while the in-memory price index is not ready
+    @Query("SELECT p FROM Product p WHERE p.price BETWEEN :minPrice AND :maxPrice " +
+           "AND (:activeOnly = false OR p.isActive = true) " +
+           "AND (:category IS NULL OR p.category = :category)")
+    Page<Product> findByPriceRange(@Param("minPrice") BigDecimal minPrice, @Param("maxPrice") BigDecimal maxPrice,
+                                   @Param("activeOnly") boolean activeOnly, @Param("category") String category,
+                                   Pageable pageable);
     
     @Query("SELECT p FROM Product p WHERE " +
            "LOWER(p.name) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
@@ -32,17 +71,31 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
            "LOWER(p.category) LIKE LOWER(CONCAT('%', :searchTerm, '%'))")
     Page<Product> searchProducts(@Param("searchTerm") String searchTerm, Pageable pageable);
     
-    @Query("SELECT p FROM Product p WHERE p.quantity < :threshold")
-    List<Product> findLowStockProducts(@Param("threshold") Integer threshold);
+    // Database fallback for low-stock queries the in-memory tracker cannot answer
+    @Query("SELECT p.id FROM Product p WHERE p.quantity < :threshold")
+    List<Long> findLowStockProductIds(@Param("threshold") Integer threshold, Pageable pageable);
+    
+    // Loads the low-stock tracker
+    List<StockLevel> findStockLevelsByQuantityLessThan(Integer quantity);
     
+    // Stock mutations are single conditional UPDATEs so concurrent writers never race on @Version
     @Modifying
-    @Query("UPDATE Product p SET p.quantity = p.quantity + :quantity WHERE p.id = :productId")
-    void addStock(@Param("productId") Long productId, @Param("quantity") Integer quantity);
+    @Query("UPDATE Product p SET p.quantity = p.quantity + :quantity, p.version = p.version + 1, " +
+           "p.updatedAt = CURRENT_TIMESTAMP WHERE p.id = :productId")
+    int addStock(@Param("productId") Long productId, @Param("quantity") Integer quantity);
     
     @Modifying
-    @Query("UPDATE Product p SET p.quantity = p.quantity - :quantity WHERE p.id = :productId AND p.quantity >= :quantity")
+    @Query("UPDATE Product p SET p.quantity = p.quantity - :quantity, p.version = p.version + 1, " +
+           "p.updatedAt = CURRENT_TIMESTAMP WHERE p.id = :productId AND p.quantity >= :quantity")
     int reduceStock(@Param("productId") Long productId, @Param("quantity") Integer quantity);
     
+    @Query("SELECT p.quantity FROM Product p WHERE p.id = :productId")
+    Optional<Integer> findQuantityById(@Param("productId") Long productId);
+    
+    List<StockLevel> findStockLevelsByIdIn(Collection<Long> productIds);
+    
+    Optional<StockLevel> findStockLevelById(Long productId);
+    
     boolean existsBySku(String sku);
     
     @Query("SELECT DISTINCT p.category FROM Product p")
@@ -50,4 +103,24 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     
     @Query("SELECT COUNT(p) FROM Product p WHERE p.isActive = true")
     Long countActiveProducts();
+    
+    // Id, quantity and version only, for stock checks that do not need the full entity
+    interface StockLevel {
+        Long getId();
+        Integer getQuantity();
+        Long getVersion();
+    }
+    
+    interface FacetSource {
+        Long getId();
+        String getCategory();
+        String getBrand();
+        Long getVersion();
+    }
+    
+    interface FacetCount {
+        String getCategory();
+        String getBrand();
+        Long getProducts();
+    }
 }
\ No newline at end of file
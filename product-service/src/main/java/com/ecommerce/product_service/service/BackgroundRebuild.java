@@ -0,0 +1,54 @@
+package com.ecommerce.product.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs an in-memory structure's rebuild on its own daemon thread, so the
+ * request whose commit asked for it (a bulk import) is not held up. At most
+ * one rebuild runs and one waits; requests made while one is waiting are
+ * dropped, since the waiting rebuild reads everything committed before it
+ * starts.
+ */
+@Slf4j
+final class BackgroundRebuild {
+
+    private final String name;
+    private final Runnable rebuild;
+    private final ThreadPoolExecutor executor;
+
+    BackgroundRebuild(String name, Runnable rebuild) {
+        this.name = name;
+        this.rebuild = rebuild;
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1),
+                runnable -> {
+                    Thread thread = new Thread(runnable, name);
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    void request() {
+        executor.execute(this::run);
+    }
+
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run() {
+        try {
+            rebuild.run();
+        } catch (RuntimeException ex) {
+            // A rebuild cut short by the context closing under it is not worth a warning
+            if (!executor.isShutdown()) {
+                log.warn("Background rebuild {} failed: {}", name, ex.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.ecommerce.product.service;
+
+/**
+ * A product already serialized to its JSON response body, tagged with the
+ * entity version it was built from. The bytes are shared between requests
+ * and must not be modified.
+ */
+public record EncodedProduct(Long id, long version, byte[] json) {
+
+    /**
+     * Strong validator for the body: every write bumps the row's
+     * {@code @Version}, so equal versions mean byte-identical JSON.
+     */
+    public String etag() {
+        return "\"" + id + "-" + version + "\"";
+    }
+}
@@ -0,0 +1,104 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.product.exception.InvalidCursorException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Opaque continuation token for keyset pagination over products. The token
+ * carries the sort it was issued for plus the (sortKey, id) of the last row,
+ * so the next page seeks past that row instead of skipping an offset.
+ */
+public final class KeysetCursor {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String ID = "id";
+
+    // Non-null product properties that can drive a seek, with their value parsers
+    private static final Map<String, Function<String, Object>> SORT_KEYS = Map.of(
+            "id", Long::valueOf,
+            "sku", value -> value,
+            "name", value -> value,
+            "price", BigDecimal::new,
+            "quantity", Integer::valueOf,
+            "createdAt", LocalDateTime::parse,
+            "updatedAt", LocalDateTime::parse);
+
+    private KeysetCursor() {
+    }
+
+    /**
+     * Sort for a seek on {@code sortBy}, with id as the tie-breaker.
+     */
+    public static Sort sort(String sortBy, Sort.Direction direction) {
+        if (!SORT_KEYS.containsKey(sortBy)) {
+            throw new InvalidCursorException("Cursor pagination cannot sort by '" + sortBy +
+                    "'; supported: " + SORT_KEYS.keySet());
+        }
+        Sort sort = Sort.by(direction, sortBy);
+        return ID.equals(sortBy) ? sort : sort.and(Sort.by(direction, ID));
+    }
+
+    /**
+     * Position to continue from; a blank cursor starts at the first row.
+     */
+    public static KeysetScrollPosition decode(String cursor, String sortBy, Sort.Direction direction) {
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+
+        Map<String, String> token;
+        try {
+            token = MAPPER.readValue(Base64.getUrlDecoder().decode(cursor), new TypeReference<>() {});
+        } catch (IllegalArgumentException | IOException ex) {
+            throw new InvalidCursorException("Malformed cursor");
+        }
+        if (!sortBy.equals(token.get("s")) || !direction.name().equals(token.get("d"))) {
+            throw new InvalidCursorException("Cursor was issued for a different sort");
+        }
+
+        try {
+            Map<String, Object> keys = new LinkedHashMap<>();
+            keys.put(sortBy, SORT_KEYS.get(sortBy).apply(token.get("v")));
+            keys.put(ID, Long.valueOf(token.get("i")));
+            return ScrollPosition.forward(keys);
+        } catch (RuntimeException ex) {
+            throw new InvalidCursorException("Malformed cursor");
+        }
+    }
+
+    public static String encode(ScrollPosition position, String sortBy, Sort.Direction direction) {
+        Map<String, Object> keys = ((KeysetScrollPosition) position).getKeys();
+        return encode(sortBy, direction, keys.get(sortBy), keys.get(ID));
+    }
+
+    /**
+     * Token that continues right after the row with the given sort key and id.
+     */
+    public static String encode(String sortBy, Sort.Direction direction, Object sortKey, Object id) {
+        Map<String, String> token = new LinkedHashMap<>();
+        token.put("s", sortBy);
+        token.put("d", direction.name());
+        token.put("v", String.valueOf(sortKey));
+        token.put("i", String.valueOf(id));
+        try {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(MAPPER.writeValueAsString(token).getBytes(StandardCharsets.UTF_8));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Failed to encode cursor", ex);
+        }
+    }
+}
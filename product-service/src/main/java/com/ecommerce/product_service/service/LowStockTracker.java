@@ -0,0 +1,380 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.product.config.LowStockProperties;
+import com.ecommerce.product.dto.LowStockAlertDTO;
+import com.ecommerce.product.entity.Product;
+import com.ecommerce.product.event.ProductChangedEvent;
+import com.ecommerce.product.event.ProductStockChangedEvent;
+import com.ecommerce.product.event.ProductsImportedEvent;
+import com.ecommerce.product.exception.InvalidThresholdException;
+import com.ecommerce.product.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Products running low on stock, kept in memory ordered by (quantity, id) so
+ * a low-stock query for any threshold up to {@code max-tracked-quantity}
+ * walks just the products it returns. Products with more stock than that are
+ * not held at all; higher thresholds are answered from the database.
+ *
+ * Unlike the catalog indexes this structure follows stock moves, which are
+ * frequent, so it is a concurrent skip list updated per product rather than
+ * arrays behind a lock. It is built once the application is ready, kept
+ * current from committed {@link ProductChangedEvent}s and
+ * {@link ProductStockChangedEvent}s, and rebuilt in the background after bulk
+ * imports; a rebuild fills a new skip list that is swapped in when complete,
+ * so queries and stock moves keep using the current one meanwhile. While
+ * the reservation ledger owns stock the product row lags behind it, so a
+ * rebuild takes the ledger's counts over the rows and later quantities come
+ * from stock events only.
+ *
+ * Stock events arrive unordered from the request threads that made the moves,
+ * so every product seen keeps the revision of its last applied change (row
+ * version, or journal sequence under the ledger) and older changes are
+ * dropped. Products at or above the tracked quantity keep only the revision.
+ *
+ * Stream subscribers are pushed an alert whenever a product crosses their
+ * threshold in either direction, from one dispatcher thread so a slow client
+ * never holds up a committing request.
+ */
+@Component
+@Slf4j
+public class LowStockTracker {
+
+    private static final Sort LOWEST_FIRST = Sort.by("quantity", "id");
+
+    private final ProductRepository productRepository;
+    private final LowStockProperties properties;
+    private final Optional<StockReservationLedger> reservationLedger;
+    private final boolean ledgerOwnsStock;
+
+    // Both replaced by a rebuild under the write lock
+    private volatile ConcurrentSkipListSet<StockKey> byQuantity = new ConcurrentSkipListSet<>();
+    // Last applied change per product; compute() on it serialises updates to one product
+    private volatile Map<Long, Tracked> products = new ConcurrentHashMap<>();
+    // Changes applied while a rebuild runs, replayed onto the new structures before they are swapped in
+    private volatile Queue<Change> pending;
+    // Updates share the read lock; a rebuild takes the write lock to start recording them and to swap
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final BackgroundRebuild rebuilds = new BackgroundRebuild("low-stock-rebuild", this::rebuild);
+    // Subscriber -> its alert threshold
+    private final Map<SseEmitter, Integer> subscribers = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor dispatcher;
+
+    private volatile boolean ready;
+
+    // quantity is null for a product holding at least max-tracked-quantity units
+    private record Tracked(Integer quantity, long revision) {
+    }
+
+    private record Change(Long productId, int quantity, long revision) {
+    }
+
+    private record StockKey(int quantity, long productId) implements Comparable<StockKey> {
+
+        @Override
+        public int compareTo(StockKey other) {
+            return quantity != other.quantity
+                    ? Integer.compare(quantity, other.quantity)
+                    : Long.compare(productId, other.productId);
+        }
+    }
+
+    public LowStockTracker(ProductRepository productRepository, LowStockProperties properties,
+                           Optional<StockReservationLedger> reservationLedger) {
+        this.productRepository = productRepository;
+        this.properties = properties;
+        this.reservationLedger = reservationLedger;
+        this.ledgerOwnsStock = reservationLedger.isPresent();
+        this.dispatcher = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getStreamQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "low-stock-stream");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (task, executor) -> dropSubscribers());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (properties.isEnabled()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Reloads every product below the tracked quantity in one query, then
+     * overlays the reservation ledger's counts when it owns stock, and swaps
+     * the result in with the changes applied meanwhile. Queries fall back to
+     * the database until the first build is done. Rebuilds run one at a time.
+     */
+    public synchronized void rebuild() {
+        long started = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            pending = new ConcurrentLinkedQueue<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            ConcurrentSkipListSet<StockKey> builtByQuantity = new ConcurrentSkipListSet<>();
+            Map<Long, Tracked> builtProducts = new ConcurrentHashMap<>();
+            // Under the ledger the row's version is not a journal sequence; any ledger change wins over it
+            productRepository.findStockLevelsByQuantityLessThan(properties.getMaxTrackedQuantity())
+                    .forEach(level -> seed(builtProducts, builtByQuantity, level.getId(), level.getQuantity(),
+                            ledgerOwnsStock ? 0 : versionOf(level.getVersion())));
+            reservationLedger.ifPresent(ledger -> {
+                // Rows the ledger has not flushed yet are stale; its counts replace them
+                Map<Long, Integer> available = new HashMap<>();
+                long sequence = ledger.availableCounts(available);
+                available.forEach((productId, quantity) ->
+                        seed(builtProducts, builtByQuantity, productId, quantity, sequence));
+            });
+
+            lock.writeLock().lock();
+            try {
+                // The revision check keeps whichever of the seed and the change is newer
+                pending.forEach(change -> track(builtProducts, builtByQuantity, change.productId(),
+                        change.quantity(), change.revision()));
+                byQuantity = builtByQuantity;
+                products = builtProducts;
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Low-stock tracker built: {} products below {} units in {} ms",
+                     builtByQuantity.size(), properties.getMaxTrackedQuantity(),
+                     System.currentTimeMillis() - started);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        Product product = event.getProduct();
+        if (properties.isEnabled() && (event.isCreated() || !ledgerOwnsStock)) {
+            // A new product's row is older than any ledger change to it
+            update(product.getId(), product.getQuantity(), ledgerOwnsStock ? 0 : versionOf(product.getVersion()));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(ProductStockChangedEvent event) {
+        if (properties.isEnabled()) {
+            event.getQuantities().forEach((productId, quantity) ->
+                    update(productId, quantity, event.getRevisions().getOrDefault(productId, 0L)));
+        }
+    }
+
+    // Bulk imports bypass per-product events, so reload everything, off the importing request's thread
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsImported(ProductsImportedEvent event) {
+        if (properties.isEnabled()) {
+            rebuilds.request();
+        }
+    }
+
+    /**
+     * Ids of products with fewer than {@code threshold} units, lowest stock
+     * first with ties in id order, at most {@code limit} of them.
+     */
+    public List<Long> lowStock(int threshold, int limit) {
+        int max = Math.max(1, Math.min(limit, properties.getMaxLimit()));
+        if (!ready || threshold > properties.getMaxTrackedQuantity()) {
+            return productRepository.findLowStockProductIds(threshold, PageRequest.of(0, max, LOWEST_FIRST));
+        }
+        List<Long> ids = new ArrayList<>(max);
+        for (StockKey key : byQuantity.headSet(new StockKey(threshold, Long.MIN_VALUE))) {
+            if (ids.size() == max) {
+                break;
+            }
+            ids.add(key.productId());
+        }
+        return ids;
+    }
+
+    /**
+     * Opens a stream of alerts for products crossing {@code threshold} (the
+     * configured alert threshold when null), starting with a {@code snapshot}
+     * of the products already below it once the tracker is built.
+     */
+    public SseEmitter subscribe(Integer threshold) {
+        int alertThreshold = threshold != null ? threshold : properties.getAlertThreshold();
+        if (alertThreshold > properties.getMaxTrackedQuantity()) {
+            throw new InvalidThresholdException("Alert threshold must not exceed "
+                    + properties.getMaxTrackedQuantity() + ", got " + alertThreshold);
+        }
+        SseEmitter emitter = new SseEmitter(properties.getStreamTimeout().toMillis());
+        emitter.onCompletion(() -> subscribers.remove(emitter));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(ex -> subscribers.remove(emitter));
+
+        // Subscribe before the snapshot so no crossing in between is missed
+        subscribers.put(emitter, alertThreshold);
+        dispatcher.execute(() -> sendSnapshot(emitter, alertThreshold));
+        log.debug("Low-stock stream subscribed at threshold {}, {} subscribers", alertThreshold, subscribers.size());
+        return emitter;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilds.shutdown();
+        dispatcher.shutdownNow();
+        subscribers.keySet().forEach(SseEmitter::complete);
+    }
+
+    private void update(Long productId, Integer quantity, long revision) {
+        if (productId == null || quantity == null) {
+            return;
+        }
+        if (!ledgerOwnsStock && quantity < properties.getMaxTrackedQuantity() && !products.containsKey(productId)) {
+            // Unseen product: a rebuild may have read a newer row than this change and left it
+            // out as untracked, so take the committed row instead
+            Optional<ProductRepository.StockLevel> row = productRepository.findStockLevelById(productId);
+            if (row.isEmpty()) {
+                return;
+            }
+            quantity = row.get().getQuantity();
+            revision = versionOf(row.get().getVersion());
+        }
+
+        int newQuantity = quantity;
+        long newRevision = revision;
+        boolean tracked = newQuantity < properties.getMaxTrackedQuantity();
+        lock.readLock().lock();
+        try {
+            ConcurrentSkipListSet<StockKey> currentByQuantity = byQuantity;
+            products.compute(productId, (id, previous) -> {
+                if (previous != null && previous.revision() > newRevision) {
+                    // A newer change already arrived
+                    return previous;
+                }
+                Integer previousQuantity = previous != null ? previous.quantity() : null;
+                if (previousQuantity != null) {
+                    currentByQuantity.remove(new StockKey(previousQuantity, id));
+                }
+                if (tracked) {
+                    currentByQuantity.add(new StockKey(newQuantity, id));
+                }
+                if (!subscribers.isEmpty() && (tracked || previousQuantity != null)
+                        && !Integer.valueOf(newQuantity).equals(previousQuantity)) {
+                    dispatcher.execute(() -> alert(id, previousQuantity, newQuantity));
+                }
+                return new Tracked(tracked ? newQuantity : null, newRevision);
+            });
+            Queue<Change> changes = pending;
+            if (changes != null) {
+                changes.add(new Change(productId, newQuantity, newRevision));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Untracked products held at least max-tracked-quantity units, so they were above every threshold
+    private void alert(Long productId, Integer previous, int quantity) {
+        subscribers.forEach((emitter, threshold) -> {
+            boolean wasLow = previous != null && previous < threshold;
+            boolean isLow = quantity < threshold;
+            if (wasLow != isLow) {
+                send(emitter, SseEmitter.event().name("alert").data(LowStockAlertDTO.builder()
+                        .type(isLow ? LowStockAlertDTO.AlertType.LOW : LowStockAlertDTO.AlertType.RESTOCKED)
+                        .productId(productId)
+                        .quantity(quantity)
+                        .previousQuantity(previous)
+                        .threshold(threshold)
+                        .build()));
+            }
+        });
+    }
+
+    private void sendSnapshot(SseEmitter emitter, int threshold) {
+        if (!ready) {
+            return;
+        }
+        Map<Long, Integer> low = new LinkedHashMap<>();
+        byQuantity.headSet(new StockKey(threshold, Long.MIN_VALUE))
+                .forEach(key -> low.put(key.productId(), key.quantity()));
+        send(emitter, SseEmitter.event().name("snapshot").data(low));
+    }
+
+    private void send(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException ex) {
+            subscribers.remove(emitter);
+            emitter.completeWithError(ex);
+        }
+    }
+
+    // Unconditional, for a structure no update can see yet
+    private void seed(Map<Long, Tracked> into, Set<StockKey> byQuantityInto, Long productId, int quantity,
+                      long revision) {
+        Tracked previous = into.get(productId);
+        if (previous != null && previous.quantity() != null) {
+            byQuantityInto.remove(new StockKey(previous.quantity(), productId));
+        }
+        boolean tracked = quantity < properties.getMaxTrackedQuantity();
+        if (tracked) {
+            byQuantityInto.add(new StockKey(quantity, productId));
+        }
+        into.put(productId, new Tracked(tracked ? quantity : null, revision));
+    }
+
+    // Replays a change onto a structure being built, unless it already holds a newer one
+    private void track(Map<Long, Tracked> into, Set<StockKey> byQuantityInto, Long productId, int quantity,
+                       long revision) {
+        Tracked previous = into.get(productId);
+        if (previous == null || previous.revision() <= revision) {
+            seed(into, byQuantityInto, productId, quantity, revision);
+        }
+    }
+
+    private static long versionOf(Long version) {
+        return version != null ? version : 0L;
+    }
+
+    // Subscribers that fell behind reconnect and start again from a fresh snapshot
+    private void dropSubscribers() {
+        log.warn("Low-stock stream queue full, disconnecting {} subscribers", subscribers.size());
+        subscribers.keySet().forEach(SseEmitter::complete);
+        subscribers.clear();
+    }
+}
@@ -0,0 +1,198 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.product.config.ProductCacheProperties;
+import com.ecommerce.product.dto.ProductDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Bounded read-through cache of built {@link ProductDTO}s keyed by id, with a
+ * SKU-to-id index (SKUs never change, so only the id entry is ever evicted)
+ * and a single-entry category list. Concurrent misses on one key share a load.
+ * Alongside the DTOs it keeps each product's serialized JSON
+ * ({@link EncodedProduct}) so hot lookups can skip Jackson entirely; product
+ * evictions drop both forms.
+ *
+ * Evictions run immediately and again after the surrounding transaction
+ * completes, so a reader cannot re-cache a row that is about to be replaced.
+ * A SKU lookup learns the id only from its load, so it keeps the result only
+ * when no product eviction ran while it was loading.
+ * Hit, miss and eviction counts are published as {@code cache.*} meters.
+ */
+@Component
+public class ProductCache {
+
+    private static final String CATEGORIES_KEY = "all";
+
+    private final boolean enabled;
+    private final Cache<Long, ProductDTO> productsById;
+    private final Cache<Long, EncodedProduct> encodedById;
+    private final Cache<String, Long> idsBySku;
+    private final Cache<String, List<String>> categories;
+    // Bumped before every product eviction
+    private final AtomicLong productEvictions = new AtomicLong();
+
+    public ProductCache(ProductCacheProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.isEnabled();
+        this.productsById = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTimeToLive())
+                .recordStats()
+                .build();
+        this.encodedById = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTimeToLive())
+                .recordStats()
+                .build();
+        this.idsBySku = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .recordStats()
+                .build();
+        this.categories = Caffeine.newBuilder()
+                .maximumSize(1)
+                .expireAfterWrite(properties.getTimeToLive())
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, productsById, "products");
+        CaffeineCacheMetrics.monitor(meterRegistry, encodedById, "product-json");
+        CaffeineCacheMetrics.monitor(meterRegistry, idsBySku, "product-skus");
+        CaffeineCacheMetrics.monitor(meterRegistry, categories, "product-categories");
+    }
+
+    public ProductDTO getById(Long id, Function<Long, ProductDTO> loader) {
+        if (!enabled) {
+            return loader.apply(id);
+        }
+        return productsById.get(id, key -> {
+            ProductDTO product = loader.apply(key);
+            idsBySku.put(product.getSku(), key);
+            return product;
+        });
+    }
+
+    public ProductDTO getBySku(String sku, Function<String, ProductDTO> loader) {
+        if (!enabled) {
+            return loader.apply(sku);
+        }
+        Long id = idsBySku.getIfPresent(sku);
+        if (id != null) {
+            ProductDTO cached = productsById.getIfPresent(id);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        long evictions = productEvictions.get();
+        ProductDTO product = loader.apply(sku);
+        idsBySku.put(sku, product.getId());
+        // Checked under the entry's lock, so an eviction either sees this entry or stops it being stored
+        productsById.asMap().compute(product.getId(),
+                (key, cached) -> cached != null || productEvictions.get() != evictions ? cached : product);
+        return product;
+    }
+
+    public EncodedProduct getEncodedById(Long id, Function<Long, EncodedProduct> loader) {
+        if (!enabled) {
+            return loader.apply(id);
+        }
+        return encodedById.get(id, loader);
+    }
+
+    /**
+     * Drops the product now and, once the surrounding transaction commits,
+     * re-encodes it if it was cached, so a hot product does not fall back to
+     * a database read on its next lookup. The loader runs after commit and
+     * must read the committed row; an older version never replaces a newer one.
+     */
+    public void refresh(Long id, Function<Long, EncodedProduct> loader) {
+        invalidateProduct(id);
+        if (!enabled || encodedById.getIfPresent(id) == null) {
+            evict(id);
+            return;
+        }
+        encodedById.invalidate(id);
+        Runnable reload = () -> {
+            invalidateProduct(id);
+            EncodedProduct encoded = loader.apply(id);
+            encodedById.asMap().merge(id, encoded,
+                    (cached, loaded) -> loaded.version() >= cached.version() ? loaded : cached);
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        reload.run();
+                    } else {
+                        invalidateProduct(id);
+                        encodedById.invalidate(id);
+                    }
+                }
+            });
+        } else {
+            reload.run();
+        }
+    }
+
+    public List<String> getCategories(Supplier<List<String>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        return categories.get(CATEGORIES_KEY, key -> List.copyOf(loader.get()));
+    }
+
+    public void evict(Long id) {
+        runNowAndAfterCompletion(() -> {
+            invalidateProduct(id);
+            encodedById.invalidate(id);
+        });
+    }
+
+    public void evictAll(Iterable<Long> ids) {
+        runNowAndAfterCompletion(() -> {
+            productEvictions.incrementAndGet();
+            productsById.invalidateAll(ids);
+            encodedById.invalidateAll(ids);
+        });
+    }
+
+    public void evictAllProducts() {
+        runNowAndAfterCompletion(() -> {
+            productEvictions.incrementAndGet();
+            productsById.invalidateAll();
+            encodedById.invalidateAll();
+        });
+    }
+    
+    public void evictCategories() {
+        runNowAndAfterCompletion(() -> categories.invalidate(CATEGORIES_KEY));
+    }
+
+    private void invalidateProduct(Long id) {
+        productEvictions.incrementAndGet();
+        productsById.invalidate(id);
+    }
+
+    private void runNowAndAfterCompletion(Runnable eviction) {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    eviction.run();
+                }
+            });
+        }
+    }
+}
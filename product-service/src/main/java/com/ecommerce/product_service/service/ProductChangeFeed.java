@@ -0,0 +1,228 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.product.config.ProductChangeFeedProperties;
+import com.ecommerce.product.dto.ChangeFeedDTO;
+import com.ecommerce.product.dto.ProductChangeDTO;
+import com.ecommerce.product.dto.ProductDTO;
+import com.ecommerce.product.entity.Product;
+import com.ecommerce.product.event.ProductChangedEvent;
+import com.ecommerce.product.event.ProductStockChangedEvent;
+import com.ecommerce.product.event.ProductsImportedEvent;
+import com.ecommerce.product.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delta sync for downstream replicas. Polling returns products modified after
+ * a watermark in (updatedAt, id) order, with soft-deleted products sent as
+ * DELETE tombstones; rows younger than the settle lag are held back so a slow
+ * commit cannot slip in behind a watermark that was already handed out. Every
+ * write stamps updatedAt with the database clock, and the cutoff is read from
+ * it too, so JVM clock skew cannot move rows across the cutoff.
+ *
+ * Stream subscribers get committed changes pushed as server-sent events whose
+ * id is the watermark, so a reconnect with {@code Last-Event-ID} replays what
+ * was missed. Delivery is at-least-once; replicas should keep the highest
+ * version they have seen per product. Pushes run on one dispatcher thread so a
+ * slow client never holds up a committing request.
+ */
+@Component
+@Slf4j
+public class ProductChangeFeed {
+
+    private static final String SORT_KEY = "updatedAt";
+    private static final Sort.Direction DIRECTION = Sort.Direction.ASC;
+
+    private final ProductRepository productRepository;
+    private final ProductChangeFeedProperties properties;
+    private final Set<SseEmitter> subscribers = ConcurrentHashMap.newKeySet();
+    private final ThreadPoolExecutor dispatcher;
+
+    public ProductChangeFeed(ProductRepository productRepository, ProductChangeFeedProperties properties) {
+        this.productRepository = productRepository;
+        this.properties = properties;
+        this.dispatcher = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getStreamQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "product-change-stream");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (task, executor) -> dropSubscribers());
+    }
+
+    public ChangeFeedDTO changesSince(String since, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, properties.getMaxLimit()));
+        return page(since, pageSize, productRepository.currentTimestamp().minus(properties.getSettleLag()));
+    }
+
+    /**
+     * Opens a stream of committed changes, first replaying everything after
+     * {@code since} when the client is resuming.
+     */
+    public SseEmitter subscribe(String since) {
+        SseEmitter emitter = new SseEmitter(properties.getStreamTimeout().toMillis());
+        emitter.onCompletion(() -> subscribers.remove(emitter));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(ex -> subscribers.remove(emitter));
+
+        // Subscribe before replaying so nothing committed in between is missed
+        subscribers.add(emitter);
+        if (since != null && !since.isBlank()) {
+            KeysetCursor.decode(since, SORT_KEY, DIRECTION);
+            dispatcher.execute(() -> replay(emitter, since));
+        }
+        log.debug("Change stream subscribed, {} subscribers", subscribers.size());
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        ProductChangeDTO change = toChange(event.getProduct());
+        Set<ResponseBodyEmitter.DataWithMediaType> message = SseEmitter.event()
+                .id(change.getWatermark())
+                .name("change")
+                .data(change)
+                .build();
+        dispatcher.execute(() -> broadcast(message));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(ProductStockChangedEvent event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        // No id: stock moves bump updatedAt, so a resumed poll picks them up as upserts
+        Set<ResponseBodyEmitter.DataWithMediaType> message = SseEmitter.event()
+                .name("stock")
+                .data(event.getQuantities())
+                .build();
+        dispatcher.execute(() -> broadcast(message));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsImported(ProductsImportedEvent event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        // Imported rows are not pushed one by one; subscribers poll the feed from their last watermark
+        Set<ResponseBodyEmitter.DataWithMediaType> message = SseEmitter.event()
+                .name("import")
+                .data(Map.of("inserted", event.getInserted(), "updated", event.getUpdated()))
+                .build();
+        dispatcher.execute(() -> broadcast(message));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        subscribers.forEach(SseEmitter::complete);
+    }
+
+    private ChangeFeedDTO page(String since, int pageSize, LocalDateTime cutoff) {
+        Window<Product> window = productRepository.findByUpdatedAtLessThanEqual(cutoff,
+                KeysetCursor.decode(since, SORT_KEY, DIRECTION),
+                KeysetCursor.sort(SORT_KEY, DIRECTION),
+                Limit.of(pageSize));
+
+        List<ProductChangeDTO> changes = window.getContent().stream()
+                .map(ProductChangeFeed::toChange)
+                .toList();
+        return ChangeFeedDTO.builder()
+                .changes(changes)
+                .watermark(changes.isEmpty() ? since : changes.get(changes.size() - 1).getWatermark())
+                .hasMore(window.hasNext())
+                .build();
+    }
+
+    // Runs on the dispatcher, so live changes queued meanwhile follow the replay
+    private void replay(SseEmitter emitter, String since) {
+        String watermark = since;
+        ChangeFeedDTO page;
+        try {
+            do {
+                // No settle lag: anything committed later is pushed live to this subscriber
+                page = page(watermark, properties.getMaxLimit(), productRepository.currentTimestamp());
+                for (ProductChangeDTO change : page.getChanges()) {
+                    emitter.send(SseEmitter.event().id(change.getWatermark()).name("change").data(change));
+                }
+                watermark = page.getWatermark();
+            } while (page.isHasMore());
+        } catch (IOException | IllegalStateException ex) {
+            subscribers.remove(emitter);
+            emitter.completeWithError(ex);
+        }
+    }
+
+    private void broadcast(Set<ResponseBodyEmitter.DataWithMediaType> message) {
+        for (SseEmitter emitter : subscribers) {
+            try {
+                emitter.send(message);
+            } catch (IOException | IllegalStateException ex) {
+                subscribers.remove(emitter);
+                emitter.completeWithError(ex);
+            }
+        }
+    }
+
+    // Subscribers that fell behind reconnect with Last-Event-ID and catch up from the database
+    private void dropSubscribers() {
+        log.warn("Change stream queue full, disconnecting {} subscribers", subscribers.size());
+        subscribers.forEach(SseEmitter::complete);
+        subscribers.clear();
+    }
+
+    private static ProductChangeDTO toChange(Product product) {
+        boolean deleted = Boolean.FALSE.equals(product.getIsActive());
+        LocalDateTime updatedAt = product.getUpdatedAt() != null
+                ? product.getUpdatedAt().truncatedTo(ChronoUnit.MICROS)
+                : null;
+        return ProductChangeDTO.builder()
+                .type(deleted ? ProductChangeDTO.ChangeType.DELETE : ProductChangeDTO.ChangeType.UPSERT)
+                .productId(product.getId())
+                .sku(product.getSku())
+                .version(product.getVersion())
+                .updatedAt(updatedAt)
+                .product(deleted ? null : toDTO(product))
+                .watermark(KeysetCursor.encode(SORT_KEY, DIRECTION, updatedAt, product.getId()))
+                .build();
+    }
+
+    private static ProductDTO toDTO(Product product) {
+        return ProductDTO.builder()
+                .id(product.getId())
+                .sku(product.getSku())
+                .name(product.getName())
+                .description(product.getDescription())
+                .price(product.getPrice())
+                .quantity(product.getQuantity())
+                .category(product.getCategory())
+                .brand(product.getBrand())
+                .imageUrl(product.getImageUrl())
+                .isActive(product.getIsActive())
+                .createdAt(product.getCreatedAt())
+                .updatedAt(product.getUpdatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,113 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.product.config.ProductExportProperties;
+import com.ecommerce.product.dto.ProductDTO;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams products as newline-delimited JSON straight from a forward-only
+ * JDBC result set. Rows are mapped to DTOs one at a time and never enter a
+ * persistence context, so heap use does not grow with the size of the export.
+ *
+ * Must run inside a transaction so the driver keeps its cursor open; on MySQL
+ * a positive fetch size needs {@code useCursorFetch=true} to avoid buffering.
+ */
+@Component
+@Slf4j
+public class ProductExporter {
+
+    private static final String SELECT_PRODUCTS =
+            "SELECT id, sku, name, description, price, quantity, category, brand, image_url, " +
+            "is_active, created_at, updated_at FROM products";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectWriter writer;
+    private final ObjectMapper objectMapper;
+
+    public ProductExporter(DataSource dataSource, ObjectMapper objectMapper, ProductExportProperties properties) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(properties.getFetchSize());
+        this.objectMapper = objectMapper;
+        this.writer = objectMapper.writerFor(ProductDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Writes every matching product in id order, one JSON object per line.
+     *
+     * @return number of products written
+     */
+    public long export(Boolean active, String category, LocalDateTime since, OutputStream out) {
+        StringBuilder sql = new StringBuilder(SELECT_PRODUCTS).append(" WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        if (active != null) {
+            sql.append(" AND is_active = ?");
+            args.add(active);
+        }
+        if (category != null) {
+            sql.append(" AND category = ?");
+            args.add(category);
+        }
+        if (since != null) {
+            sql.append(" AND updated_at >= ?");
+            args.add(Timestamp.valueOf(since));
+        }
+        sql.append(" ORDER BY id");
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            long[] written = {0};
+            jdbcTemplate.query(sql.toString(), rs -> {
+                try {
+                    writer.writeValue(generator, mapRow(rs));
+                    generator.writeRaw('\n');
+                } catch (IOException ex) {
+                    // Typically the client went away; abort the query instead of draining it
+                    throw new UncheckedIOException(ex);
+                }
+                written[0]++;
+            }, args.toArray());
+            generator.flush();
+            log.info("Exported {} products", written[0]);
+            return written[0];
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static ProductDTO mapRow(ResultSet rs) throws SQLException {
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        Timestamp updatedAt = rs.getTimestamp("updated_at");
+        return ProductDTO.builder()
+                .id(rs.getLong("id"))
+                .sku(rs.getString("sku"))
+                .name(rs.getString("name"))
+                .description(rs.getString("description"))
+                .price(rs.getBigDecimal("price"))
+                .quantity(rs.getInt("quantity"))
+                .category(rs.getString("category"))
+                .brand(rs.getString("brand"))
+                .imageUrl(rs.getString("image_url"))
+                .isActive(rs.getObject("is_active") != null ? rs.getBoolean("is_active") : null)
+                .createdAt(createdAt != null ? createdAt.toLocalDateTime() : null)
+                .updatedAt(updatedAt != null ? updatedAt.toLocalDateTime() : null)
+                .build();
+    }
+}
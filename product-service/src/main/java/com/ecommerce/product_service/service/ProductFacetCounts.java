@@ -0,0 +1,332 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.product.config.ProductFacetProperties;
+import com.ecommerce.product.dto.ProductFacetsDTO;
+import com.ecommerce.product.entity.Product;
+import com.ecommerce.product.event.ProductChangedEvent;
+import com.ecommerce.product.event.ProductsImportedEvent;
+import com.ecommerce.product.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Active-product counts per category, per brand and per category x brand,
+ * kept in memory so the storefront can show facet counts without a COUNT per
+ * facet. Each product's last counted (category, brand) is remembered, so a
+ * committed {@link ProductChangedEvent} moves one product between buckets.
+ *
+ * Only the (category, brand) pairs are counted; reads are served from an
+ * immutable snapshot summed from them on the first read after a change, so
+ * its cost depends on the number of facets, not on the number of products.
+ * A background task compares the counts with a GROUP BY over the products
+ * table at {@code product.facets.reconcile-interval} and rebuilds them when
+ * they have drifted. A rebuild counts into new maps that are swapped in when
+ * complete, so reads keep using the current counts meanwhile; after bulk
+ * imports it runs on a background thread.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductFacetCounts {
+
+    private final ProductRepository productRepository;
+    private final ProductFacetProperties properties;
+
+    // Last counted state of every product seen, inactive ones included so a stale build row cannot revive them
+    private Map<Long, Counted> products = new HashMap<>();
+    // Active products by (category, brand), either of which may be null; every facet is summed from it. All guarded by lock
+    private Map<FacetKey, Long> pairCounts = new HashMap<>();
+    // Changes committed while a rebuild runs, replayed onto the new counts before they are swapped in
+    private List<Change> pending;
+    // Bumped on every change, so reconciliation can tell a write raced its query
+    private long writes;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final BackgroundRebuild rebuilds = new BackgroundRebuild("product-facet-rebuild", this::rebuild);
+
+    private volatile ProductFacetsDTO snapshot;
+    private volatile boolean ready;
+    private ScheduledExecutorService reconciler;
+
+    private record FacetKey(String category, String brand) {
+    }
+
+    // key is null while the product is inactive
+    private record Counted(long version, FacetKey key) {
+    }
+
+    private record Change(Long id, long version, FacetKey key) {
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        rebuild();
+
+        long interval = properties.getReconcileInterval().toMillis();
+        reconciler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "product-facet-reconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reconciler.scheduleWithFixedDelay(this::reconcileQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (reconciler != null) {
+            reconciler.shutdownNow();
+        }
+        rebuilds.shutdown();
+    }
+
+    /**
+     * Recounts the active products, one batch per query, into new maps and
+     * swaps them in, replaying the changes committed meanwhile. Facets are
+     * answered by a GROUP BY until the first build is done. Rebuilds run one
+     * at a time.
+     */
+    public synchronized void rebuild() {
+        long started = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            Map<Long, Counted> builtProducts = new HashMap<>();
+            Map<FacetKey, Long> builtPairs = new HashMap<>();
+            int batchSize = properties.getBuildBatchSize();
+            long lastId = 0;
+            List<ProductRepository.FacetSource> batch;
+            do {
+                batch = productRepository.findFacetSourcesByIsActiveTrueAndIdGreaterThanOrderByIdAsc(
+                        lastId, PageRequest.of(0, batchSize));
+                for (ProductRepository.FacetSource source : batch) {
+                    count(builtProducts, builtPairs, source.getId(), versionOf(source.getVersion()),
+                          new FacetKey(source.getCategory(), source.getBrand()));
+                }
+                if (!batch.isEmpty()) {
+                    lastId = batch.get(batch.size() - 1).getId();
+                }
+            } while (batch.size() == batchSize);
+            int counted = builtProducts.size();
+
+            lock.writeLock().lock();
+            try {
+                // The version check keeps whichever of the row and the event is newer
+                pending.forEach(change -> count(builtProducts, builtPairs, change.id(), change.version(), change.key()));
+                products = builtProducts;
+                pairCounts = builtPairs;
+                changedLocked();
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Product facet counts built: {} active products in {} ms",
+                     counted, System.currentTimeMillis() - started);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        Product product = event.getProduct();
+        FacetKey key = Boolean.TRUE.equals(product.getIsActive())
+                ? new FacetKey(product.getCategory(), product.getBrand())
+                : null;
+        long version = versionOf(product.getVersion());
+        lock.writeLock().lock();
+        try {
+            if (count(products, pairCounts, product.getId(), version, key)) {
+                changedLocked();
+            }
+            if (pending != null) {
+                pending.add(new Change(product.getId(), version, key));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Bulk imports bypass per-product events, so reload everything, off the importing request's thread
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsImported(ProductsImportedEvent event) {
+        if (properties.isEnabled()) {
+            rebuilds.request();
+        }
+    }
+
+    /**
+     * Current facet counts. Until the in-memory counts are ready (or when they
+     * are disabled) they come from one GROUP BY over the products table.
+     */
+    public ProductFacetsDTO facets() {
+        if (!ready) {
+            return toFacets(countsFromDatabase());
+        }
+        ProductFacetsDTO current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        lock.readLock().lock();
+        try {
+            // Assigned under the read lock, so a write can only invalidate it afterwards
+            current = toFacets(pairCounts);
+            snapshot = current;
+            return current;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Compares the counts with the products table and rebuilds them when they
+     * differ, which means a change reached the table without an event (a
+     * direct SQL edit, or a listener that failed). A round in which a write
+     * was counted while the query ran is skipped rather than judged.
+     */
+    public void reconcile() {
+        if (!ready) {
+            return;
+        }
+        long writesBefore = writeCount();
+        Map<FacetKey, Long> expected = countsFromDatabase();
+        boolean drifted;
+        lock.readLock().lock();
+        try {
+            if (writes != writesBefore) {
+                log.debug("Skipping facet reconciliation, products changed while it ran");
+                return;
+            }
+            drifted = !expected.equals(pairCounts);
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (drifted) {
+            log.warn("Product facet counts drifted from the products table, rebuilding");
+            rebuild();
+        }
+    }
+
+    private void reconcileQuietly() {
+        try {
+            reconcile();
+        } catch (RuntimeException ex) {
+            log.warn("Product facet reconciliation failed: {}", ex.getMessage());
+        }
+    }
+
+    // Moves one product between buckets; false when a newer version was already counted
+    private static boolean count(Map<Long, Counted> products, Map<FacetKey, Long> pairCounts,
+                                 Long id, long version, FacetKey key) {
+        Counted previous = products.get(id);
+        if (previous != null) {
+            if (previous.version() > version) {
+                // A newer write already reached the counts (e.g. during a build)
+                return false;
+            }
+            if (previous.key() != null) {
+                pairCounts.merge(previous.key(), -1L, ProductFacetCounts::sumOrRemove);
+            }
+        }
+        if (key != null) {
+            pairCounts.merge(key, 1L, ProductFacetCounts::sumOrRemove);
+        }
+        products.put(id, new Counted(version, key));
+        return true;
+    }
+
+    // Caller holds the write lock
+    private void changedLocked() {
+        writes++;
+        snapshot = null;
+    }
+
+    private Map<FacetKey, Long> countsFromDatabase() {
+        Map<FacetKey, Long> counts = new HashMap<>();
+        for (ProductRepository.FacetCount row : productRepository.countActiveByCategoryAndBrand()) {
+            counts.put(new FacetKey(row.getCategory(), row.getBrand()), row.getProducts());
+        }
+        return counts;
+    }
+
+    // Products without a category or brand count toward the total only
+    private static ProductFacetsDTO toFacets(Map<FacetKey, Long> pairs) {
+        long total = 0;
+        Map<String, Long> categories = new TreeMap<>();
+        Map<String, Long> brands = new TreeMap<>();
+        Map<String, Map<String, Long>> categoryBrands = new TreeMap<>();
+        for (Map.Entry<FacetKey, Long> entry : pairs.entrySet()) {
+            FacetKey key = entry.getKey();
+            long count = entry.getValue();
+            total += count;
+            if (key.category() != null) {
+                categories.merge(key.category(), count, Long::sum);
+            }
+            if (key.brand() != null) {
+                brands.merge(key.brand(), count, Long::sum);
+            }
+            if (key.category() != null && key.brand() != null) {
+                categoryBrands.computeIfAbsent(key.category(), category -> new TreeMap<>())
+                        .put(key.brand(), count);
+            }
+        }
+        categoryBrands.replaceAll((category, counts) -> Collections.unmodifiableMap(counts));
+        return ProductFacetsDTO.builder()
+                .totalActive(total)
+                .categories(Collections.unmodifiableMap(categories))
+                .brands(Collections.unmodifiableMap(brands))
+                .categoryBrands(Collections.unmodifiableMap(categoryBrands))
+                .build();
+    }
+
+    private static Long sumOrRemove(Long current, Long delta) {
+        long sum = current + delta;
+        return sum > 0 ? sum : null;
+    }
+
+    private static long versionOf(Long version) {
+        return version != null ? version : 0L;
+    }
+
+    private long writeCount() {
+        lock.readLock().lock();
+        try {
+            return writes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,446 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.product.config.ProductImportProperties;
+import com.ecommerce.product.dto.ImportResultDTO;
+import com.ecommerce.product.dto.ProductDTO;
+import com.ecommerce.product.exception.InvalidImportException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk loader for supplier catalogs. Rows are parsed from a CSV or NDJSON
+ * stream, validated like the create endpoint, checked for duplicate SKUs
+ * against an in-memory set of every SKU in the table, and written with JDBC
+ * batches, one transaction per chunk. A chunk the database rejects is retried
+ * row by row so only the offending rows are reported; the load carries on.
+ *
+ * In upsert mode a known SKU updates the existing row instead of failing.
+ * While the stock reservation ledger is enabled it owns quantities, so upserts
+ * leave quantity alone. On MySQL, {@code rewriteBatchedStatements=true} turns
+ * each batch into multi-row statements.
+ */
+@Component
+@Slf4j
+public class ProductImporter {
+
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    // Stamped by the database clock, like every other write the change feed orders by
+    private static final String INSERT_SQL =
+            "INSERT INTO products (sku, name, description, price, quantity, category, brand, image_url, " +
+            "is_active, created_at, updated_at, version) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 0)";
+    private static final String UPDATE_SQL =
+            "UPDATE products SET name = ?, description = ?, price = ?, quantity = ?, category = ?, brand = ?, " +
+            "image_url = ?, is_active = ?, updated_at = CURRENT_TIMESTAMP, version = version + 1 WHERE sku = ?";
+    private static final String UPDATE_KEEPING_QUANTITY_SQL =
+            "UPDATE products SET name = ?, description = ?, price = ?, category = ?, brand = ?, " +
+            "image_url = ?, is_active = ?, updated_at = CURRENT_TIMESTAMP, version = version + 1 WHERE sku = ?";
+
+    // CSV header names, matched case-insensitively against the ProductDTO properties
+    private static final List<String> CSV_COLUMNS = List.of(
+            "sku", "name", "description", "price", "quantity", "category", "brand", "imageurl", "isactive");
+    private static final List<String> REQUIRED_CSV_COLUMNS = List.of("sku", "name", "price", "quantity", "category");
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final ProductImportProperties properties;
+    private final boolean keepQuantity;
+
+    public ProductImporter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                           ObjectMapper objectMapper, Validator validator, ProductImportProperties properties,
+                           Optional<StockReservationLedger> reservationLedger) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.properties = properties;
+        this.keepQuantity = reservationLedger.isPresent();
+    }
+
+    public ImportResultDTO importProducts(InputStream in, Format format, boolean upsert) {
+        long started = System.currentTimeMillis();
+        Load load = new Load(upsert, loadSkus());
+
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(in, StandardCharsets.UTF_8), READ_BUFFER_SIZE)) {
+            if (format == Format.CSV) {
+                readCsv(reader, load);
+            } else {
+                readNdjson(reader, load);
+            }
+            load.flush();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        long duration = System.currentTimeMillis() - started;
+        log.info("Imported {} rows in {} ms: {} inserted, {} updated, {} failed",
+                 load.totalRows, duration, load.inserted, load.updated, load.failed);
+        return ImportResultDTO.builder()
+                .totalRows(load.totalRows)
+                .inserted(load.inserted)
+                .updated(load.updated)
+                .failed(load.failed)
+                .durationMs(duration)
+                .errors(load.errors)
+                .errorsTruncated(load.failed > load.errors.size())
+                .build();
+    }
+
+    private Set<String> loadSkus() {
+        Set<String> skus = new HashSet<>();
+        jdbcTemplate.query("SELECT sku FROM products", rs -> {
+            skus.add(rs.getString(1));
+        });
+        return skus;
+    }
+
+    private void readCsv(Reader reader, Load load) throws IOException {
+        CsvReader csv = new CsvReader(reader);
+        List<String> header = csv.next();
+        if (header == null) {
+            return;
+        }
+
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String column = header.get(i).trim().toLowerCase(Locale.ROOT);
+            if (!CSV_COLUMNS.contains(column)) {
+                throw new InvalidImportException("Unknown CSV column: " + header.get(i));
+            }
+            columns.put(column, i);
+        }
+        for (String required : REQUIRED_CSV_COLUMNS) {
+            if (!columns.containsKey(required)) {
+                throw new InvalidImportException("Missing CSV column: " + required);
+            }
+        }
+
+        List<String> record;
+        while ((record = csv.next()) != null) {
+            if (record.size() == 1 && record.get(0).isBlank()) {
+                continue;
+            }
+            long line = csv.recordLine();
+            load.totalRows++;
+            if (record.size() != header.size()) {
+                load.reject(line, null, "Expected " + header.size() + " fields but found " + record.size());
+                continue;
+            }
+            ProductDTO product;
+            try {
+                product = toProduct(record, columns);
+            } catch (IllegalArgumentException ex) {
+                load.reject(line, field(record, columns, "sku"), ex.getMessage());
+                continue;
+            }
+            load.accept(line, product);
+        }
+    }
+
+    private void readNdjson(BufferedReader reader, Load load) throws IOException {
+        long line = 0;
+        String text;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (text.isBlank()) {
+                continue;
+            }
+            load.totalRows++;
+            ProductDTO product;
+            try {
+                product = objectMapper.readValue(text, ProductDTO.class);
+            } catch (JsonProcessingException ex) {
+                load.reject(line, null, "Malformed JSON: " + ex.getOriginalMessage());
+                continue;
+            }
+            load.accept(line, product);
+        }
+    }
+
+    private static ProductDTO toProduct(List<String> record, Map<String, Integer> columns) {
+        return ProductDTO.builder()
+                .sku(field(record, columns, "sku"))
+                .name(field(record, columns, "name"))
+                .description(field(record, columns, "description"))
+                .price(parse(record, columns, "price", BigDecimal::new))
+                .quantity(parse(record, columns, "quantity", Integer::valueOf))
+                .category(field(record, columns, "category"))
+                .brand(field(record, columns, "brand"))
+                .imageUrl(field(record, columns, "imageurl"))
+                .isActive(parse(record, columns, "isactive", ProductImporter::parseBoolean))
+                .build();
+    }
+
+    // Blank cells read as null
+    private static String field(List<String> record, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static <T> T parse(List<String> record, Map<String, Integer> columns, String column,
+                               Function<String, T> parser) {
+        String value = field(record, columns, column);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return parser.apply(value);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid value for " + column + ": " + value);
+        }
+    }
+
+    private static Boolean parseBoolean(String value) {
+        if (value.equalsIgnoreCase("true") || value.equals("1")) {
+            return true;
+        }
+        if (value.equalsIgnoreCase("false") || value.equals("0")) {
+            return false;
+        }
+        throw new IllegalArgumentException(value);
+    }
+
+    private record PendingRow(long line, ProductDTO product) {
+    }
+
+    /**
+     * State of one import: the known SKUs, the chunk being collected and the
+     * running counts.
+     */
+    private final class Load {
+
+        private final boolean upsert;
+        private final Set<String> skus;
+        private final List<PendingRow> inserts = new ArrayList<>();
+        private final List<PendingRow> updates = new ArrayList<>();
+        private final List<ImportResultDTO.RowError> errors = new ArrayList<>();
+
+        private long totalRows;
+        private long inserted;
+        private long updated;
+        private long failed;
+
+        Load(boolean upsert, Set<String> skus) {
+            this.upsert = upsert;
+            this.skus = skus;
+        }
+
+        void accept(long line, ProductDTO product) {
+            Set<ConstraintViolation<ProductDTO>> violations = validator.validate(product);
+            if (!violations.isEmpty()) {
+                reject(line, product.getSku(), violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining("; ")));
+                return;
+            }
+
+            // Covers both rows already in the table and earlier rows of this file
+            if (skus.add(product.getSku())) {
+                inserts.add(new PendingRow(line, product));
+            } else if (upsert) {
+                updates.add(new PendingRow(line, product));
+            } else {
+                reject(line, product.getSku(), "Product with SKU " + product.getSku() + " already exists");
+                return;
+            }
+
+            if (inserts.size() + updates.size() >= properties.getChunkSize()) {
+                flush();
+            }
+        }
+
+        void reject(long line, String sku, String message) {
+            failed++;
+            if (errors.size() < properties.getMaxReportedErrors()) {
+                errors.add(new ImportResultDTO.RowError(line, sku, message));
+            }
+        }
+
+        // Inserts go first so a SKU inserted and then upserted within one chunk ends up updated
+        void flush() {
+            if (inserts.isEmpty() && updates.isEmpty()) {
+                return;
+            }
+            try {
+                int[] updateResults = transactionTemplate.execute(status -> {
+                    jdbcTemplate.batchUpdate(INSERT_SQL, insertArgs(inserts));
+                    return jdbcTemplate.batchUpdate(updateSql(), updateArgs(updates));
+                });
+                inserted += inserts.size();
+                for (int i = 0; i < updates.size(); i++) {
+                    countUpdate(updates.get(i), updateResults[i]);
+                }
+            } catch (DataAccessException ex) {
+                log.warn("Import chunk rejected, retrying {} rows one by one: {}",
+                         inserts.size() + updates.size(), ex.getMostSpecificCause().getMessage());
+                inserts.forEach(row -> writeRow(row, INSERT_SQL, insertArgs(List.of(row)).get(0), true));
+                updates.forEach(row -> writeRow(row, updateSql(), updateArgs(List.of(row)).get(0), false));
+            }
+            inserts.clear();
+            updates.clear();
+        }
+
+        private void writeRow(PendingRow row, String sql, Object[] args, boolean insert) {
+            try {
+                int rows = transactionTemplate.execute(status -> jdbcTemplate.update(sql, args));
+                if (insert) {
+                    inserted++;
+                } else {
+                    countUpdate(row, rows);
+                }
+            } catch (DataAccessException ex) {
+                if (insert) {
+                    // Not in the table after all, so a later row with this SKU is an insert again
+                    skus.remove(row.product().getSku());
+                }
+                reject(row.line(), row.product().getSku(), ex.getMostSpecificCause().getMessage());
+            }
+        }
+
+        // Rewritten MySQL batches report SUCCESS_NO_INFO (-2) instead of a row count, so only 0 means no match
+        private void countUpdate(PendingRow row, int rows) {
+            if (rows == 0) {
+                String sku = row.product().getSku();
+                reject(row.line(), sku, "No product with SKU " + sku + " to update");
+            } else {
+                updated++;
+            }
+        }
+    }
+
+    private String updateSql() {
+        return keepQuantity ? UPDATE_KEEPING_QUANTITY_SQL : UPDATE_SQL;
+    }
+
+    private static List<Object[]> insertArgs(List<PendingRow> rows) {
+        List<Object[]> args = new ArrayList<>(rows.size());
+        for (PendingRow row : rows) {
+            ProductDTO p = row.product();
+            args.add(new Object[]{p.getSku(), p.getName(), p.getDescription(), p.getPrice(), p.getQuantity(),
+                    p.getCategory(), p.getBrand(), p.getImageUrl(), isActive(p)});
+        }
+        return args;
+    }
+
+    private List<Object[]> updateArgs(List<PendingRow> rows) {
+        List<Object[]> args = new ArrayList<>(rows.size());
+        for (PendingRow row : rows) {
+            ProductDTO p = row.product();
+            args.add(keepQuantity
+                    ? new Object[]{p.getName(), p.getDescription(), p.getPrice(), p.getCategory(), p.getBrand(),
+                            p.getImageUrl(), isActive(p), p.getSku()}
+                    : new Object[]{p.getName(), p.getDescription(), p.getPrice(), p.getQuantity(), p.getCategory(),
+                            p.getBrand(), p.getImageUrl(), isActive(p), p.getSku()});
+        }
+        return args;
+    }
+
+    private static boolean isActive(ProductDTO product) {
+        return product.getIsActive() == null || product.getIsActive();
+    }
+
+    /**
+     * Minimal RFC 4180 reader: comma separated, double-quoted fields may hold
+     * commas, line breaks and doubled quotes.
+     */
+    static final class CsvReader {
+
+        private final Reader reader;
+        private long line = 1;
+        private long recordLine;
+
+        CsvReader(Reader reader) {
+            this.reader = reader;
+        }
+
+        long recordLine() {
+            return recordLine;
+        }
+
+        List<String> next() throws IOException {
+            int c = reader.read();
+            if (c == -1) {
+                return null;
+            }
+            recordLine = line;
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c == -1) {
+                        throw new InvalidImportException("Unterminated quoted field starting on line " + recordLine);
+                    }
+                    if (c == '"') {
+                        int next = reader.read();
+                        if (next != '"') {
+                            quoted = false;
+                            c = next;
+                            continue;
+                        }
+                        field.append('"');
+                    } else {
+                        if (c == '\n') {
+                            line++;
+                        }
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n' || c == -1) {
+                    fields.add(field.toString());
+                    if (c == '\n') {
+                        line++;
+                    }
+                    return fields;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+                c = reader.read();
+            }
+        }
+    }
+}
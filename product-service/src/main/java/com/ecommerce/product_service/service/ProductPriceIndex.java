@@ -0,0 +1,388 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.product.config.ProductPriceIndexProperties;
+import com.ecommerce.product.entity.Product;
+import com.ecommerce.product.event.ProductChangedEvent;
+import com.ecommerce.product.event.ProductsImportedEvent;
+import com.ecommerce.product.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process index of product prices for range queries. Prices are held as
+ * long cents in one sorted array, ordered by (price, id), with the product
+ * ids, active flags and category codes in parallel arrays, so a range is two
+ * binary searches and filtering a range never touches an entity.
+ *
+ * Writes shift the arrays in place, which suits a catalog read far more often
+ * than it is edited. The index is built from the products table once the
+ * application is ready and kept current from committed
+ * {@link ProductChangedEvent}s, like {@link ProductSearchIndex}, and rebuilt
+ * in the background after bulk imports.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductPriceIndex {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    // Category code for products without one
+    private static final int NO_CATEGORY = 0;
+
+    private final ProductRepository productRepository;
+    private final ProductPriceIndexProperties properties;
+
+    // Parallel arrays sorted by (prices, ids); the first size slots are in use. All guarded by lock
+    private long[] prices = new long[INITIAL_CAPACITY];
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private boolean[] active = new boolean[INITIAL_CAPACITY];
+    private int[] categories = new int[INITIAL_CAPACITY];
+    private int size;
+    private Map<Long, IndexedPrice> products = new HashMap<>();
+    private Map<String, Integer> categoryCodes = new HashMap<>();
+    // Changes committed while a rebuild runs, replayed onto the new arrays before they are swapped in
+    private List<Product> pending;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final BackgroundRebuild rebuilds = new BackgroundRebuild("product-price-rebuild", this::rebuild);
+
+    private volatile boolean ready;
+
+    /**
+     * One page of a range query: the ids on the page, in price order, and how
+     * many products matched in all.
+     */
+    public record PriceRangeHits(List<Long> productIds, long total) {
+    }
+
+    private record IndexedPrice(long version, long cents) {
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (properties.isEnabled()) {
+            rebuild();
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        rebuilds.shutdown();
+    }
+
+    /**
+     * Loads every product in id order, one batch per query, sorts them once
+     * into fresh arrays and swaps those in, replaying the changes committed
+     * meanwhile. Range queries use the current arrays until then, or the
+     * database before the first build. Rebuilds run one at a time.
+     */
+    public synchronized void rebuild() {
+        long started = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            Build build = new Build();
+            int batchSize = properties.getBuildBatchSize();
+            long lastId = 0;
+            List<Product> batch;
+            do {
+                batch = productRepository.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, batchSize));
+                batch.forEach(build::add);
+                if (!batch.isEmpty()) {
+                    lastId = batch.get(batch.size() - 1).getId();
+                }
+            } while (batch.size() == batchSize);
+            build.sort();
+
+            lock.writeLock().lock();
+            try {
+                prices = build.prices;
+                ids = build.ids;
+                active = build.active;
+                categories = build.categoryCodes;
+                size = build.size;
+                products = build.products;
+                categoryCodes = build.codes;
+                // The version check keeps whichever of the row and the event is newer
+                pending.forEach(this::indexLocked);
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Product price index built: {} products, {} categories in {} ms",
+                     build.size, build.codes.size(), System.currentTimeMillis() - started);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            indexLocked(event.getProduct());
+            if (pending != null) {
+                pending.add(event.getProduct());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Bulk imports bypass per-product events, so reload everything, off the importing request's thread
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsImported(ProductsImportedEvent event) {
+        if (properties.isEnabled()) {
+            rebuilds.request();
+        }
+    }
+
+    /**
+     * Products priced from {@code minCents} to {@code maxCents} inclusive,
+     * cheapest first with ties in id order, optionally only active ones and
+     * only those in {@code category} (matched exactly, as the category
+     * listing does). Returns the ids from {@code offset} on, at most
+     * {@code limit} of them, with the total match count.
+     */
+    public PriceRangeHits find(long minCents, long maxCents, boolean activeOnly, String category,
+                               long offset, int limit) {
+        lock.readLock().lock();
+        try {
+            int from = firstSlot(minCents, true);
+            int to = firstSlot(maxCents, false);
+            if (from >= to) {
+                return new PriceRangeHits(List.of(), 0);
+            }
+
+            Integer categoryCode = null;
+            if (category != null) {
+                categoryCode = categoryCodes.get(category);
+                if (categoryCode == null) {
+                    return new PriceRangeHits(List.of(), 0);
+                }
+            }
+
+            List<Long> page = new ArrayList<>(Math.min(limit, to - from));
+            if (!activeOnly && categoryCode == null) {
+                // Unfiltered: the range bounds are the count and the page is a slice
+                for (int i = (int) Math.min(to, from + offset); i < to && page.size() < limit; i++) {
+                    page.add(ids[i]);
+                }
+                return new PriceRangeHits(page, to - from);
+            }
+
+            long matched = 0;
+            for (int i = from; i < to; i++) {
+                if ((activeOnly && !active[i]) || (categoryCode != null && categories[i] != categoryCode)) {
+                    continue;
+                }
+                if (matched >= offset && page.size() < limit) {
+                    page.add(ids[i]);
+                }
+                matched++;
+            }
+            return new PriceRangeHits(page, matched);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * A price as whole cents, rounded the given way and clamped to the long
+     * range, so query bounds of any scale or size select exactly the stored
+     * two-decimal prices they cover.
+     */
+    public static long toCents(BigDecimal price, RoundingMode rounding) {
+        BigDecimal cents = price.setScale(2, rounding).movePointRight(2);
+        try {
+            return cents.longValueExact();
+        } catch (ArithmeticException ex) {
+            return cents.signum() > 0 ? Long.MAX_VALUE : Long.MIN_VALUE;
+        }
+    }
+
+    // Caller holds the write lock
+    private void indexLocked(Product product) {
+        long version = product.getVersion() != null ? product.getVersion() : 0L;
+        IndexedPrice previous = products.get(product.getId());
+        if (previous != null) {
+            if (previous.version() > version) {
+                // A newer write already reached the index (e.g. during the startup build)
+                return;
+            }
+            removeAt(position(previous.cents(), product.getId()));
+        }
+
+        long cents = toCents(product.getPrice(), RoundingMode.HALF_UP);
+        int at = position(cents, product.getId());
+        ensureCapacity(size + 1);
+        int tail = size - at;
+        System.arraycopy(prices, at, prices, at + 1, tail);
+        System.arraycopy(ids, at, ids, at + 1, tail);
+        System.arraycopy(active, at, active, at + 1, tail);
+        System.arraycopy(categories, at, categories, at + 1, tail);
+        set(at, cents, product);
+        size++;
+        products.put(product.getId(), new IndexedPrice(version, cents));
+    }
+
+    private void set(int at, long cents, Product product) {
+        prices[at] = cents;
+        ids[at] = product.getId();
+        active[at] = Boolean.TRUE.equals(product.getIsActive());
+        categories[at] = categoryCode(product.getCategory());
+    }
+
+    private void removeAt(int at) {
+        int tail = size - at - 1;
+        System.arraycopy(prices, at + 1, prices, at, tail);
+        System.arraycopy(ids, at + 1, ids, at, tail);
+        System.arraycopy(active, at + 1, active, at, tail);
+        System.arraycopy(categories, at + 1, categories, at, tail);
+        size--;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > prices.length) {
+            int grown = Math.max(capacity, prices.length + prices.length / 2);
+            prices = Arrays.copyOf(prices, grown);
+            ids = Arrays.copyOf(ids, grown);
+            active = Arrays.copyOf(active, grown);
+            categories = Arrays.copyOf(categories, grown);
+        }
+    }
+
+    // Categories are few, so each is stored once and referenced by code
+    private int categoryCode(String category) {
+        return category == null ? NO_CATEGORY : categoryCodes.computeIfAbsent(category, key -> categoryCodes.size() + 1);
+    }
+
+    // Slot of (cents, id) if present, otherwise where it would be inserted
+    private int position(long cents, long id) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(prices[mid], ids[mid], cents, id) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // First slot priced at or above cents when inclusive, otherwise first slot priced above it
+    private int firstSlot(long cents, boolean inclusive) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (inclusive ? prices[mid] < cents : prices[mid] <= cents) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int compare(long cents, long id, long otherCents, long otherId) {
+        return cents != otherCents ? Long.compare(cents, otherCents) : Long.compare(id, otherId);
+    }
+
+    /**
+     * The rows a rebuild has loaded, in id order until {@link #sort()} turns
+     * them into index arrays.
+     */
+    private static final class Build {
+
+        private long[] prices = new long[INITIAL_CAPACITY];
+        private long[] ids = new long[INITIAL_CAPACITY];
+        private boolean[] active = new boolean[INITIAL_CAPACITY];
+        private int[] categoryCodes;
+        private String[] categoryNames = new String[INITIAL_CAPACITY];
+        private long[] versions = new long[INITIAL_CAPACITY];
+        private int size;
+        private final Map<Long, IndexedPrice> products = new HashMap<>();
+        private final Map<String, Integer> codes = new HashMap<>();
+
+        void add(Product product) {
+            if (size == prices.length) {
+                int grown = prices.length + prices.length / 2;
+                prices = Arrays.copyOf(prices, grown);
+                ids = Arrays.copyOf(ids, grown);
+                active = Arrays.copyOf(active, grown);
+                categoryNames = Arrays.copyOf(categoryNames, grown);
+                versions = Arrays.copyOf(versions, grown);
+            }
+            prices[size] = toCents(product.getPrice(), RoundingMode.HALF_UP);
+            ids[size] = product.getId();
+            active[size] = Boolean.TRUE.equals(product.getIsActive());
+            categoryNames[size] = product.getCategory();
+            versions[size] = product.getVersion() != null ? product.getVersion() : 0L;
+            size++;
+        }
+
+        // One sort over all rows, leaving headroom for the inserts that follow
+        void sort() {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> compare(prices[a], ids[a], prices[b], ids[b]));
+
+            int capacity = Math.max(INITIAL_CAPACITY, size + size / 2);
+            long[] sortedPrices = new long[capacity];
+            long[] sortedIds = new long[capacity];
+            boolean[] sortedActive = new boolean[capacity];
+            int[] sortedCategories = new int[capacity];
+            for (int out = 0; out < size; out++) {
+                int row = order[out];
+                sortedPrices[out] = prices[row];
+                sortedIds[out] = ids[row];
+                sortedActive[out] = active[row];
+                String category = categoryNames[row];
+                sortedCategories[out] = category == null
+                        ? NO_CATEGORY
+                        : codes.computeIfAbsent(category, key -> codes.size() + 1);
+                products.put(ids[row], new IndexedPrice(versions[row], prices[row]));
+            }
+            prices = sortedPrices;
+            ids = sortedIds;
+            active = sortedActive;
+            categoryCodes = sortedCategories;
+            categoryNames = null;
+            versions = null;
+        }
+    }
+}
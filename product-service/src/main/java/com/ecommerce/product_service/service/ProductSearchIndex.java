@@ -0,0 +1,290 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.product.config.ProductSearchProperties;
+import com.ecommerce.product.entity.Product;
+import com.ecommerce.product.event.ProductChangedEvent;
+import com.ecommerce.product.event.ProductsImportedEvent;
+import com.ecommerce.product.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-process inverted index over product name, description, category and
+ * brand. Text is accent-folded, lower-cased and split on anything that is not
+ * a letter or digit; every query token matches indexed terms by prefix, and a
+ * product must match all tokens.
+ *
+ * Scores weight the field a term came from (name highest, description lowest)
+ * by how rare the term is, and exact term matches outrank prefix matches.
+ * The index is built from the products table once the application is ready
+ * and kept current from committed {@link ProductChangedEvent}s. Bulk imports
+ * rebuild it on a background thread into a new index that is swapped in when
+ * complete; searches use the current one meanwhile.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSearchIndex {
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private static final float NAME_WEIGHT = 3.0f;
+    private static final float BRAND_WEIGHT = 2.0f;
+    private static final float CATEGORY_WEIGHT = 2.0f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+    private static final float PREFIX_MATCH_FACTOR = 0.5f;
+
+    private final ProductRepository productRepository;
+    private final ProductSearchProperties properties;
+
+    // Replaced whole by a rebuild; guarded by lock, as is pending
+    private Postings index = new Postings();
+    // Changes committed while a rebuild runs, replayed onto the new index before it is swapped in
+    private List<Product> pending;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final BackgroundRebuild rebuilds = new BackgroundRebuild("product-search-rebuild", this::rebuild);
+
+    private volatile boolean ready;
+
+    public record SearchHit(Long productId, float score) {
+    }
+
+    private record IndexedProduct(long version, Set<String> terms) {
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (properties.isIndexEnabled()) {
+            rebuild();
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        rebuilds.shutdown();
+    }
+
+    /**
+     * Loads every product in id order, one batch per query, into a new index
+     * and swaps it in, replaying the changes committed meanwhile. Searches
+     * fall back to the database until the first build is done. Rebuilds run
+     * one at a time.
+     */
+    public synchronized void rebuild() {
+        long started = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            Postings built = new Postings();
+            int batchSize = properties.getBuildBatchSize();
+            long lastId = 0;
+            List<Product> batch;
+            do {
+                batch = productRepository.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, batchSize));
+                batch.forEach(built::index);
+                if (!batch.isEmpty()) {
+                    lastId = batch.get(batch.size() - 1).getId();
+                }
+            } while (batch.size() == batchSize);
+
+            lock.writeLock().lock();
+            try {
+                // The version check keeps whichever of the row and the event is newer
+                pending.forEach(built::index);
+                index = built;
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Product search index built: {} products, {} terms in {} ms",
+                     built.products.size(), built.terms.size(), System.currentTimeMillis() - started);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            index.index(event.getProduct());
+            if (pending != null) {
+                pending.add(event.getProduct());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Bulk imports bypass per-product events, so reload everything, off the importing request's thread
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsImported(ProductsImportedEvent event) {
+        if (properties.isIndexEnabled()) {
+            rebuilds.request();
+        }
+    }
+
+    /**
+     * Ranks all products matching every token of the query, best first, ties
+     * broken by ascending id so pages are stable.
+     */
+    public List<SearchHit> search(String query) {
+        List<String> tokens = new ArrayList<>(tokenize(query));
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Postings current = index;
+            int documents = current.products.size();
+            Map<Long, Float> scores = null;
+            for (String token : tokens) {
+                Map<Long, Float> tokenScores = scoreToken(current, token, documents);
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    // AND semantics: keep only products matched by every token
+                    Map<Long, Float> previous = scores;
+                    scores = new HashMap<>();
+                    for (Map.Entry<Long, Float> entry : tokenScores.entrySet()) {
+                        Float score = previous.get(entry.getKey());
+                        if (score != null) {
+                            scores.put(entry.getKey(), score + entry.getValue());
+                        }
+                    }
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            List<SearchHit> hits = new ArrayList<>(scores.size());
+            scores.forEach((id, score) -> hits.add(new SearchHit(id, score)));
+            hits.sort(Comparator.comparing(SearchHit::score).reversed().thenComparing(SearchHit::productId));
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Best match per product for one query token, over every term it prefixes
+    private static Map<Long, Float> scoreToken(Postings current, String token, int documents) {
+        Map<Long, Float> tokenScores = new HashMap<>();
+        for (Map.Entry<String, Map<Long, Float>> term : current.prefixRange(token).entrySet()) {
+            Map<Long, Float> termPostings = term.getValue();
+            float idf = (float) Math.log(1.0 + (double) documents / termPostings.size());
+            float factor = term.getKey().equals(token) ? 1.0f : PREFIX_MATCH_FACTOR;
+            for (Map.Entry<Long, Float> posting : termPostings.entrySet()) {
+                tokenScores.merge(posting.getKey(), posting.getValue() * idf * factor, Math::max);
+            }
+        }
+        return tokenScores;
+    }
+
+    // A term found in several fields scores the sum of their weights
+    private static void addField(Map<String, Float> weights, String text, float weight) {
+        for (String term : tokenize(text)) {
+            weights.merge(term, weight, Float::sum);
+        }
+    }
+
+    static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (text == null || text.isBlank()) {
+            return tokens;
+        }
+        String folded = COMBINING_MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        for (String token : SEPARATORS.split(folded)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * The postings and the terms each product contributed. Accessed under the
+     * index lock, or by a rebuild before it is published.
+     */
+    private static final class Postings {
+
+        // term -> (productId -> field weight)
+        private final NavigableMap<String, Map<Long, Float>> terms = new TreeMap<>();
+        private final Map<Long, IndexedProduct> products = new HashMap<>();
+
+        void index(Product product) {
+            long version = product.getVersion() != null ? product.getVersion() : 0L;
+            IndexedProduct previous = products.get(product.getId());
+            if (previous != null) {
+                if (previous.version() > version) {
+                    // A newer write already reached the index (e.g. during a build)
+                    return;
+                }
+                previous.terms().forEach(term -> removePosting(term, product.getId()));
+            }
+
+            Map<String, Float> weights = new HashMap<>();
+            addField(weights, product.getName(), NAME_WEIGHT);
+            addField(weights, product.getBrand(), BRAND_WEIGHT);
+            addField(weights, product.getCategory(), CATEGORY_WEIGHT);
+            addField(weights, product.getDescription(), DESCRIPTION_WEIGHT);
+
+            weights.forEach((term, weight) ->
+                    terms.computeIfAbsent(term, key -> new HashMap<>()).put(product.getId(), weight));
+            products.put(product.getId(), new IndexedProduct(version, weights.keySet()));
+        }
+
+        NavigableMap<String, Map<Long, Float>> prefixRange(String prefix) {
+            return terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        }
+
+        private void removePosting(String term, Long productId) {
+            Map<Long, Float> termPostings = terms.get(term);
+            if (termPostings != null) {
+                termPostings.remove(productId);
+                if (termPostings.isEmpty()) {
+                    terms.remove(term);
+                }
+            }
+        }
+    }
+}
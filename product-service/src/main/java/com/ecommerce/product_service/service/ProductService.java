@@ -1,27 +1,51 @@
 package com.ecommerce.product.service;
 
+import com.ecommerce.product.dto.BatchStockDTO;
+import com.ecommerce.product.dto.ChangeFeedDTO;
+import com.ecommerce.product.dto.ImportResultDTO;
+import com.ecommerce.product.dto.CursorPageDTO;
 import com.ecommerce.product.dto.ProductDTO;
+import com.ecommerce.product.dto.ProductFacetsDTO;
 import com.ecommerce.product.dto.ProductUpdateDTO;
+import com.ecommerce.product.dto.StockAvailabilityDTO;
 import com.ecommerce.product.dto.StockUpdateDTO;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 public interface ProductService {
     ProductDTO createProduct(ProductDTO productDTO);
     ProductDTO getProductById(Long id);
+    EncodedProduct getEncodedProductById(Long id);
     ProductDTO getProductBySku(String sku);
     Page<ProductDTO> getAllProducts(Pageable pageable);
     Page<ProductDTO> getActiveProducts(Pageable pageable);
     Page<ProductDTO> getProductsByCategory(String category, Pageable pageable);
+    CursorPageDTO<ProductDTO> getAllProducts(String cursor, int size, String sortBy, Sort.Direction direction, boolean includeTotal);
+    CursorPageDTO<ProductDTO> getActiveProducts(String cursor, int size, boolean includeTotal);
+    CursorPageDTO<ProductDTO> getProductsByCategory(String category, String cursor, int size, boolean includeTotal);
     Page<ProductDTO> searchProducts(String searchTerm, Pageable pageable);
+    long exportProducts(Boolean active, String category, LocalDateTime since, OutputStream out);
+    ChangeFeedDTO getChanges(String since, int limit);
+    SseEmitter streamChanges(String since);
+    ImportResultDTO importProducts(InputStream in, ProductImporter.Format format, boolean upsert);
     ProductDTO updateProduct(Long id, ProductUpdateDTO updateDTO);
     void deleteProduct(Long id);
-    void updateStock(Long id, StockUpdateDTO stockUpdateDTO);
-    List<ProductDTO> getLowStockProducts(Integer threshold);
-    List<ProductDTO> getProductsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice);
+    Integer updateStock(Long id, StockUpdateDTO stockUpdateDTO);
+    List<ProductDTO> getLowStockProducts(Integer threshold, int limit);
+    SseEmitter streamLowStockAlerts(Integer threshold);
+    Page<ProductDTO> getProductsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice, boolean activeOnly, String category, Pageable pageable);
     List<String> getAllCategories();
+    ProductFacetsDTO getFacets();
     boolean checkStockAvailability(Long productId, Integer quantity);
+    List<StockAvailabilityDTO> checkStockAvailability(BatchStockDTO batch);
+    Map<Long, Integer> applyStockUpdates(BatchStockDTO batch);
 }
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.product.dto.ProductDTO;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+
+public interface ReactiveProductService {
+    Mono<ProductDTO> getProductById(Long id);
+    Flux<ProductDTO> getActiveProducts(int page, int size);
+    Flux<ProductDTO> getProductsByCategory(String category, int page, int size);
+    Flux<ProductDTO> getProductsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice);
+    Flux<String> getAllCategories();
+}
@@ -0,0 +1,259 @@
+package com.ecommerce.product.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of stock deltas granted by {@link StockReservationLedger}.
+ * Records are fixed-size (sequence, productId, delta) triples spread over
+ * numbered segment files; a segment is rotated out on every write-behind
+ * flush and deleted once the flush has committed.
+ *
+ * Appends are group-committed: {@link #append} only numbers a record and
+ * queues it, and {@link #sync} writes everything queued so far with one
+ * flush, so callers waiting at the same time share a single write. A
+ * reservation is acknowledged only after its record has been pushed to the
+ * OS, so a process crash loses nothing acknowledged; segments are fsynced
+ * when they are rotated.
+ */
+@Slf4j
+class ReservationJournal implements Closeable {
+
+    private static final String SEGMENT_PREFIX = "reservations-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    record Entry(long sequence, long productId, int delta) {
+    }
+
+    private final Path directory;
+    // Numbering and queueing happen together, so the queue is always in sequence order
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private long lastSequence;
+    private List<Entry> queued = new ArrayList<>();
+    // Held while writing; whoever holds it writes the whole queue for everyone waiting
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile long writtenSequence;
+    private volatile IOException failure;
+    private long segmentIndex;
+    private FileOutputStream segmentFile;
+    private DataOutputStream segment;
+
+    ReservationJournal(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+    }
+
+    /**
+     * Reads every record left by a previous run, oldest segment first. A torn
+     * record at the tail of a segment (crash mid-write) ends that segment.
+     */
+    List<Entry> readAll() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        for (Path path : segments()) {
+            try (DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(Files.newInputStream(path)))) {
+                while (true) {
+                    entries.add(new Entry(in.readLong(), in.readLong(), in.readInt()));
+                }
+            } catch (EOFException endOfSegment) {
+                // Either a clean end or a partially written last record
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Starts a fresh segment after any existing ones; sequences continue
+     * after {@code lastSequence}.
+     *
+     * @return index of the new segment
+     */
+    long open(long lastSequence) throws IOException {
+        writeLock.lock();
+        appendLock.lock();
+        try {
+            this.lastSequence = lastSequence;
+            this.writtenSequence = lastSequence;
+            List<Path> existing = segments();
+            this.segmentIndex = existing.isEmpty() ? 0 : indexOf(existing.get(existing.size() - 1));
+            openNextSegment();
+            return segmentIndex;
+        } finally {
+            appendLock.unlock();
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Numbers a record and queues it; nothing is written yet. Cheap enough to
+     * call under a stripe lock.
+     *
+     * @return sequence to pass to {@link #sync}
+     */
+    long append(long productId, int delta) {
+        appendLock.lock();
+        try {
+            long sequence = ++lastSequence;
+            queued.add(new Entry(sequence, productId, delta));
+            return sequence;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Returns once the record numbered {@code sequence} has been pushed to the
+     * OS. The first caller to arrive writes every queued record in one batch;
+     * callers whose records were in that batch return without writing.
+     */
+    void sync(long sequence) {
+        if (writtenSequence >= sequence) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            if (writtenSequence < sequence) {
+                writeQueued();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        if (writtenSequence < sequence) {
+            throw new UncheckedIOException("Failed to append to reservation journal", failure);
+        }
+    }
+
+    /**
+     * Throws once a write has failed. Callers check before granting anything,
+     * since nothing they append afterwards can be synced.
+     */
+    void checkWritable() {
+        IOException failed = failure;
+        if (failed != null) {
+            throw new UncheckedIOException("Reservation journal is not writable after a failed write", failed);
+        }
+    }
+
+    long lastSequence() {
+        appendLock.lock();
+        try {
+            return lastSequence;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Closes the current segment and starts the next one.
+     *
+     * @return index of the new segment; every older segment may be deleted
+     *         once the deltas it holds are committed
+     */
+    long rotate() throws IOException {
+        writeLock.lock();
+        try {
+            // Records queued so far belong to the segment being closed
+            writeQueued();
+            closeSegment();
+            openNextSegment();
+            return segmentIndex;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    void deleteSegmentsBefore(long index) throws IOException {
+        for (Path path : segments()) {
+            if (indexOf(path) < index) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        writeLock.lock();
+        try {
+            writeQueued();
+            closeSegment();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Caller holds the write lock. A failed write fails every later sync; the journal is not usable after it
+    private void writeQueued() {
+        if (failure != null) {
+            return;
+        }
+        List<Entry> batch;
+        appendLock.lock();
+        try {
+            if (queued.isEmpty()) {
+                return;
+            }
+            batch = queued;
+            queued = new ArrayList<>();
+        } finally {
+            appendLock.unlock();
+        }
+        try {
+            for (Entry entry : batch) {
+                segment.writeLong(entry.sequence());
+                segment.writeLong(entry.productId());
+                segment.writeInt(entry.delta());
+            }
+            segment.flush();
+        } catch (IOException ex) {
+            failure = ex;
+            return;
+        }
+        writtenSequence = batch.get(batch.size() - 1).sequence();
+    }
+
+    private void openNextSegment() throws IOException {
+        segmentIndex++;
+        Path path = directory.resolve(String.format("%s%012d%s", SEGMENT_PREFIX, segmentIndex, SEGMENT_SUFFIX));
+        segmentFile = new FileOutputStream(path.toFile(), true);
+        segment = new DataOutputStream(new BufferedOutputStream(segmentFile));
+        log.debug("Opened reservation journal segment {}", path);
+    }
+
+    private void closeSegment() throws IOException {
+        if (segment != null) {
+            segment.flush();
+            segmentFile.getFD().sync();
+            segment.close();
+            segment = null;
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long indexOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
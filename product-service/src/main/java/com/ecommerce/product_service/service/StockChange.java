@@ -0,0 +1,10 @@
+package com.ecommerce.product.service;
+
+/**
+ * Stock left on one product after an operation, with the revision that
+ * orders it against other changes to the same product: the row version on
+ * the database path, the journal sequence while the reservation ledger owns
+ * stock. Listeners that may see changes out of order keep the higher one.
+ */
+public record StockChange(int quantity, long revision) {
+}
@@ -0,0 +1,78 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.product.dto.StockUpdateDTO;
+import com.ecommerce.product.exception.InsufficientStockException;
+import com.ecommerce.product.exception.ProductNotFoundException;
+import com.ecommerce.product.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Applies stock mutations as a single conditional UPDATE per call instead of
+ * read-modify-write on the entity, so concurrent decrements on a hot product
+ * serialize on the row lock rather than failing the optimistic @Version check.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class StockEngine {
+
+    private final ProductRepository productRepository;
+
+    /**
+     * Applies the operation atomically and returns the quantity left after it,
+     * tagged with the row version it produced.
+     * A REDUCE that would take stock below zero changes nothing and throws.
+     */
+    public StockChange apply(Long productId, StockUpdateDTO.OperationType operationType, int quantity) {
+        int updated = operationType == StockUpdateDTO.OperationType.ADD
+                ? productRepository.addStock(productId, quantity)
+                : productRepository.reduceStock(productId, quantity);
+
+        // The row lock taken by the UPDATE is held until commit, so this read sees our own write
+        ProductRepository.StockLevel current = productRepository.findStockLevelById(productId)
+                .orElseThrow(() -> new ProductNotFoundException(productId));
+
+        if (updated == 0) {
+            throw new InsufficientStockException(productId, quantity, current.getQuantity());
+        }
+
+        log.debug("Stock {} of {} applied to product ID: {}, new quantity: {}",
+                  operationType, quantity, productId, current.getQuantity());
+        return new StockChange(current.getQuantity(), current.getVersion());
+    }
+
+    /**
+     * Applies the same operation to several products in the caller's transaction,
+     * all or nothing. Rows are updated in ascending id order so two overlapping
+     * batches always take their row locks in the same order.
+     *
+     * @return quantity left per product after the batch
+     */
+    public Map<Long, StockChange> applyAll(SortedMap<Long, Integer> quantities, 
+                                       StockUpdateDTO.OperationType operationType) {
+        quantities.forEach((productId, quantity) -> {
+            int updated = operationType == StockUpdateDTO.OperationType.ADD
+                    ? productRepository.addStock(productId, quantity)
+                    : productRepository.reduceStock(productId, quantity);
+            if (updated == 0) {
+                Integer current = productRepository.findQuantityById(productId)
+                        .orElseThrow(() -> new ProductNotFoundException(productId));
+                // Rolls back every line already applied in this transaction
+                throw new InsufficientStockException(productId, quantity, current);
+            }
+        });
+
+        Map<Long, StockChange> result = new TreeMap<>();
+        productRepository.findStockLevelsByIdIn(quantities.keySet())
+                .forEach(level -> result.put(level.getId(), new StockChange(level.getQuantity(), level.getVersion())));
+        return result;
+    }
+}
@@ -0,0 +1,498 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.product.config.StockReservationProperties;
+import com.ecommerce.product.dto.StockUpdateDTO;
+import com.ecommerce.product.entity.StockLedgerCheckpoint;
+import com.ecommerce.product.exception.InsufficientStockException;
+import com.ecommerce.product.exception.ProductNotFoundException;
+import com.ecommerce.product.repository.ProductRepository;
+import com.ecommerce.product.repository.StockLedgerCheckpointRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory stock ledger for hot products. Available counts live in counters
+ * sharded over lock stripes by product id, so a reservation costs one stripe
+ * lock and a share of one group-committed journal write instead of a database
+ * round-trip. Net deltas are written behind to {@code products.quantity} in
+ * one JDBC batch per flush.
+ *
+ * Crash safety: every granted delta is journaled before the call granting it
+ * returns; the journal write happens after the stripe lock is released, so
+ * concurrent reservations share it. A delta whose journal write fails is
+ * taken back out of the counts, and once the journal has failed no further
+ * delta is granted. Each
+ * flush commits the deltas together with the highest journal sequence they
+ * cover, so replay at startup re-applies exactly the entries after it.
+ *
+ * The ledger assumes it is the only writer of stock for the products it has
+ * loaded, i.e. a single node (or sticky routing by product id) per product.
+ */
+@Component
+@ConditionalOnProperty(prefix = "product.stock.reservation", name = "enabled", havingValue = "true")
+@Slf4j
+public class StockReservationLedger {
+
+    private static final String APPLY_DELTA_SQL =
+            "UPDATE products SET quantity = quantity + ?, version = version + 1, " +
+            "updated_at = CURRENT_TIMESTAMP WHERE id = ?";
+
+    private final ProductRepository productRepository;
+    private final StockLedgerCheckpointRepository checkpointRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ProductCache productCache;
+    private final StockReservationProperties properties;
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final AtomicInteger unflushed = new AtomicInteger();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private ReservationJournal journal;
+    private ScheduledExecutorService flusher;
+
+    public StockReservationLedger(ProductRepository productRepository,
+                                  StockLedgerCheckpointRepository checkpointRepository,
+                                  JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  ProductCache productCache,
+                                  StockReservationProperties properties) {
+        this.productRepository = productRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.productCache = productCache;
+        this.properties = properties;
+
+        int stripeCount = Integer.highestOneBit(Math.max(1, properties.getStripes() - 1)) << 1;
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.stripeMask = stripeCount - 1;
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        journal = new ReservationJournal(Path.of(properties.getJournalDir()));
+        long lastSequence = recover();
+        // Everything in the old segments is now committed
+        journal.deleteSegmentsBefore(journal.open(lastSequence));
+
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stock-ledger-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly,
+                properties.getFlushIntervalMs(), properties.getFlushIntervalMs(), TimeUnit.MILLISECONDS);
+        log.info("Stock reservation ledger started with {} stripes, journal at {}",
+                 stripes.length, properties.getJournalDir());
+    }
+
+    @PreDestroy
+    void stop() throws IOException, InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(10, TimeUnit.SECONDS);
+        flush();
+        journal.close();
+    }
+
+    /**
+     * Grants or denies a stock operation against the in-memory count.
+     *
+     * @return quantity available after the operation, tagged with its journal sequence
+     */
+    public StockChange reserve(Long productId, StockUpdateDTO.OperationType operationType, int quantity) {
+        int delta = operationType == StockUpdateDTO.OperationType.ADD ? quantity : -quantity;
+        return adjust(productId, delta, quantity);
+    }
+
+    /**
+     * Sets an absolute quantity, journaled as the delta from the current count
+     * so it composes with reservations that are not flushed yet.
+     */
+    public StockChange set(Long productId, int quantity) {
+        Stripe stripe = stripeFor(productId);
+        Counter counter = counter(stripe, productId);
+        int delta;
+        long sequence;
+        stripe.lock.lock();
+        try {
+            journal.checkWritable();
+            delta = quantity - counter.available;
+            sequence = apply(stripe, counter, delta);
+        } finally {
+            stripe.lock.unlock();
+        }
+        sync(sequence, () -> revert(stripe, counter, delta));
+        return new StockChange(quantity, sequence);
+    }
+
+    /**
+     * Grants every line or none. Stripes are locked in index order so two
+     * overlapping batches cannot deadlock.
+     *
+     * @return quantity available per product after the batch
+     */
+    public Map<Long, StockChange> reserveAll(SortedMap<Long, Integer> quantities,
+                                         StockUpdateDTO.OperationType operationType) {
+        Map<Long, Counter> counters = new TreeMap<>();
+        SortedSet<Integer> stripeIndexes = new TreeSet<>();
+        quantities.keySet().forEach(productId -> {
+            counters.put(productId, counter(stripeFor(productId), productId));
+            stripeIndexes.add(stripeIndex(productId));
+        });
+
+        Map<Long, StockChange> result = new TreeMap<>();
+        long lastSequence = 0;
+        stripeIndexes.forEach(index -> stripes[index].lock.lock());
+        try {
+            journal.checkWritable();
+            if (operationType == StockUpdateDTO.OperationType.REDUCE) {
+                quantities.forEach((productId, quantity) -> {
+                    Counter counter = counters.get(productId);
+                    if (counter.available < quantity) {
+                        throw new InsufficientStockException(productId, quantity, counter.available);
+                    }
+                });
+            }
+
+            for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+                int delta = operationType == StockUpdateDTO.OperationType.ADD ? line.getValue() : -line.getValue();
+                Counter counter = counters.get(line.getKey());
+                long sequence = apply(stripeFor(line.getKey()), counter, delta);
+                lastSequence = Math.max(lastSequence, sequence);
+                result.put(line.getKey(), new StockChange(counter.available, sequence));
+            }
+        } finally {
+            stripeIndexes.forEach(index -> stripes[index].lock.unlock());
+        }
+        sync(lastSequence, () -> {
+            stripeIndexes.forEach(index -> stripes[index].lock.lock());
+            try {
+                quantities.forEach((productId, quantity) -> unapply(stripeFor(productId), counters.get(productId),
+                        operationType == StockUpdateDTO.OperationType.ADD ? quantity : -quantity));
+            } finally {
+                stripeIndexes.forEach(index -> stripes[index].lock.unlock());
+            }
+        });
+        return result;
+    }
+
+    public int available(Long productId) {
+        Stripe stripe = stripeFor(productId);
+        Counter counter = counter(stripe, productId);
+        stripe.lock.lock();
+        try {
+            return counter.available;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Copies the available count of every product the ledger holds into
+     * {@code into}, taken under all stripe locks so the counts are one cut.
+     *
+     * @return the journal sequence the counts reflect
+     */
+    public long availableCounts(Map<Long, Integer> into) {
+        lockAll();
+        try {
+            for (Stripe stripe : stripes) {
+                stripe.counters.values().forEach(counter -> into.put(counter.productId, counter.available));
+            }
+            return journal.lastSequence();
+        } finally {
+            unlockAll();
+        }
+    }
+
+    private StockChange adjust(Long productId, int delta, int requested) {
+        Stripe stripe = stripeFor(productId);
+        Counter counter = counter(stripe, productId);
+        int available;
+        long sequence;
+        stripe.lock.lock();
+        try {
+            journal.checkWritable();
+            if (counter.available + delta < 0) {
+                throw new InsufficientStockException(productId, requested, counter.available);
+            }
+            sequence = apply(stripe, counter, delta);
+            available = counter.available;
+        } finally {
+            stripe.lock.unlock();
+        }
+        sync(sequence, () -> revert(stripe, counter, delta));
+        return new StockChange(available, sequence);
+    }
+
+    // The grant is acknowledged only once journaled; if that fails it is taken back before the caller sees the error
+    private void sync(long sequence, Runnable revert) {
+        try {
+            journal.sync(sequence);
+        } catch (RuntimeException ex) {
+            revert.run();
+            throw ex;
+        }
+    }
+
+    private void revert(Stripe stripe, Counter counter, int delta) {
+        stripe.lock.lock();
+        try {
+            unapply(stripe, counter, delta);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Caller holds the stripe lock. Undoes {@link #apply} for a delta that was
+     * never journaled. The counter stays dirty, so a flush that already wrote
+     * the delta writes its reversal next.
+     */
+    private void unapply(Stripe stripe, Counter counter, int delta) {
+        if (delta == 0) {
+            return;
+        }
+        counter.available -= delta;
+        counter.pending -= delta;
+        if (!counter.dirty) {
+            counter.dirty = true;
+            stripe.dirty.add(counter);
+        }
+        unflushed.incrementAndGet();
+    }
+
+    /**
+     * Caller holds the stripe lock. Only queues the journal record; the caller
+     * syncs it once the lock is released.
+     *
+     * @return journal sequence of the delta, or 0 when there was none
+     */
+    private long apply(Stripe stripe, Counter counter, int delta) {
+        if (delta == 0) {
+            return 0;
+        }
+        long sequence = journal.append(counter.productId, delta);
+        counter.available += delta;
+        counter.pending += delta;
+        if (!counter.dirty) {
+            counter.dirty = true;
+            stripe.dirty.add(counter);
+        }
+
+        if (unflushed.incrementAndGet() >= properties.getFlushThreshold()
+                && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flushQuietly);
+        }
+        return sequence;
+    }
+
+    /**
+     * Writes all pending deltas to the database in one batch, evicts the
+     * written products from {@link ProductCache} (their cached JSON and ETag
+     * carry the pre-flush quantity and version) and drops the journal
+     * segments they came from.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            flushRequested.set(false);
+            if (unflushed.get() == 0) {
+                return;
+            }
+
+            // Rotate first: entries landing in the new segment before the drain
+            // are covered by the checkpoint sequence and skipped on replay
+            long segment = journal.rotate();
+
+            Map<Long, Integer> batch = new TreeMap<>();
+            long lastSequence;
+            lockAll();
+            try {
+                for (Stripe stripe : stripes) {
+                    for (Counter counter : stripe.dirty) {
+                        if (counter.pending != 0) {
+                            batch.put(counter.productId, counter.pending);
+                        }
+                        counter.pending = 0;
+                        counter.dirty = false;
+                    }
+                    stripe.dirty.clear();
+                }
+                lastSequence = journal.lastSequence();
+                unflushed.set(0);
+            } finally {
+                unlockAll();
+            }
+
+            try {
+                writeBehind(batch, lastSequence);
+            } catch (RuntimeException ex) {
+                restore(batch);
+                throw ex;
+            }
+            productCache.evictAll(batch.keySet());
+            journal.deleteSegmentsBefore(segment);
+            log.debug("Flushed stock deltas for {} products up to journal sequence {}", batch.size(), lastSequence);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to rotate reservation journal", ex);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException ex) {
+            log.error("Stock ledger flush failed, deltas kept for the next attempt", ex);
+        }
+    }
+
+    private long recover() throws IOException {
+        long checkpoint = checkpointRepository.findById(properties.getNodeId())
+                .map(StockLedgerCheckpoint::getLastSequence)
+                .orElse(0L);
+
+        Map<Long, Integer> replay = new TreeMap<>();
+        long lastSequence = checkpoint;
+        for (ReservationJournal.Entry entry : journal.readAll()) {
+            if (entry.sequence() > checkpoint) {
+                replay.merge(entry.productId(), entry.delta(), Integer::sum);
+            }
+            lastSequence = Math.max(lastSequence, entry.sequence());
+        }
+
+        if (lastSequence > checkpoint) {
+            writeBehind(replay, lastSequence);
+            log.info("Replayed reservation journal for {} products, sequences {} to {}",
+                     replay.size(), checkpoint + 1, lastSequence);
+        }
+        return lastSequence;
+    }
+
+    private void writeBehind(Map<Long, Integer> deltas, long lastSequence) {
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        deltas.forEach((productId, delta) -> {
+            if (delta != 0) {
+                args.add(new Object[]{delta, productId});
+            }
+        });
+
+        transactionTemplate.executeWithoutResult(status -> {
+            // Ids arrive sorted, so concurrent writers lock rows in the same order
+            jdbcTemplate.batchUpdate(APPLY_DELTA_SQL, args);
+            checkpointRepository.save(new StockLedgerCheckpoint(properties.getNodeId(), lastSequence));
+        });
+    }
+
+    private void restore(Map<Long, Integer> batch) {
+        batch.forEach((productId, delta) -> {
+            Stripe stripe = stripeFor(productId);
+            stripe.lock.lock();
+            try {
+                Counter counter = stripe.counters.get(productId);
+                counter.pending += delta;
+                if (!counter.dirty) {
+                    counter.dirty = true;
+                    stripe.dirty.add(counter);
+                }
+                unflushed.incrementAndGet();
+            } finally {
+                stripe.lock.unlock();
+            }
+        });
+    }
+
+    private Counter counter(Stripe stripe, Long productId) {
+        stripe.lock.lock();
+        try {
+            Counter counter = stripe.counters.get(productId);
+            if (counter != null) {
+                return counter;
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+
+        // Load outside the stripe lock; stock of a product not yet in the ledger
+        // is not written by the ledger, so the value cannot go stale before insert
+        int quantity = productRepository.findQuantityById(productId)
+                .orElseThrow(() -> new ProductNotFoundException(productId));
+
+        stripe.lock.lock();
+        try {
+            return stripe.counters.computeIfAbsent(productId, id -> new Counter(id, quantity));
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    private Stripe stripeFor(Long productId) {
+        return stripes[stripeIndex(productId)];
+    }
+
+    private int stripeIndex(Long productId) {
+        long h = productId * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & stripeMask;
+    }
+
+    private void lockAll() {
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            stripes[i].lock.unlock();
+        }
+    }
+
+    private static final class Stripe {
+        final ReentrantLock lock = new ReentrantLock();
+        final Map<Long, Counter> counters = new HashMap<>();
+        final List<Counter> dirty = new ArrayList<>();
+    }
+
+    private static final class Counter {
+        final long productId;
+        int available;
+        int pending;
+        boolean dirty;
+
+        Counter(long productId, int available) {
+            this.productId = productId;
+            this.available = available;
+        }
+    }
+}
@@ -1,23 +1,65 @@
 package com.ecommerce.product.service.impl;
 
+import com.ecommerce.product.dto.BatchStockDTO;
+import com.ecommerce.product.dto.ChangeFeedDTO;
+import com.ecommerce.product.dto.ImportResultDTO;
+import com.ecommerce.product.dto.CursorPageDTO;
 import com.ecommerce.product.dto.ProductDTO;
+import com.ecommerce.product.dto.ProductFacetsDTO;
 import com.ecommerce.product.dto.ProductUpdateDTO;
+import com.ecommerce.product.dto.StockAvailabilityDTO;
 import com.ecommerce.product.dto.StockUpdateDTO;
 import com.ecommerce.product.entity.Product;
+import com.ecommerce.product.event.ProductChangedEvent;
+import com.ecommerce.product.event.ProductStockChangedEvent;
+import com.ecommerce.product.event.ProductsImportedEvent;
 import com.ecommerce.product.exception.DuplicateSkuException;
-import com.ecommerce.product.exception.InsufficientStockException;
 import com.ecommerce.product.exception.ProductNotFoundException;
 import com.ecommerce.product.repository.ProductRepository;
+import com.ecommerce.product.service.EncodedProduct;
+import com.ecommerce.product.service.KeysetCursor;
+import com.ecommerce.product.service.LowStockTracker;
+import com.ecommerce.product.service.ProductCache;
+import com.ecommerce.product.service.ProductChangeFeed;
+import com.ecommerce.product.service.ProductExporter;
+import com.ecommerce.product.service.ProductFacetCounts;
+import com.ecommerce.product.service.ProductImporter;
+import com.ecommerce.product.service.ProductPriceIndex;
+import com.ecommerce.product.service.ProductSearchIndex;
 import com.ecommerce.product.service.ProductService;
+import com.ecommerce.product.service.StockChange;
+import com.ecommerce.product.service.StockEngine;
+import com.ecommerce.product.service.StockReservationLedger;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 @Service
@@ -27,6 +69,19 @@ import java.util.stream.Collectors;
 public class ProductServiceImpl implements ProductService {
     
     private final ProductRepository productRepository;
+    private final StockEngine stockEngine;
+    private final Optional<StockReservationLedger> reservationLedger;
+    private final ProductCache productCache;
+    private final ProductSearchIndex searchIndex;
+    private final ProductPriceIndex priceIndex;
+    private final LowStockTracker lowStockTracker;
+    private final ProductFacetCounts facetCounts;
+    private final ProductExporter productExporter;
+    private final ProductImporter productImporter;
+    private final ProductChangeFeed changeFeed;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
     
     @Override
     public ProductDTO createProduct(ProductDTO productDTO) {
@@ -39,27 +94,37 @@ public class ProductServiceImpl implements ProductService {
         
         Product product = convertToEntity(productDTO);
         Product savedProduct = productRepository.save(product);
+        productCache.evictCategories();
+        eventPublisher.publishEvent(new ProductChangedEvent(savedProduct, true));
         
         log.info("Product created successfully with ID: {}", savedProduct.getId());
         return convertToDTO(savedProduct);
     }
     
+    // Cached reads skip the transaction so a hit never borrows a connection
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public ProductDTO getProductById(Long id) {
         log.debug("Fetching product with ID: {}", id);
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new ProductNotFoundException(id));
-        return convertToDTO(product);
+        return productCache.getById(id, key -> productRepository.findById(key)
+                .map(this::convertToDTO)
+                .orElseThrow(() -> new ProductNotFoundException(key)));
     }
     
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public EncodedProduct getEncodedProductById(Long id) {
+        log.debug("Fetching encoded product with ID: {}", id);
+        return productCache.getEncodedById(id, this::loadEncoded);
+    }
+    
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public ProductDTO getProductBySku(String sku) {
         log.debug("Fetching product with SKU: {}", sku);
-        Product product = productRepository.findBySku(sku)
-                .orElseThrow(() -> new ProductNotFoundException("Product not found with SKU: " + sku));
-        return convertToDTO(product);
+        return productCache.getBySku(sku, key -> productRepository.findBySku(key)
+                .map(this::convertToDTO)
+                .orElseThrow(() -> new ProductNotFoundException("Product not found with SKU: " + key)));
     }
     
     @Override
@@ -85,18 +150,77 @@ public class ProductServiceImpl implements ProductService {
                 .map(this::convertToDTO);
     }
     
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDTO<ProductDTO> getAllProducts(String cursor, int size, String sortBy, 
+                                                   Sort.Direction direction, boolean includeTotal) {
+        log.debug("Fetching all products by cursor, size: {}, sort: {} {}", size, sortBy, direction);
+        Sort sort = KeysetCursor.sort(sortBy, direction);
+        Window<Product> window = productRepository.findAllBy(
+                KeysetCursor.decode(cursor, sortBy, direction), sort, Limit.of(size));
+        return toCursorPage(window, sortBy, direction, includeTotal ? productRepository.count() : null);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDTO<ProductDTO> getActiveProducts(String cursor, int size, boolean includeTotal) {
+        log.debug("Fetching active products by cursor");
+        Window<Product> window = productRepository.findByIsActiveTrue(
+                KeysetCursor.decode(cursor, "id", Sort.Direction.ASC), 
+                KeysetCursor.sort("id", Sort.Direction.ASC), Limit.of(size));
+        return toCursorPage(window, "id", Sort.Direction.ASC, 
+                includeTotal ? productRepository.countActiveProducts() : null);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDTO<ProductDTO> getProductsByCategory(String category, String cursor, int size, 
+                                                          boolean includeTotal) {
+        log.debug("Fetching products by category by cursor: {}", category);
+        Window<Product> window = productRepository.findByCategoryAndIsActiveTrue(category,
+                KeysetCursor.decode(cursor, "id", Sort.Direction.ASC), 
+                KeysetCursor.sort("id", Sort.Direction.ASC), Limit.of(size));
+        return toCursorPage(window, "id", Sort.Direction.ASC, 
+                includeTotal ? productRepository.countByCategoryAndIsActiveTrue(category) : null);
+    }
+    
     @Override
     @Transactional(readOnly = true)
     public Page<ProductDTO> searchProducts(String searchTerm, Pageable pageable) {
         log.debug("Searching products with term: {}", searchTerm);
-        return productRepository.searchProducts(searchTerm, pageable)
-                .map(this::convertToDTO);
+        if (!searchIndex.isReady()) {
+            return productRepository.searchProducts(searchTerm, pageable)
+                    .map(this::convertToDTO);
+        }
+        
+        // Rank in memory, then load only the rows on the requested page
+        List<ProductSearchIndex.SearchHit> hits = searchIndex.search(searchTerm);
+        int from = (int) Math.min(pageable.getOffset(), hits.size());
+        int to = Math.min(from + pageable.getPageSize(), hits.size());
+        List<Long> pageIds = hits.subList(from, to).stream()
+                .map(ProductSearchIndex.SearchHit::productId)
+                .collect(Collectors.toList());
+        return new PageImpl<>(loadInOrder(pageIds), pageable, hits.size());
     }
     
+    // The fields commit in their own transaction first, so the ledger never holds a count from a rolled-back update
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public ProductDTO updateProduct(Long id, ProductUpdateDTO updateDTO) {
         log.info("Updating product with ID: {}", id);
         
+        ProductDTO updated = transactionTemplate.execute(status -> updateFields(id, updateDTO));
+        if (updateDTO.getQuantity() != null && reservationLedger.isPresent()) {
+            // The ledger owns stock while enabled; the new count reaches the row on its next flush
+            StockChange change = reservationLedger.get().set(id, updateDTO.getQuantity());
+            updated.setQuantity(change.quantity());
+            eventPublisher.publishEvent(stockChanged(Map.of(id, change)));
+        }
+        log.info("Product updated successfully with ID: {}", id);
+        return updated;
+    }
+    
+    private ProductDTO updateFields(Long id, ProductUpdateDTO updateDTO) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ProductNotFoundException(id));
         
@@ -110,10 +234,13 @@ public class ProductServiceImpl implements ProductService {
         if (updateDTO.getPrice() != null) {
             product.setPrice(updateDTO.getPrice());
         }
-        if (updateDTO.getQuantity() != null) {
+        if (updateDTO.getQuantity() != null && reservationLedger.isEmpty()) {
             product.setQuantity(updateDTO.getQuantity());
         }
         if (updateDTO.getCategory() != null) {
+            if (!updateDTO.getCategory().equals(product.getCategory())) {
+                productCache.evictCategories();
+            }
             product.setCategory(updateDTO.getCategory());
         }
         if (updateDTO.getBrand() != null) {
@@ -127,8 +254,9 @@ public class ProductServiceImpl implements ProductService {
         }
         
         Product updatedProduct = productRepository.save(product);
-        log.info("Product updated successfully with ID: {}", id);
-        
+        // Encoded after commit, once the flush has bumped the version
+        productCache.refresh(id, key -> encode(updatedProduct));
+        eventPublisher.publishEvent(new ProductChangedEvent(updatedProduct, false));
         return convertToDTO(updatedProduct);
     }
     
@@ -142,66 +270,235 @@ public class ProductServiceImpl implements ProductService {
         // Soft delete - just mark as inactive
         product.setIsActive(false);
         productRepository.save(product);
+        productCache.evict(id);
+        eventPublisher.publishEvent(new ProductChangedEvent(product, false));
         
         log.info("Product marked as inactive with ID: {}", id);
     }
     
     @Override
-    public void updateStock(Long id, StockUpdateDTO stockUpdateDTO) {
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Integer updateStock(Long id, StockUpdateDTO stockUpdateDTO) {
         log.info("Updating stock for product ID: {}, operation: {}, quantity: {}", 
                  id, stockUpdateDTO.getOperationType(), stockUpdateDTO.getQuantity());
         
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new ProductNotFoundException(id));
-        
-        if (stockUpdateDTO.getOperationType() == StockUpdateDTO.OperationType.ADD) {
-            product.setQuantity(product.getQuantity() + stockUpdateDTO.getQuantity());
+        StockChange change = reservationLedger.isPresent()
+                ? reservationLedger.get().reserve(id, 
+                        stockUpdateDTO.getOperationType(), stockUpdateDTO.getQuantity())
+                : stockEngine.apply(id, 
+                        stockUpdateDTO.getOperationType(), stockUpdateDTO.getQuantity());
+        if (reservationLedger.isPresent()) {
+            // The row only changes on the next flush, which evicts the product again
+            productCache.evict(id);
         } else {
-            if (product.getQuantity() < stockUpdateDTO.getQuantity()) {
-                throw new InsufficientStockException(id, 
-                        stockUpdateDTO.getQuantity(), product.getQuantity());
-            }
-            product.setQuantity(product.getQuantity() - stockUpdateDTO.getQuantity());
+            productCache.refresh(id, this::loadEncoded);
         }
+        eventPublisher.publishEvent(stockChanged(Map.of(id, change)));
         
-        productRepository.save(product);
-        log.info("Stock updated successfully for product ID: {}", id);
+        log.info("Stock updated successfully for product ID: {}, new quantity: {}", id, change.quantity());
+        return change.quantity();
     }
     
     @Override
     @Transactional(readOnly = true)
-    public List<ProductDTO> getLowStockProducts(Integer threshold) {
-        log.debug("Fetching products with stock below: {}", threshold);
-        return productRepository.findLowStockProducts(threshold).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    public long exportProducts(Boolean active, String category, LocalDateTime since, OutputStream out) {
+        log.debug("Exporting products - active: {}, category: {}, since: {}", active, category, since);
+        return productExporter.export(active, category, since, out);
     }
     
     @Override
     @Transactional(readOnly = true)
-    public List<ProductDTO> getProductsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
-        log.debug("Fetching products in price range: {} - {}", minPrice, maxPrice);
-        return productRepository.findByPriceBetween(minPrice, maxPrice).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    public ChangeFeedDTO getChanges(String since, int limit) {
+        log.debug("Fetching product changes since watermark: {}", since);
+        return changeFeed.changesSince(since, limit);
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public SseEmitter streamChanges(String since) {
+        log.debug("Opening product change stream since watermark: {}", since);
+        return changeFeed.subscribe(since);
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ImportResultDTO importProducts(InputStream in, ProductImporter.Format format, boolean upsert) {
+        log.info("Importing products from {} stream, upsert: {}", format, upsert);
+        
+        // Each chunk commits on its own; an outer transaction would hold every row until the end
+        ImportResultDTO result = productImporter.importProducts(in, format, upsert);
+        if (result.getInserted() > 0 || result.getUpdated() > 0) {
+            productCache.evictAllProducts();
+            productCache.evictCategories();
+            eventPublisher.publishEvent(new ProductsImportedEvent(result.getInserted(), result.getUpdated()));
+        }
+        return result;
     }
     
     @Override
     @Transactional(readOnly = true)
+    public List<ProductDTO> getLowStockProducts(Integer threshold, int limit) {
+        log.debug("Fetching up to {} products with stock below: {}", limit, threshold);
+        return loadInOrder(lowStockTracker.lowStock(threshold, limit));
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public SseEmitter streamLowStockAlerts(Integer threshold) {
+        log.debug("Opening low-stock alert stream at threshold: {}", threshold);
+        return lowStockTracker.subscribe(threshold);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public Page<ProductDTO> getProductsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice, boolean activeOnly,
+                                                    String category, Pageable pageable) {
+        log.debug("Fetching products in price range: {} - {}, active only: {}, category: {}", 
+                 minPrice, maxPrice, activeOnly, category);
+        if (!priceIndex.isReady()) {
+            return productRepository.findByPriceRange(minPrice, maxPrice, activeOnly, category, pageable)
+                    .map(this::convertToDTO);
+        }
+        
+        // Range and filters are answered in memory, then only the rows on the requested page are loaded
+        ProductPriceIndex.PriceRangeHits hits = priceIndex.find(
+                ProductPriceIndex.toCents(minPrice, RoundingMode.CEILING),
+                ProductPriceIndex.toCents(maxPrice, RoundingMode.FLOOR),
+                activeOnly, category, pageable.getOffset(), pageable.getPageSize());
+        return new PageImpl<>(loadInOrder(hits.productIds()), pageable, hits.total());
+    }
+    
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public List<String> getAllCategories() {
         log.debug("Fetching all categories");
-        return productRepository.findAllCategories();
+        return productCache.getCategories(productRepository::findAllCategories);
+    }
+    
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public ProductFacetsDTO getFacets() {
+        log.debug("Fetching product facet counts");
+        return facetCounts.facets();
     }
     
     @Override
     @Transactional(readOnly = true)
     public boolean checkStockAvailability(Long productId, Integer quantity) {
+        if (reservationLedger.isPresent()) {
+            return reservationLedger.get().available(productId) >= quantity;
+        }
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new ProductNotFoundException(productId));
         return product.getQuantity() >= quantity;
     }
     
+    @Override
+    @Transactional(readOnly = true)
+    public List<StockAvailabilityDTO> checkStockAvailability(BatchStockDTO batch) {
+        SortedMap<Long, Integer> requested = quantitiesById(batch);
+        log.debug("Checking stock availability for {} products", requested.size());
+        
+        Map<Long, Integer> availableById = new HashMap<>();
+        if (reservationLedger.isPresent()) {
+            requested.keySet().forEach(id -> availableById.put(id, reservationLedger.get().available(id)));
+        } else {
+            productRepository.findStockLevelsByIdIn(requested.keySet())
+                    .forEach(level -> availableById.put(level.getId(), level.getQuantity()));
+        }
+        
+        return requested.entrySet().stream()
+                .map(line -> {
+                    Integer available = availableById.get(line.getKey());
+                    if (available == null) {
+                        throw new ProductNotFoundException(line.getKey());
+                    }
+                    return StockAvailabilityDTO.builder()
+                            .productId(line.getKey())
+                            .requestedQuantity(line.getValue())
+                            .availableQuantity(available)
+                            .available(available >= line.getValue())
+                            .build();
+                })
+                .collect(Collectors.toList());
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Map<Long, Integer> applyStockUpdates(BatchStockDTO batch) {
+        SortedMap<Long, Integer> quantities = quantitiesById(batch);
+        log.info("Applying stock {} to {} products", batch.getOperationType(), quantities.size());
+        
+        Map<Long, StockChange> changes = reservationLedger.isPresent()
+                ? reservationLedger.get().reserveAll(quantities, batch.getOperationType())
+                : stockEngine.applyAll(quantities, batch.getOperationType());
+        productCache.evictAll(quantities.keySet());
+        ProductStockChangedEvent event = stockChanged(changes);
+        eventPublisher.publishEvent(event);
+        
+        log.info("Stock updated successfully for {} products", changes.size());
+        return event.getQuantities();
+    }
+    
     // Helper methods
+    
+    // Loads the given products in one query and returns them in the given order, skipping any since removed
+    private List<ProductDTO> loadInOrder(List<Long> ids) {
+        Map<Long, Product> productsById = new HashMap<>();
+        productRepository.findAllById(ids).forEach(product -> productsById.put(product.getId(), product));
+        return ids.stream()
+                .map(productsById::get)
+                .filter(Objects::nonNull)
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+    
+    private CursorPageDTO<ProductDTO> toCursorPage(Window<Product> window, String sortBy, 
+                                                   Sort.Direction direction, Long totalElements) {
+        String nextCursor = window.hasNext() && !window.isEmpty()
+                ? KeysetCursor.encode(window.positionAt(window.size() - 1), sortBy, direction)
+                : null;
+        return CursorPageDTO.<ProductDTO>builder()
+                .content(window.map(this::convertToDTO).getContent())
+                .size(window.size())
+                .hasNext(nextCursor != null)
+                .nextCursor(nextCursor)
+                .totalElements(totalElements)
+                .build();
+    }
+    
+    private static ProductStockChangedEvent stockChanged(Map<Long, StockChange> changes) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        Map<Long, Long> revisions = new HashMap<>();
+        changes.forEach((id, change) -> {
+            quantities.put(id, change.quantity());
+            revisions.put(id, change.revision());
+        });
+        return new ProductStockChangedEvent(quantities, revisions);
+    }
+    
+    // Merges repeated lines for the same product and orders them by id
+    private SortedMap<Long, Integer> quantitiesById(BatchStockDTO batch) {
+        SortedMap<Long, Integer> quantities = new TreeMap<>();
+        batch.getItems().forEach(item -> quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum));
+        return quantities;
+    }
+    
+    private EncodedProduct loadEncoded(Long id) {
+        return productRepository.findById(id)
+                .map(this::encode)
+                .orElseThrow(() -> new ProductNotFoundException(id));
+    }
+    
+    private EncodedProduct encode(Product product) {
+        try {
+            return new EncodedProduct(product.getId(), product.getVersion(),
+                    objectMapper.writeValueAsBytes(convertToDTO(product)));
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+    
     private ProductDTO convertToDTO(Product product) {
         return ProductDTO.builder()
                 .id(product.getId())
@@ -0,0 +1,105 @@
+package com.ecommerce.product.service.impl;
+
+import com.ecommerce.product.dto.ProductDTO;
+import com.ecommerce.product.exception.ProductNotFoundException;
+import com.ecommerce.product.service.ReactiveProductService;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Non-blocking catalog reads over R2DBC. Rows are mapped straight to DTOs as
+ * the driver emits them, so subscriber demand flows back to the database
+ * cursor instead of a page being materialized first. Deliberately not
+ * {@code @Transactional}: these are single read-only statements, and the JPA
+ * transaction manager cannot take part in a reactive pipeline.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveProductServiceImpl implements ReactiveProductService {
+    
+    private static final String SELECT_PRODUCTS =
+            "SELECT id, sku, name, description, price, quantity, category, brand, image_url, " +
+            "is_active, created_at, updated_at FROM products";
+    
+    private final DatabaseClient databaseClient;
+    
+    @Override
+    public Mono<ProductDTO> getProductById(Long id) {
+        log.debug("Reactively fetching product with ID: {}", id);
+        return databaseClient.sql(SELECT_PRODUCTS + " WHERE id = :id")
+                .bind("id", id)
+                .map(ReactiveProductServiceImpl::toDTO)
+                .one()
+                .switchIfEmpty(Mono.error(() -> new ProductNotFoundException(id)));
+    }
+    
+    @Override
+    public Flux<ProductDTO> getActiveProducts(int page, int size) {
+        log.debug("Reactively fetching active products - page: {}, size: {}", page, size);
+        return databaseClient.sql(SELECT_PRODUCTS + " WHERE is_active = TRUE ORDER BY id LIMIT :limit OFFSET :offset")
+                .bind("limit", size)
+                .bind("offset", (long) page * size)
+                .map(ReactiveProductServiceImpl::toDTO)
+                .all();
+    }
+    
+    @Override
+    public Flux<ProductDTO> getProductsByCategory(String category, int page, int size) {
+        log.debug("Reactively fetching products by category: {}", category);
+        return databaseClient.sql(SELECT_PRODUCTS +
+                        " WHERE category = :category AND is_active = TRUE ORDER BY id LIMIT :limit OFFSET :offset")
+                .bind("category", category)
+                .bind("limit", size)
+                .bind("offset", (long) page * size)
+                .map(ReactiveProductServiceImpl::toDTO)
+                .all();
+    }
+    
+    @Override
+    public Flux<ProductDTO> getProductsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+        log.debug("Reactively fetching products in price range: {} - {}", minPrice, maxPrice);
+        return databaseClient.sql(SELECT_PRODUCTS +
+                        " WHERE price BETWEEN :minPrice AND :maxPrice ORDER BY price, id")
+                .bind("minPrice", minPrice)
+                .bind("maxPrice", maxPrice)
+                .map(ReactiveProductServiceImpl::toDTO)
+                .all();
+    }
+    
+    @Override
+    public Flux<String> getAllCategories() {
+        log.debug("Reactively fetching all categories");
+        // Same categories as ProductRepository.findAllCategories, inactive products included;
+        // a Flux cannot emit null, so products without a category are left out
+        return databaseClient.sql("SELECT DISTINCT category FROM products " +
+                        "WHERE category IS NOT NULL ORDER BY category")
+                .map(row -> row.get("category", String.class))
+                .all();
+    }
+    
+    private static ProductDTO toDTO(Readable row) {
+        return ProductDTO.builder()
+                .id(row.get("id", Long.class))
+                .sku(row.get("sku", String.class))
+                .name(row.get("name", String.class))
+                .description(row.get("description", String.class))
+                .price(row.get("price", BigDecimal.class))
+                .quantity(row.get("quantity", Integer.class))
+                .category(row.get("category", String.class))
+                .brand(row.get("brand", String.class))
+                .imageUrl(row.get("image_url", String.class))
+                .isActive(row.get("is_active", Boolean.class))
+                .createdAt(row.get("created_at", LocalDateTime.class))
+                .updatedAt(row.get("updated_at", LocalDateTime.class))
+                .build();
+    }
+}
@@ -0,0 +1,167 @@
+package com.ecommerce.product.controller;
+
+import com.ecommerce.product.config.AdmissionControlledDataSource;
+import com.ecommerce.product.config.AdmissionLimiter;
+import com.ecommerce.product.dto.ProductDTO;
+import com.ecommerce.product.exception.AdmissionRejectedException;
+import com.ecommerce.product.service.ProductService;
+import com.ecommerce.product_service.ProductServiceApplication;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Own database and a single permit, so holding one connection here saturates the service
+@SpringBootTest(classes = ProductServiceApplication.class, properties = {
+        "product.admission.max-concurrency=1",
+        "product.admission.max-queue=1",
+        "product.admission.queue-timeout=1s",
+        "product.cache.enabled=false",
+        "spring.datasource.url=jdbc:h2:mem:product_admission_test_db;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "spring.r2dbc.url=r2dbc:h2:mem:///product_admission_test_db;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000"
+})
+@AutoConfigureMockMvc
+class AdmissionControlTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ProductService productService;
+
+    @Test
+    void permitIsReleasedOnceHoweverOftenTheConnectionIsClosed() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AdmissionLimiter limiter = new AdmissionLimiter(1, 0, Duration.ofMillis(100), registry);
+        AdmissionControlledDataSource limited = new AdmissionControlledDataSource(pool(), limiter);
+
+        Connection connection = limited.getConnection();
+        assertEquals(1, active(registry));
+        assertInstanceOf(AdmissionRejectedException.class, assertThrows(RuntimeException.class, limited::getConnection));
+
+        connection.close();
+        connection.close();
+        assertEquals(0, active(registry));
+
+        // A second release would have left two permits, letting both of these through
+        try (Connection first = limited.getConnection()) {
+            assertEquals(1, active(registry));
+            assertThrows(AdmissionRejectedException.class, limited::getConnection);
+        }
+        assertEquals(0, active(registry));
+    }
+
+    @Test
+    void permitIsReleasedWhenThePoolFailsToHandOutAConnection() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AdmissionLimiter limiter = new AdmissionLimiter(1, 0, Duration.ofMillis(100), registry);
+        DataSource failing = new DelegatingDataSource(pool()) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                throw new SQLException("Connection refused");
+            }
+        };
+        AdmissionControlledDataSource limited = new AdmissionControlledDataSource(failing, limiter);
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(SQLException.class, limited::getConnection);
+            assertEquals(0, active(registry));
+        }
+        assertEquals(0, registry.get("product.admission.rejected").counters().stream()
+                .mapToDouble(counter -> counter.count()).sum());
+    }
+
+    @Test
+    void timedOutCallersGet503() throws Exception {
+        ProductDTO product = productService.createProduct(product("ADMISSION-TIMEOUT-1"));
+
+        try (Connection held = dataSource.getConnection()) {
+            // Outside a transaction the rejection reaches the handler as is
+            mockMvc.perform(get("/api/products/sku/{sku}", product.getSku()))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+                    .andExpect(jsonPath("$.message").value("Timed out waiting for a database connection"));
+
+            // Inside one it arrives wrapped in CannotCreateTransactionException
+            mockMvc.perform(get("/api/products/category/{category}", product.getCategory()))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+                    .andExpect(jsonPath("$.message").value("Timed out waiting for a database connection"));
+        }
+
+        mockMvc.perform(get("/api/products/sku/{sku}", product.getSku()))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void callersBeyondTheQueueGet503AtOnce() throws Exception {
+        ProductDTO product = productService.createProduct(product("ADMISSION-QUEUE-1"));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (Connection held = dataSource.getConnection()) {
+            // Fill the one queue slot with a caller that waits out the timeout
+            Future<?> queued = executor.submit(() -> assertThrows(AdmissionRejectedException.class,
+                    () -> dataSource.getConnection()));
+            while (meterRegistry.get("product.admission.waiting").gauge().value() < 1) {
+                Thread.sleep(5);
+            }
+
+            mockMvc.perform(get("/api/products/sku/{sku}", product.getSku()))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(jsonPath("$.message").value("Too many requests waiting for a database connection"));
+            mockMvc.perform(get("/api/products/category/{category}", product.getCategory()))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(jsonPath("$.message").value("Too many requests waiting for a database connection"));
+            queued.get();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private DataSource pool() {
+        return ((AdmissionControlledDataSource) dataSource).getTargetDataSource();
+    }
+
+    private static double active(MeterRegistry registry) {
+        return registry.get("product.admission.active").gauge().value();
+    }
+
+    private static ProductDTO product(String sku) {
+        return ProductDTO.builder()
+                .sku(sku)
+                .name("Admission product")
+                .price(new BigDecimal("9.99"))
+                .quantity(10)
+                .category(sku)
+                .isActive(true)
+                .build();
+    }
+}
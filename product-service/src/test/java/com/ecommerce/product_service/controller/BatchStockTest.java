@@ -0,0 +1,105 @@
+package com.ecommerce.product.controller;
+
+import com.ecommerce.product.dto.ProductDTO;
+import com.ecommerce.product.repository.ProductRepository;
+import com.ecommerce.product.service.ProductService;
+import com.ecommerce.product_service.ProductServiceApplication;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = ProductServiceApplication.class)
+@AutoConfigureMockMvc
+class BatchStockTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    void checkMergesRepeatedProductsBeforeComparing() throws Exception {
+        Long plenty = productService.createProduct(product("BATCH-CHECK-1", 10)).getId();
+        Long scarce = productService.createProduct(product("BATCH-CHECK-2", 2)).getId();
+
+        // 6 + 6 of the first product is more than it has, though each line alone fits
+        mockMvc.perform(post("/api/products/stock/check")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(batch(null, line(plenty, 6), line(scarce, 2), line(plenty, 6))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.available").value(false))
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.items[0].productId").value(plenty))
+                .andExpect(jsonPath("$.items[0].requestedQuantity").value(12))
+                .andExpect(jsonPath("$.items[0].available").value(false))
+                .andExpect(jsonPath("$.items[1].available").value(true));
+    }
+
+    @Test
+    void applyChangesNothingWhenOneLineIsShort() throws Exception {
+        Long plenty = productService.createProduct(product("BATCH-APPLY-1", 10)).getId();
+        Long scarce = productService.createProduct(product("BATCH-APPLY-2", 2)).getId();
+
+        mockMvc.perform(post("/api/products/stock/apply")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(batch("REDUCE", line(plenty, 3), line(scarce, 5))))
+                .andExpect(status().isBadRequest());
+
+        assertEquals(10, productRepository.findQuantityById(plenty).orElseThrow());
+        assertEquals(2, productRepository.findQuantityById(scarce).orElseThrow());
+        assertEquals(10, productService.getProductById(plenty).getQuantity());
+    }
+
+    @Test
+    void applyAppliesRepeatedProductsOnce() throws Exception {
+        Long repeated = productService.createProduct(product("BATCH-MERGE-1", 10)).getId();
+        Long single = productService.createProduct(product("BATCH-MERGE-2", 2)).getId();
+
+        mockMvc.perform(post("/api/products/stock/apply")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(batch("REDUCE", line(repeated, 2), line(single, 1), line(repeated, 3))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.quantities." + repeated).value(5))
+                .andExpect(jsonPath("$.quantities." + single).value(1));
+
+        // One conditional update per product, so the row version moved once
+        assertEquals(5, productRepository.findQuantityById(repeated).orElseThrow());
+        assertEquals(1, productRepository.findById(repeated).orElseThrow().getVersion());
+    }
+
+    private static String batch(String operationType, String... lines) {
+        String items = "\"items\":[" + String.join(",", lines) + "]";
+        return operationType == null
+                ? "{" + items + "}"
+                : "{" + items + ",\"operationType\":\"" + operationType + "\"}";
+    }
+
+    private static String line(Long productId, int quantity) {
+        return "{\"productId\":" + productId + ",\"quantity\":" + quantity + "}";
+    }
+
+    private static ProductDTO product(String sku, int quantity) {
+        return ProductDTO.builder()
+                .sku(sku)
+                .name("Batch stock product")
+                .price(new BigDecimal("2.50"))
+                .quantity(quantity)
+                .category("BatchStock")
+                .isActive(true)
+                .build();
+    }
+}
@@ -0,0 +1,112 @@
+package com.ecommerce.product.controller;
+
+import com.ecommerce.product.dto.ProductDTO;
+import com.ecommerce.product.dto.ProductUpdateDTO;
+import com.ecommerce.product.dto.StockUpdateDTO;
+import com.ecommerce.product.service.ProductService;
+import com.ecommerce.product_service.ProductServiceApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = ProductServiceApplication.class)
+@AutoConfigureMockMvc
+class ProductEtagTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void cachedBytesMatchJacksonAndRevalidateWithNotModified() throws Exception {
+        ProductDTO created = productService.createProduct(product("ETAG-READ"));
+
+        MvcResult first = mockMvc.perform(get("/api/products/{id}", created.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + created.getId() + "-0\""))
+                .andReturn();
+        assertEquals(objectMapper.writeValueAsString(productService.getProductById(created.getId())),
+                first.getResponse().getContentAsString());
+
+        mockMvc.perform(get("/api/products/{id}", created.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, first.getResponse().getHeader(HttpHeaders.ETAG)))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void updatesRefreshTheCachedEntry() throws Exception {
+        ProductDTO created = productService.createProduct(product("ETAG-WRITE"));
+        String original = etag(created.getId());
+
+        ProductUpdateDTO update = new ProductUpdateDTO();
+        update.setName("Renamed");
+        productService.updateProduct(created.getId(), update);
+        String renamed = etag(created.getId());
+        assertNotEquals(original, renamed);
+        mockMvc.perform(get("/api/products/{id}", created.getId()).header(HttpHeaders.IF_NONE_MATCH, original))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Renamed"));
+
+        StockUpdateDTO stock = new StockUpdateDTO();
+        stock.setQuantity(5);
+        stock.setOperationType(StockUpdateDTO.OperationType.ADD);
+        productService.updateStock(created.getId(), stock);
+        assertNotEquals(renamed, etag(created.getId()));
+        mockMvc.perform(get("/api/products/{id}", created.getId()))
+                .andExpect(jsonPath("$.quantity").value(15));
+    }
+
+    @Test
+    void pagesAreBrieflyFreshForSharedCaches() throws Exception {
+        ProductDTO created = productService.createProduct(product("ETAG-PAGE"));
+
+        for (String page : new String[]{"/api/products", "/api/products?cursor=", "/api/products/active",
+                "/api/products/category/Etag", "/api/products/category/Etag?cursor="}) {
+            mockMvc.perform(get(page))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=1"));
+        }
+        // Single products are revalidated by ETag instead
+        mockMvc.perform(get("/api/products/{id}", created.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CACHE_CONTROL));
+    }
+
+    private String etag(Long id) throws Exception {
+        return mockMvc.perform(get("/api/products/{id}", id))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    private static ProductDTO product(String sku) {
+        return ProductDTO.builder()
+                .sku(sku)
+                .name("Etag product")
+                .price(BigDecimal.valueOf(1999, 2))
+                .quantity(10)
+                .category("Etag")
+                .isActive(true)
+                .build();
+    }
+}
@@ -0,0 +1,130 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.product.dto.CursorPageDTO;
+import com.ecommerce.product.dto.ProductDTO;
+import com.ecommerce.product.exception.InvalidCursorException;
+import com.ecommerce.product_service.ProductServiceApplication;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = ProductServiceApplication.class)
+@AutoConfigureMockMvc
+class KeysetCursorTest {
+
+    // Nothing else in the test catalog is priced here, so seeking to it reaches only these products
+    private static final BigDecimal TIED_PRICE = new BigDecimal("987.65");
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void tokenRoundTripsTheSortKeyAndId() {
+        LocalDateTime updatedAt = LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123_456_000);
+        String cursor = KeysetCursor.encode("updatedAt", Sort.Direction.DESC, updatedAt, 42L);
+
+        KeysetScrollPosition position = KeysetCursor.decode(cursor, "updatedAt", Sort.Direction.DESC);
+        assertEquals(Map.of("updatedAt", updatedAt, "id", 42L), position.getKeys());
+        assertEquals(cursor, KeysetCursor.encode(position, "updatedAt", Sort.Direction.DESC));
+        // A blank cursor starts at the first row
+        assertEquals(Map.of(), KeysetCursor.decode("", "id", Sort.Direction.ASC).getKeys());
+    }
+
+    @Test
+    void tokensForAnotherSortOrTamperedOnesAreRejected() throws Exception {
+        String byPrice = KeysetCursor.encode("price", Sort.Direction.ASC, TIED_PRICE, 1L);
+        assertThrows(InvalidCursorException.class, () -> KeysetCursor.decode(byPrice, "name", Sort.Direction.ASC));
+        assertThrows(InvalidCursorException.class, () -> KeysetCursor.decode(byPrice, "price", Sort.Direction.DESC));
+        assertThrows(InvalidCursorException.class, () -> KeysetCursor.sort("description", Sort.Direction.ASC));
+
+        mockMvc.perform(get("/api/products").param("cursor", byPrice).param("sortBy", "name"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Invalid Cursor"));
+        mockMvc.perform(get("/api/products").param("cursor", "not-a-cursor!"))
+                .andExpect(status().isBadRequest());
+        // Well-formed, but the sort key no longer parses
+        String tampered = KeysetCursor.encode("price", Sort.Direction.ASC, "cheap", 1L);
+        mockMvc.perform(get("/api/products").param("cursor", tampered).param("sortBy", "price"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void equalSortKeysArePagedInIdOrderBothWays() {
+        List<Long> created = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            created.add(productService.createProduct(product("CURSOR-TIE-" + i, "CursorTie", TIED_PRICE)).getId());
+        }
+
+        String before = KeysetCursor.encode("price", Sort.Direction.ASC, new BigDecimal("987.64"), Long.MAX_VALUE);
+        assertEquals(created, firstIds(before, Sort.Direction.ASC, 5));
+
+        String after = KeysetCursor.encode("price", Sort.Direction.DESC, new BigDecimal("987.66"), 0L);
+        assertEquals(created.stream().sorted(Comparator.reverseOrder()).toList(),
+                firstIds(after, Sort.Direction.DESC, 5));
+    }
+
+    @Test
+    void totalIsCountedOnlyWhenAskedFor() throws Exception {
+        for (int i = 1; i <= 3; i++) {
+            productService.createProduct(product("CURSOR-TOTAL-" + i, "CursorTotal", new BigDecimal("5.00")));
+        }
+
+        mockMvc.perform(get("/api/products/category/{category}", "CursorTotal")
+                        .param("cursor", "").param("size", "2").param("includeTotal", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andExpect(jsonPath("$.totalElements").value(3));
+
+        CursorPageDTO<ProductDTO> page = productService.getProductsByCategory("CursorTotal", "", 2, false);
+        assertNull(page.getTotalElements());
+        CursorPageDTO<ProductDTO> last = productService.getProductsByCategory("CursorTotal", page.getNextCursor(), 2, false);
+        assertEquals(1, last.getContent().size());
+        assertFalse(last.isHasNext());
+        assertNull(last.getNextCursor());
+    }
+
+    // Follows next cursors two rows at a time until count ids are collected
+    private List<Long> firstIds(String cursor, Sort.Direction direction, int count) {
+        List<Long> ids = new ArrayList<>();
+        while (ids.size() < count) {
+            CursorPageDTO<ProductDTO> page = productService.getAllProducts(cursor, 2, "price", direction, false);
+            page.getContent().forEach(product -> ids.add(product.getId()));
+            cursor = page.getNextCursor();
+        }
+        return ids.subList(0, count);
+    }
+
+    private static ProductDTO product(String sku, String category, BigDecimal price) {
+        return ProductDTO.builder()
+                .sku(sku)
+                .name("Cursor product")
+                .price(price)
+                .quantity(10)
+                .category(category)
+                .isActive(true)
+                .build();
+    }
+}
@@ -0,0 +1,147 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.product.dto.ProductDTO;
+import com.ecommerce.product.dto.ProductUpdateDTO;
+import com.ecommerce.product.dto.StockUpdateDTO;
+import com.ecommerce.product.entity.Product;
+import com.ecommerce.product.event.ProductStockChangedEvent;
+import com.ecommerce.product.repository.ProductRepository;
+import com.ecommerce.product_service.ProductServiceApplication;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = ProductServiceApplication.class)
+@AutoConfigureMockMvc
+class LowStockTrackerTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private LowStockTracker lowStockTracker;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    void writesKeepTheLowStockListInQuantityOrder() {
+        ProductDTO three = productService.createProduct(product("LOW-ORDER-3", 3));
+        ProductDTO eight = productService.createProduct(product("LOW-ORDER-8", 8));
+        ProductDTO fifty = productService.createProduct(product("LOW-ORDER-50", 50));
+        ProductDTO plenty = productService.createProduct(product("LOW-ORDER-5000", 5000));
+        Set<Long> ours = Set.of(three.getId(), eight.getId(), fifty.getId(), plenty.getId());
+        assertTrue(lowStockTracker.isReady());
+        assertEquals(List.of(three.getId(), eight.getId()), lowStock(10, ours));
+
+        productService.updateStock(fifty.getId(), stock(StockUpdateDTO.OperationType.REDUCE, 45));
+        assertEquals(List.of(three.getId(), fifty.getId(), eight.getId()), lowStock(10, ours));
+
+        ProductUpdateDTO restocked = new ProductUpdateDTO();
+        restocked.setQuantity(2000);
+        productService.updateProduct(three.getId(), restocked);
+        assertEquals(List.of(fifty.getId(), eight.getId()), lowStock(10, ours));
+
+        // Above the tracked quantity the database answers, in the same order
+        assertEquals(List.of(fifty.getId(), eight.getId(), three.getId(), plenty.getId()), lowStock(10_000, ours));
+    }
+
+    @Test
+    void lateStockChangesDoNotOverwriteNewerOnes() {
+        ProductDTO product = productService.createProduct(product("LOW-LATE", 30));
+        Set<Long> ours = Set.of(product.getId());
+
+        // Two concurrent moves whose events are handled in reverse order
+        eventPublisher.publishEvent(new ProductStockChangedEvent(Map.of(product.getId(), 40), Map.of(product.getId(), 2L)));
+        eventPublisher.publishEvent(new ProductStockChangedEvent(Map.of(product.getId(), 3), Map.of(product.getId(), 1L)));
+        assertEquals(List.of(), lowStock(10, ours));
+
+        // Never seen by the tracker: the committed row wins over a stale change
+        Product unseen = productRepository.save(Product.builder()
+                .sku("LOW-UNSEEN").name("Low stock product").price(BigDecimal.ONE)
+                .quantity(2000).category("LowStock").isActive(true).build());
+        eventPublisher.publishEvent(new ProductStockChangedEvent(Map.of(unseen.getId(), 3), Map.of(unseen.getId(), -1L)));
+        assertEquals(List.of(), lowStock(10, Set.of(unseen.getId())));
+    }
+
+    @Test
+    void subscribersArePushedThresholdCrossings() throws Exception {
+        ProductDTO product = productService.createProduct(product("LOW-ALERT", 12));
+
+        MvcResult stream = mockMvc.perform(get("/api/products/low-stock/stream").param("threshold", "10"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        awaitContent(stream, "event:snapshot");
+
+        // 12 -> 11 stays above the threshold, 11 -> 4 crosses it, 4 -> 24 crosses back
+        productService.updateStock(product.getId(), stock(StockUpdateDTO.OperationType.REDUCE, 1));
+        productService.updateStock(product.getId(), stock(StockUpdateDTO.OperationType.REDUCE, 7));
+        productService.updateStock(product.getId(), stock(StockUpdateDTO.OperationType.ADD, 20));
+
+        String low = "\"type\":\"LOW\",\"productId\":" + product.getId() + ",\"quantity\":4,\"previousQuantity\":11";
+        String restocked = "\"type\":\"RESTOCKED\",\"productId\":" + product.getId() + ",\"quantity\":24,\"previousQuantity\":4";
+        String content = awaitContent(stream, restocked);
+        assertTrue(content.indexOf(low) > 0 && content.indexOf(low) < content.indexOf(restocked), content);
+        assertEquals(2, content.split("\"productId\":" + product.getId() + ",", -1).length - 1, content);
+
+        mockMvc.perform(get("/api/products/low-stock/stream").param("threshold", "100000"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private List<Long> lowStock(int threshold, Set<Long> ours) {
+        return productService.getLowStockProducts(threshold, 1000).stream()
+                .map(ProductDTO::getId)
+                .filter(ours::contains)
+                .toList();
+    }
+
+    private static String awaitContent(MvcResult stream, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5_000;
+        String content = stream.getResponse().getContentAsString();
+        while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            content = stream.getResponse().getContentAsString();
+        }
+        assertTrue(content.contains(expected), content);
+        return content;
+    }
+
+    private static StockUpdateDTO stock(StockUpdateDTO.OperationType operation, int quantity) {
+        StockUpdateDTO update = new StockUpdateDTO();
+        update.setOperationType(operation);
+        update.setQuantity(quantity);
+        return update;
+    }
+
+    private static ProductDTO product(String sku, int quantity) {
+        return ProductDTO.builder()
+                .sku(sku)
+                .name("Low stock product")
+                .price(BigDecimal.valueOf(999, 2))
+                .quantity(quantity)
+                .category("LowStock")
+                .isActive(true)
+                .build();
+    }
+}
@@ -0,0 +1,126 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.product.config.ProductCacheProperties;
+import com.ecommerce.product.dto.ProductDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ProductCacheTest {
+
+    private final ProductCache cache = new ProductCache(new ProductCacheProperties(), new SimpleMeterRegistry());
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void readsLoadOnceAndSkuLookupsShareTheIdEntry() {
+        ProductDTO first = cache.getById(1L, this::load);
+        assertSame(first, cache.getById(1L, this::load));
+        assertSame(first, cache.getBySku("SKU-1", sku -> {
+            throw new AssertionError("SKU lookup should hit the id entry");
+        }));
+        assertEquals(1, loads.get());
+
+        ProductDTO bySku = cache.getBySku("SKU-2", sku -> load(2L));
+        assertSame(bySku, cache.getById(2L, this::load));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void evictionRunsAgainOnceTheTransactionCompletes() {
+        cache.getById(1L, this::load);
+        cache.getEncodedById(1L, id -> encoded(id, 0));
+
+        TransactionSynchronizationManager.initSynchronization();
+        cache.evict(1L);
+        // A reader re-caches the old row before the write commits
+        cache.getById(1L, this::load);
+        cache.getEncodedById(1L, id -> encoded(id, 0));
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        cache.getById(1L, this::load);
+        assertEquals(3, loads.get());
+        assertEquals(1, cache.getEncodedById(1L, id -> encoded(id, 1)).version());
+    }
+
+    @Test
+    void skuLoadOverlappingAnEvictionIsNotCached() {
+        // A write commits and evicts while the SKU lookup is still reading the old row
+        ProductDTO stale = cache.getBySku("SKU-1", sku -> {
+            ProductDTO loaded = load(1L);
+            cache.evict(1L);
+            return loaded;
+        });
+        assertNotSame(stale, cache.getById(1L, this::load));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void refreshAfterCommitKeepsTheHigherVersion() {
+        cache.getEncodedById(1L, id -> encoded(id, 1));
+
+        // Committed write re-encodes the product instead of leaving a hole
+        TransactionSynchronizationManager.initSynchronization();
+        cache.refresh(1L, id -> encoded(id, 2));
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+        assertEquals(2, cache.getEncodedById(1L, id -> encoded(id, 0)).version());
+
+        // A later version cached meanwhile is not replaced by an older reload
+        TransactionSynchronizationManager.initSynchronization();
+        cache.refresh(1L, id -> encoded(id, 3));
+        cache.getEncodedById(1L, id -> encoded(id, 4));
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+        assertEquals(4, cache.getEncodedById(1L, id -> encoded(id, 0)).version());
+
+        // A rolled-back write leaves nothing behind
+        TransactionSynchronizationManager.initSynchronization();
+        cache.refresh(1L, id -> encoded(id, 5));
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+        assertEquals(6, cache.getEncodedById(1L, id -> encoded(id, 6)).version());
+    }
+
+    @Test
+    void categoryListIsCachedUntilEvicted() {
+        AtomicInteger categoryLoads = new AtomicInteger();
+        List<String> categories = cache.getCategories(() -> {
+            categoryLoads.incrementAndGet();
+            return List.of("Books", "Games");
+        });
+        assertEquals(List.of("Books", "Games"), cache.getCategories(() -> List.of()));
+        assertEquals(1, categoryLoads.get());
+
+        cache.evictCategories();
+        assertEquals(List.of("Toys"), cache.getCategories(() -> List.of("Toys")));
+        assertEquals(List.of("Books", "Games"), categories);
+    }
+
+    private void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+
+    private ProductDTO load(Long id) {
+        loads.incrementAndGet();
+        return ProductDTO.builder().id(id).sku("SKU-" + id).name("Cached product").build();
+    }
+
+    private static EncodedProduct encoded(Long id, long version) {
+        return new EncodedProduct(id, version, ("{\"id\":" + id + "}").getBytes());
+    }
+}
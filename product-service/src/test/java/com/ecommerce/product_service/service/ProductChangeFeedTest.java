@@ -0,0 +1,146 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.product.dto.ChangeFeedDTO;
+import com.ecommerce.product.dto.ProductChangeDTO;
+import com.ecommerce.product.dto.ProductDTO;
+import com.ecommerce.product.repository.ProductRepository;
+import com.ecommerce.product_service.ProductServiceApplication;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+// Own database without a settle lag, so fresh writes show up in the feed right away
+@SpringBootTest(classes = ProductServiceApplication.class, properties = {
+        "product.changes.settle-lag=0s",
+        "spring.datasource.url=jdbc:h2:mem:product_feed_test_db;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "spring.r2dbc.url=r2dbc:h2:mem:///product_feed_test_db;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000"
+})
+@AutoConfigureMockMvc
+class ProductChangeFeedTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductChangeFeed changeFeed;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void pagesFollowTheWatermarkWithoutGapsOrRepeats() {
+        String start = endOfFeed();
+        List<Long> created = List.of(
+                productService.createProduct(product("FEED-PAGE-1")).getId(),
+                productService.createProduct(product("FEED-PAGE-2")).getId(),
+                productService.createProduct(product("FEED-PAGE-3")).getId());
+
+        ChangeFeedDTO first = changeFeed.changesSince(start, 2);
+        assertEquals(created.subList(0, 2), productIds(first));
+        assertTrue(first.isHasMore());
+
+        ChangeFeedDTO second = changeFeed.changesSince(first.getWatermark(), 2);
+        assertEquals(created.subList(2, 3), productIds(second));
+        assertFalse(second.isHasMore());
+
+        // Nothing new: the watermark stays where it was
+        ChangeFeedDTO idle = changeFeed.changesSince(second.getWatermark(), 2);
+        assertTrue(idle.getChanges().isEmpty());
+        assertEquals(second.getWatermark(), idle.getWatermark());
+    }
+
+    @Test
+    void softDeletedProductsComeBackAsTombstones() {
+        Long id = productService.createProduct(product("FEED-DELETE")).getId();
+        String start = endOfFeed();
+
+        productService.deleteProduct(id);
+        List<ProductChangeDTO> changes = changeFeed.changesSince(start, 10).getChanges();
+        assertEquals(1, changes.size());
+        ProductChangeDTO tombstone = changes.get(0);
+        assertEquals(ProductChangeDTO.ChangeType.DELETE, tombstone.getType());
+        assertEquals(id, tombstone.getProductId());
+        assertEquals("FEED-DELETE", tombstone.getSku());
+        assertNull(tombstone.getProduct());
+    }
+
+    @Test
+    void cutoffComesFromTheClockThatStampsTheRows() {
+        Long id = productService.createProduct(product("FEED-CLOCK")).getId();
+        LocalDateTime stamped = productRepository.findById(id).orElseThrow().getUpdatedAt();
+        assertNotNull(stamped);
+        assertFalse(productRepository.currentTimestamp().isBefore(stamped));
+    }
+
+    @Test
+    void streamReplaysFromLastEventIdThenPushesLiveChanges() throws Exception {
+        String start = endOfFeed();
+        Long missed = productService.createProduct(product("FEED-STREAM-MISSED")).getId();
+
+        MvcResult stream = mockMvc.perform(get("/api/products/changes/stream").header("Last-Event-ID", start))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        Long live = productService.createProduct(product("FEED-STREAM-LIVE")).getId();
+
+        String body = awaitContent(stream, "FEED-STREAM-LIVE");
+        int replayed = body.indexOf("\"productId\":" + missed);
+        int pushed = body.indexOf("\"productId\":" + live);
+        assertTrue(replayed >= 0, body);
+        assertTrue(pushed > replayed, body);
+    }
+
+    // Pages to the end of the feed and returns the last watermark
+    private String endOfFeed() {
+        String watermark = null;
+        ChangeFeedDTO page;
+        do {
+            page = changeFeed.changesSince(watermark, 1000);
+            watermark = page.getWatermark();
+        } while (page.isHasMore());
+        return watermark;
+    }
+
+    private static String awaitContent(MvcResult stream, String expected) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        String body = stream.getResponse().getContentAsString();
+        while (!body.contains(expected) && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+            body = stream.getResponse().getContentAsString();
+        }
+        return body;
+    }
+
+    private static List<Long> productIds(ChangeFeedDTO page) {
+        return page.getChanges().stream().map(ProductChangeDTO::getProductId).toList();
+    }
+
+    private static ProductDTO product(String sku) {
+        return ProductDTO.builder()
+                .sku(sku)
+                .name("Feed product")
+                .price(new BigDecimal("3.49"))
+                .quantity(5)
+                .category("Feed")
+                .isActive(true)
+                .build();
+    }
+}
@@ -0,0 +1,136 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.product_service.ProductServiceApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(classes = ProductServiceApplication.class)
+class ProductExporterTest {
+
+    // Few rows, but padded so that buffering them all would still outgrow MAX_HEAP_GROWTH
+    private static final int ROWS = 20_000;
+    private static final String PADDING = "x".repeat(900);
+    private static final int SAMPLE_EVERY = 2_000;
+    private static final long MAX_HEAP_GROWTH = 8L * 1024 * 1024;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // The rows are seeded straight into the shared database, so take them out again for the other tests
+    @AfterEach
+    void removeSeededRows() {
+        jdbcTemplate.update("DELETE FROM products WHERE sku LIKE 'EXP-%'");
+    }
+
+    @Test
+    void exportKeepsHeapFlatRegardlessOfRowCount() {
+        seed("EXP-BULK-", "ExportBulk", ROWS, true, LocalDateTime.now());
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long baseline = usedHeapAfterGc(memory);
+        HeapSamplingSink sink = new HeapSamplingSink(memory);
+
+        long exported = productService.exportProducts(null, "ExportBulk", null, sink);
+
+        assertEquals(ROWS, exported);
+        assertEquals(ROWS, sink.lines);
+        long growth = sink.peakUsed - baseline;
+        assertTrue(growth < MAX_HEAP_GROWTH,
+                "Heap grew by " + growth / (1024 * 1024) + " MB while streaming " + ROWS + " rows");
+    }
+
+    @Test
+    void exportAppliesActiveCategoryAndSinceFilters() throws Exception {
+        LocalDateTime old = LocalDateTime.of(2020, 1, 1, 0, 0);
+        LocalDateTime recent = LocalDateTime.of(2024, 6, 1, 0, 0);
+        seed("EXP-OLD-", "ExportFilter", 3, true, old);
+        seed("EXP-NEW-", "ExportFilter", 4, true, recent);
+        seed("EXP-OFF-", "ExportFilter", 2, false, recent);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long exported = productService.exportProducts(true, "ExportFilter", recent.minusDays(1), out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(4, exported);
+        assertEquals(4, lines.length);
+        long previousId = 0;
+        for (String line : lines) {
+            JsonNode product = objectMapper.readTree(line);
+            assertTrue(product.get("sku").asText().startsWith("EXP-NEW-"));
+            assertTrue(product.get("id").asLong() > previousId);
+            previousId = product.get("id").asLong();
+        }
+    }
+
+    private static long usedHeapAfterGc(MemoryMXBean memory) {
+        System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private void seed(String skuPrefix, String category, int rows, boolean active, LocalDateTime updatedAt) {
+        Timestamp timestamp = Timestamp.valueOf(updatedAt);
+        List<Object[]> batch = new ArrayList<>(5_000);
+        for (int i = 0; i < rows; i++) {
+            batch.add(new Object[]{skuPrefix + i, "Export product " + i,
+                    "Description of export product " + i + PADDING, BigDecimal.valueOf(1999, 2), 10,
+                    category, "Acme", active, timestamp, timestamp, 0L});
+            if (batch.size() == 5_000 || i == rows - 1) {
+                jdbcTemplate.batchUpdate("INSERT INTO products (sku, name, description, price, quantity, " +
+                        "category, brand, is_active, created_at, updated_at, version) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+    }
+
+    // Discards the export while recording the post-GC heap every SAMPLE_EVERY lines
+    private static class HeapSamplingSink extends OutputStream {
+
+        private final MemoryMXBean memory;
+        private long lines;
+        private long peakUsed;
+
+        HeapSamplingSink(MemoryMXBean memory) {
+            this.memory = memory;
+        }
+
+        @Override
+        public void write(int b) {
+            if (b == '\n' && ++lines % SAMPLE_EVERY == 0) {
+                peakUsed = Math.max(peakUsed, usedHeapAfterGc(memory));
+            }
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            for (int i = offset; i < offset + length; i++) {
+                write(bytes[i]);
+            }
+        }
+    }
+}
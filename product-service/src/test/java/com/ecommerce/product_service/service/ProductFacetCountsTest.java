@@ -0,0 +1,126 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.product.dto.ProductDTO;
+import com.ecommerce.product.dto.ProductFacetsDTO;
+import com.ecommerce.product.dto.ProductUpdateDTO;
+import com.ecommerce.product_service.ProductServiceApplication;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = ProductServiceApplication.class)
+@AutoConfigureMockMvc
+class ProductFacetCountsTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductFacetCounts facetCounts;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void writesMoveProductsBetweenFacets() throws Exception {
+        ProductDTO first = productService.createProduct(product("FACET-WRITE-1", "FacetWrite", "Acme", true));
+        productService.createProduct(product("FACET-WRITE-2", "FacetWrite", "Acme", true));
+        ProductDTO other = productService.createProduct(product("FACET-WRITE-3", "FacetWrite", "Zenith", true));
+        productService.createProduct(product("FACET-WRITE-4", "FacetWrite", "Zenith", false));
+        assertTrue(facetCounts.isReady());
+
+        ProductFacetsDTO facets = productService.getFacets();
+        assertEquals(3L, facets.getCategories().get("FacetWrite"));
+        assertEquals(Map.of("Acme", 2L, "Zenith", 1L), facets.getCategoryBrands().get("FacetWrite"));
+        // Unchanged counts are served from the same snapshot
+        assertSame(facets, productService.getFacets());
+
+        ProductUpdateDTO moved = new ProductUpdateDTO();
+        moved.setCategory("FacetWriteMoved");
+        moved.setBrand("Zenith");
+        productService.updateProduct(first.getId(), moved);
+        productService.deleteProduct(other.getId());
+
+        facets = productService.getFacets();
+        assertEquals(1L, facets.getCategories().get("FacetWrite"));
+        assertEquals(Map.of("Acme", 1L), facets.getCategoryBrands().get("FacetWrite"));
+        assertEquals(Map.of("Zenith", 1L), facets.getCategoryBrands().get("FacetWriteMoved"));
+
+        mockMvc.perform(get("/api/products/facets"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.categories.FacetWrite").value(1))
+                .andExpect(jsonPath("$.categoryBrands.FacetWriteMoved.Zenith").value(1));
+    }
+
+    @Test
+    void reconciliationRepairsCountsChangedBehindTheService() {
+        ProductDTO product = productService.createProduct(product("FACET-DRIFT-1", "FacetDrift", "Acme", true));
+        productService.createProduct(product("FACET-DRIFT-2", "FacetDrift", "Acme", true));
+        assertEquals(Map.of("Acme", 2L), productService.getFacets().getCategoryBrands().get("FacetDrift"));
+
+        // A direct SQL edit publishes no event
+        jdbcTemplate.update("UPDATE products SET is_active = FALSE WHERE id = ?", product.getId());
+        assertEquals(2L, productService.getFacets().getCategories().get("FacetDrift"));
+
+        facetCounts.reconcile();
+        ProductFacetsDTO facets = productService.getFacets();
+        assertEquals(1L, facets.getCategories().get("FacetDrift"));
+        assertEquals(Map.of("Acme", 1L), facets.getCategoryBrands().get("FacetDrift"));
+
+        jdbcTemplate.update("UPDATE products SET is_active = FALSE WHERE category = ?", "FacetDrift");
+        facetCounts.reconcile();
+        assertNull(productService.getFacets().getCategories().get("FacetDrift"));
+    }
+
+    @Test
+    void importsAreCountedByABackgroundRebuild() throws Exception {
+        productService.createProduct(product("FACET-IMPORT-1", "FacetImport", "Acme", true));
+        String csv = "sku,name,price,quantity,category,brand\n"
+                + "FACET-IMPORT-2,Imported,1.00,5,FacetImport,Acme\n"
+                + "FACET-IMPORT-3,Imported,1.00,5,FacetImport,Zenith\n";
+
+        productService.importProducts(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+                ProductImporter.Format.CSV, false);
+        // The counts in use stay ready while the new ones are built
+        assertTrue(facetCounts.isReady());
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!Long.valueOf(3L).equals(productService.getFacets().getCategories().get("FacetImport"))
+                && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(Map.of("Acme", 2L, "Zenith", 1L), productService.getFacets().getCategoryBrands().get("FacetImport"));
+    }
+
+    private static ProductDTO product(String sku, String category, String brand, boolean active) {
+        return ProductDTO.builder()
+                .sku(sku)
+                .name("Facet product")
+                .price(new BigDecimal("9.99"))
+                .quantity(10)
+                .category(category)
+                .brand(brand)
+                .isActive(active)
+                .build();
+    }
+}
@@ -0,0 +1,137 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.product.config.ProductImportProperties;
+import com.ecommerce.product.dto.ImportResultDTO;
+import com.ecommerce.product.entity.Product;
+import com.ecommerce.product.repository.ProductRepository;
+import com.ecommerce.product_service.ProductServiceApplication;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(classes = ProductServiceApplication.class)
+class ProductImporterTest {
+
+    private static final String HEADER = "sku,name,price,quantity,category,brand\n";
+
+    @Autowired
+    private ProductImporter importer;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductImportProperties importProperties;
+
+    @Test
+    void knownSkusAreRejectedUnlessUpserting() {
+        ImportResultDTO first = importCsv(HEADER + "IMPORT-UPSERT-1,Original,1.00,5,Import,Acme\n", false);
+        assertEquals(1, first.getInserted());
+
+        ImportResultDTO rejected = importCsv(HEADER + "IMPORT-UPSERT-1,Replaced,2.00,9,Import,Acme\n", false);
+        assertEquals(0, rejected.getInserted());
+        assertEquals(1, rejected.getFailed());
+        assertEquals(2, rejected.getErrors().get(0).getLine());
+        assertEquals("Original", product("IMPORT-UPSERT-1").getName());
+
+        ImportResultDTO upserted = importCsv(HEADER + "IMPORT-UPSERT-1,Replaced,2.00,9,Import,Acme\n", true);
+        assertEquals(0, upserted.getInserted());
+        assertEquals(1, upserted.getUpdated());
+        Product product = product("IMPORT-UPSERT-1");
+        assertEquals("Replaced", product.getName());
+        assertEquals(0, new BigDecimal("2.00").compareTo(product.getPrice()));
+        assertEquals(9, product.getQuantity());
+        assertEquals(1, product.getVersion());
+    }
+
+    @Test
+    void rowRejectedByTheDatabaseFailsAloneAfterItsChunkIsRetried() {
+        // Passes validation, but is too long for the brand column, so the whole batch is rejected first
+        String tooLong = "B".repeat(300);
+        ImportResultDTO result = importCsv(HEADER
+                + "IMPORT-RETRY-1,Fine,1.00,5,Import,Acme\n"
+                + "IMPORT-RETRY-2,Broken,1.00,5,Import," + tooLong + "\n"
+                + "IMPORT-RETRY-3,Fine,1.00,5,Import,Acme\n", false);
+
+        assertEquals(3, result.getTotalRows());
+        assertEquals(2, result.getInserted());
+        assertEquals(1, result.getFailed());
+        assertEquals(3, result.getErrors().get(0).getLine());
+        assertEquals("IMPORT-RETRY-2", result.getErrors().get(0).getSku());
+        assertTrue(productRepository.existsBySku("IMPORT-RETRY-1"));
+        assertFalse(productRepository.existsBySku("IMPORT-RETRY-2"));
+        assertTrue(productRepository.existsBySku("IMPORT-RETRY-3"));
+    }
+
+    @Test
+    void repeatedSkuInOneFileIsRejectedOrAppliedInFileOrder() {
+        ImportResultDTO inserting = importCsv(HEADER
+                + "IMPORT-DUP-1,First,1.00,5,Import,Acme\n"
+                + "IMPORT-DUP-1,Second,1.00,6,Import,Acme\n", false);
+        assertEquals(1, inserting.getInserted());
+        assertEquals(1, inserting.getFailed());
+        assertEquals(3, inserting.getErrors().get(0).getLine());
+        assertEquals("First", product("IMPORT-DUP-1").getName());
+
+        // Within one chunk the insert is written before the update that follows it
+        ImportResultDTO upserting = importCsv(HEADER
+                + "IMPORT-DUP-2,First,1.00,5,Import,Acme\n"
+                + "IMPORT-DUP-2,Second,1.00,6,Import,Acme\n", true);
+        assertEquals(1, upserting.getInserted());
+        assertEquals(1, upserting.getUpdated());
+        assertEquals(List.of("Second", 6), List.of(product("IMPORT-DUP-2").getName(),
+                                                   product("IMPORT-DUP-2").getQuantity()));
+    }
+
+    @Test
+    void skuWhoseInsertFailedIsNeitherCountedAsUpdatedNorAsExisting() {
+        String tooLong = "B".repeat(300);
+        // Same chunk: the update queued behind the failed insert matches no row
+        ImportResultDTO sameChunk = importCsv(HEADER
+                + "IMPORT-LOST-1,Broken,1.00,5,Import," + tooLong + "\n"
+                + "IMPORT-LOST-1,Fixed,1.00,5,Import,Acme\n", true);
+        assertEquals(0, sameChunk.getInserted());
+        assertEquals(0, sameChunk.getUpdated());
+        assertEquals(2, sameChunk.getFailed());
+        assertEquals(List.of(2L, 3L), sameChunk.getErrors().stream().map(ImportResultDTO.RowError::getLine).toList());
+        assertFalse(productRepository.existsBySku("IMPORT-LOST-1"));
+
+        // Later chunk: the SKU is unknown again, so the row is inserted rather than rejected or updated
+        int chunkSize = importProperties.getChunkSize();
+        importProperties.setChunkSize(2);
+        try {
+            for (boolean upsert : List.of(false, true)) {
+                String sku = "IMPORT-LOST-" + (upsert ? "3" : "2");
+                ImportResultDTO laterChunk = importCsv(HEADER
+                        + sku + ",Broken,1.00,5,Import," + tooLong + "\n"
+                        + "IMPORT-LOST-FILLER-" + upsert + ",Fine,1.00,5,Import,Acme\n"
+                        + sku + ",Fixed,1.00,5,Import,Acme\n", upsert);
+                assertEquals(2, laterChunk.getInserted());
+                assertEquals(0, laterChunk.getUpdated());
+                assertEquals(1, laterChunk.getFailed());
+                assertEquals(2, laterChunk.getErrors().get(0).getLine());
+                assertEquals("Fixed", product(sku).getName());
+            }
+        } finally {
+            importProperties.setChunkSize(chunkSize);
+        }
+    }
+
+    private ImportResultDTO importCsv(String csv, boolean upsert) {
+        return importer.importProducts(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+                ProductImporter.Format.CSV, upsert);
+    }
+
+    private Product product(String sku) {
+        return productRepository.findBySku(sku).orElseThrow();
+    }
+}
@@ -0,0 +1,154 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.product.dto.ProductDTO;
+import com.ecommerce.product.dto.ProductUpdateDTO;
+import com.ecommerce.product.repository.ProductRepository;
+import com.ecommerce.product_service.ProductServiceApplication;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(classes = ProductServiceApplication.class)
+class ProductPriceIndexTest {
+
+    private static final Sort PRICE_ORDER = Sort.by("price", "id");
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductPriceIndex priceIndex;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    void rangePagesAreOrderedByPriceAndFiltered() {
+        // 1.00 .. 30.00, every third one inactive, plus a neighbour category in the same range
+        List<ProductDTO> created = new ArrayList<>();
+        for (int i = 1; i <= 30; i++) {
+            created.add(productService.createProduct(product("PIDX-RANGE-" + i, "PriceRange",
+                    BigDecimal.valueOf(i * 100L, 2), i % 3 != 0)));
+        }
+        productService.createProduct(product("PIDX-RANGE-OTHER", "PriceRangeOther", new BigDecimal("7.00"), true));
+        assertTrue(priceIndex.isReady());
+
+        // Bounds of any scale select the two-decimal prices they cover
+        Page<ProductDTO> page = productService.getProductsByPriceRange(new BigDecimal("4.999"),
+                new BigDecimal("20.001"), false, "PriceRange", PageRequest.of(1, 5, PRICE_ORDER));
+        assertEquals(16, page.getTotalElements());
+        assertEquals(List.of("10.00", "11.00", "12.00", "13.00", "14.00"), prices(page));
+
+        Page<ProductDTO> active = productService.getProductsByPriceRange(new BigDecimal("5"),
+                new BigDecimal("20"), true, "PriceRange", PageRequest.of(0, 20, PRICE_ORDER));
+        assertEquals(11, active.getTotalElements());
+        assertTrue(active.getContent().stream().allMatch(ProductDTO::getIsActive));
+
+        Page<ProductDTO> unknown = productService.getProductsByPriceRange(BigDecimal.ZERO,
+                new BigDecimal("100"), false, "NoSuchCategory", PageRequest.of(0, 20, PRICE_ORDER));
+        assertEquals(0, unknown.getTotalElements());
+
+        // Matches the database answer for the same query
+        assertEquals(ids(database("4.999", "20.001", false, "PriceRange", PageRequest.of(1, 5, PRICE_ORDER))),
+                page.getContent().stream().map(ProductDTO::getId).toList());
+    }
+
+    @Test
+    void writesMoveProductsWithinTheIndex() {
+        ProductDTO cheap = productService.createProduct(product("PIDX-WRITE-1", "PriceWrite", new BigDecimal("1.00"), true));
+        ProductDTO dear = productService.createProduct(product("PIDX-WRITE-2", "PriceWrite", new BigDecimal("50.00"), true));
+        assertEquals(List.of(cheap.getId(), dear.getId()), indexed(0, 100, false));
+
+        ProductUpdateDTO repriced = new ProductUpdateDTO();
+        repriced.setPrice(new BigDecimal("99.99"));
+        productService.updateProduct(cheap.getId(), repriced);
+        assertEquals(List.of(dear.getId(), cheap.getId()), indexed(0, 100, false));
+        assertEquals(List.of(dear.getId()), indexed(0, 99, false));
+
+        productService.deleteProduct(dear.getId());
+        assertEquals(List.of(cheap.getId()), indexed(0, 100, true));
+        assertEquals(List.of(dear.getId(), cheap.getId()), indexed(0, 100, false));
+
+        // A rebuild from the table arrives at the same order
+        priceIndex.rebuild();
+        assertEquals(List.of(dear.getId(), cheap.getId()), indexed(0, 100, false));
+    }
+
+    @Test
+    void concurrentRebuildsAndWritesLeaveTheIndexMatchingTheTable() throws Exception {
+        List<ProductDTO> created = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            created.add(productService.createProduct(product("PIDX-REBUILD-" + i, "PriceRebuild",
+                    BigDecimal.valueOf(i * 100L, 2), true)));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            tasks.add(executor.submit(priceIndex::rebuild));
+            tasks.add(executor.submit(priceIndex::rebuild));
+            tasks.add(executor.submit(() -> {
+                // Reverse the price order while the rebuilds load the table
+                for (int i = 0; i < created.size(); i++) {
+                    ProductUpdateDTO repriced = new ProductUpdateDTO();
+                    repriced.setPrice(BigDecimal.valueOf((created.size() - i) * 1000L + 50, 2));
+                    productService.updateProduct(created.get(i).getId(), repriced);
+                }
+            }));
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertTrue(priceIndex.isReady());
+        Pageable all = PageRequest.of(0, 50, PRICE_ORDER);
+        assertEquals(ids(database("0", "1000", false, "PriceRebuild", all)),
+                ids(productService.getProductsByPriceRange(BigDecimal.ZERO, new BigDecimal("1000"), false,
+                        "PriceRebuild", all)));
+    }
+
+    private List<Long> indexed(long minPrice, long maxPrice, boolean activeOnly) {
+        return ids(productService.getProductsByPriceRange(BigDecimal.valueOf(minPrice), BigDecimal.valueOf(maxPrice),
+                activeOnly, "PriceWrite", PageRequest.of(0, 10, PRICE_ORDER)));
+    }
+
+    private Page<ProductDTO> database(String minPrice, String maxPrice, boolean activeOnly, String category, Pageable pageable) {
+        return productRepository.findByPriceRange(new BigDecimal(minPrice), new BigDecimal(maxPrice), activeOnly,
+                category, pageable).map(product -> ProductDTO.builder().id(product.getId()).build());
+    }
+
+    private static List<Long> ids(Page<ProductDTO> page) {
+        return page.getContent().stream().map(ProductDTO::getId).toList();
+    }
+
+    private static List<String> prices(Page<ProductDTO> page) {
+        return page.getContent().stream().map(product -> product.getPrice().toPlainString()).toList();
+    }
+
+    private static ProductDTO product(String sku, String category, BigDecimal price, boolean active) {
+        return ProductDTO.builder()
+                .sku(sku)
+                .name("Price index product")
+                .price(price)
+                .quantity(10)
+                .category(category)
+                .isActive(active)
+                .build();
+    }
+}
@@ -0,0 +1,147 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.product.dto.ProductDTO;
+import com.ecommerce.product.dto.ProductUpdateDTO;
+import com.ecommerce.product.entity.Product;
+import com.ecommerce.product.event.ProductChangedEvent;
+import com.ecommerce.product.repository.ProductRepository;
+import com.ecommerce.product_service.ProductServiceApplication;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Each test searches for made-up words, so products other tests add to the shared catalog never match
+@SpringBootTest(classes = ProductServiceApplication.class)
+class ProductSearchIndexTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductSearchIndex searchIndex;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    void exactNameMatchesOutrankPrefixAndDescriptionMatches() {
+        Long inName = create("SIDX-RANK-1", "Zephyrine kettle", null).getId();
+        Long inDescription = create("SIDX-RANK-2", "Plain kettle", "A zephyrine finish").getId();
+        Long byPrefix = create("SIDX-RANK-3", "Zephyrinex lamp", null).getId();
+        assertTrue(searchIndex.isReady());
+
+        assertEquals(List.of(inName, byPrefix, inDescription), ids(searchIndex.search("zephyrine")));
+        // Accents and case are folded away on both sides
+        assertEquals(List.of(inName, byPrefix, inDescription), ids(searchIndex.search("ZÉPHYRINE")));
+        // Every token must match, each by prefix
+        assertEquals(List.of(inName, inDescription), ids(searchIndex.search("zephyrine kettle")));
+        assertEquals(List.of(byPrefix), ids(searchIndex.search("zephyr lamp")));
+        assertEquals(List.of(), ids(searchIndex.search("zephyrine teapot")));
+        assertEquals(List.of(), ids(searchIndex.search(" -- ")));
+    }
+
+    @Test
+    void equalScoresArePagedInIdOrder() {
+        List<Long> created = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            created.add(create("SIDX-PAGE-" + i, "Quillamoor gadget", null).getId());
+        }
+
+        Page<ProductDTO> second = productService.searchProducts("quillamoor", PageRequest.of(1, 2));
+        assertEquals(5, second.getTotalElements());
+        assertEquals(created.subList(2, 4), second.getContent().stream().map(ProductDTO::getId).toList());
+        assertEquals(created.subList(4, 5), productService.searchProducts("quillamoor", PageRequest.of(2, 2))
+                .getContent().stream().map(ProductDTO::getId).toList());
+    }
+
+    @Test
+    void updateMovesTheProductToItsNewTerms() {
+        Long id = create("SIDX-MOVE-1", "Vantrelle chair", null).getId();
+        assertEquals(List.of(id), ids(searchIndex.search("vantrelle")));
+
+        ProductUpdateDTO renamed = new ProductUpdateDTO();
+        renamed.setName("Ossiperm chair");
+        productService.updateProduct(id, renamed);
+
+        assertEquals(List.of(), ids(searchIndex.search("vantrelle")));
+        assertEquals(List.of(), ids(searchIndex.search("vant")));
+        assertEquals(List.of(id), ids(searchIndex.search("ossiperm")));
+    }
+
+    @Test
+    void olderVersionOfAProductIsIgnored() {
+        Long id = create("SIDX-STALE-1", "Marlowick stool", null).getId();
+        ProductUpdateDTO renamed = new ProductUpdateDTO();
+        renamed.setName("Tessavine stool");
+        productService.updateProduct(id, renamed);
+
+        // An event for the row as it was before the update, arriving late
+        Product stale = productRepository.findById(id).orElseThrow();
+        stale.setName("Marlowick stool");
+        stale.setVersion(stale.getVersion() - 1);
+        searchIndex.onProductChanged(new ProductChangedEvent(stale, false));
+
+        assertEquals(List.of(), ids(searchIndex.search("marlowick")));
+        assertEquals(List.of(id), ids(searchIndex.search("tessavine")));
+    }
+
+    @Test
+    void writesCommittedDuringRebuildsAreKept() throws Exception {
+        List<ProductDTO> created = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            created.add(create("SIDX-REBUILD-" + i, "Brimvale bench " + i, null));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            tasks.add(executor.submit(searchIndex::rebuild));
+            tasks.add(executor.submit(searchIndex::rebuild));
+            tasks.add(executor.submit(() -> {
+                // Rename every product while the rebuilds load the table
+                for (ProductDTO product : created) {
+                    ProductUpdateDTO renamed = new ProductUpdateDTO();
+                    renamed.setName("Corvantis bench");
+                    productService.updateProduct(product.getId(), renamed);
+                }
+            }));
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertTrue(searchIndex.isReady());
+        assertEquals(List.of(), ids(searchIndex.search("brimvale")));
+        assertEquals(created.stream().map(ProductDTO::getId).toList(), ids(searchIndex.search("corvantis")));
+    }
+
+    private ProductDTO create(String sku, String name, String description) {
+        return productService.createProduct(ProductDTO.builder()
+                .sku(sku)
+                .name(name)
+                .description(description)
+                .price(new BigDecimal("9.99"))
+                .quantity(10)
+                .category("SearchIndex")
+                .isActive(true)
+                .build());
+    }
+
+    private static List<Long> ids(List<ProductSearchIndex.SearchHit> hits) {
+        return hits.stream().map(ProductSearchIndex.SearchHit::productId).toList();
+    }
+}
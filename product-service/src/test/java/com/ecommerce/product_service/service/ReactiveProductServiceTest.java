@@ -0,0 +1,102 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.product.dto.ProductDTO;
+import com.ecommerce.product.exception.ProductNotFoundException;
+import com.ecommerce.product.repository.ProductRepository;
+import com.ecommerce.product_service.ProductServiceApplication;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(classes = ProductServiceApplication.class)
+class ReactiveProductServiceTest {
+
+    @Autowired
+    private ReactiveProductService reactiveProductService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    void readsProductsWrittenThroughJdbc() {
+        seed("RX-READ-", "ReactiveRead", 3, true, 100_000);
+        Long id = jdbcTemplate.queryForObject("SELECT MIN(id) FROM products WHERE category = 'ReactiveRead'", Long.class);
+
+        StepVerifier.create(reactiveProductService.getProductById(id))
+                .assertNext(product -> {
+                    assertEquals("RX-READ-2", product.getSku());
+                    assertEquals("ReactiveRead", product.getCategory());
+                })
+                .verifyComplete();
+        StepVerifier.create(reactiveProductService.getProductById(-1L))
+                .expectError(ProductNotFoundException.class)
+                .verify();
+        StepVerifier.create(reactiveProductService.getAllCategories().filter("ReactiveRead"::equals))
+                .expectNext("ReactiveRead")
+                .verifyComplete();
+    }
+
+    @Test
+    void categoriesMatchTheJpaQueryIncludingInactiveProducts() {
+        seed("RX-CATS-OFF-", "ReactiveInactiveOnly", 2, false, 400_000);
+
+        StepVerifier.create(reactiveProductService.getAllCategories().filter("ReactiveInactiveOnly"::equals))
+                .expectNext("ReactiveInactiveOnly")
+                .verifyComplete();
+        assertTrue(productRepository.findAllCategories().contains("ReactiveInactiveOnly"));
+    }
+
+    @Test
+    void categoryPagesSkipInactiveProductsAndHonourLimitAndOffset() {
+        seed("RX-CAT-", "ReactiveCategory", 5, true, 200_000);
+        seed("RX-CAT-OFF-", "ReactiveCategory", 2, false, 300_000);
+
+        StepVerifier.create(reactiveProductService.getProductsByCategory("ReactiveCategory", 1, 2).map(ProductDTO::getSku))
+                .expectNext("RX-CAT-2", "RX-CAT-1")
+                .verifyComplete();
+    }
+
+    @Test
+    void priceRangeIsOrderedByPriceAndEmitsOnlyOnDemand() {
+        seed("RX-PRICE-", "ReactivePrice", 50, true, 900_000);
+        BigDecimal min = BigDecimal.valueOf(900_000, 2);
+        BigDecimal max = BigDecimal.valueOf(900_049, 2);
+
+        StepVerifier.create(reactiveProductService.getProductsByPriceRange(min, max), 0)
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(100))
+                .thenRequest(1)
+                .assertNext(product -> assertEquals(0, min.compareTo(product.getPrice())))
+                .thenRequest(2)
+                .assertNext(product -> assertEquals(0, BigDecimal.valueOf(900_001, 2).compareTo(product.getPrice())))
+                .assertNext(product -> assertEquals(0, BigDecimal.valueOf(900_002, 2).compareTo(product.getPrice())))
+                .thenCancel()
+                .verify();
+    }
+
+    private void seed(String skuPrefix, String category, int rows, boolean active, long baseCents) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<Object[]> batch = new ArrayList<>(rows);
+        // Inserted in reverse so id order and price order disagree
+        for (int i = rows - 1; i >= 0; i--) {
+            batch.add(new Object[]{skuPrefix + i, "Product " + i, BigDecimal.valueOf(baseCents + i, 2), 10,
+                    category, active, now, now, 0L});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO products (sku, name, price, quantity, category, is_active, " +
+                "created_at, updated_at, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", batch);
+    }
+}
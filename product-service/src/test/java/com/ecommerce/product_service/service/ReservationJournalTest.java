@@ -0,0 +1,98 @@
+package com.ecommerce.product.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReservationJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void rotatedSegmentsAreReadInOrderAndDeletedByIndex() throws IOException {
+        ReservationJournal journal = new ReservationJournal(directory);
+        journal.open(0);
+        journal.append(1, -2);
+        journal.sync(journal.append(2, 5));
+
+        long current = journal.rotate();
+        journal.sync(journal.append(1, -1));
+
+        assertEquals(List.of(new ReservationJournal.Entry(1, 1, -2), new ReservationJournal.Entry(2, 2, 5),
+                             new ReservationJournal.Entry(3, 1, -1)), journal.readAll());
+
+        journal.deleteSegmentsBefore(current);
+        assertEquals(List.of(new ReservationJournal.Entry(3, 1, -1)), journal.readAll());
+        journal.close();
+    }
+
+    @Test
+    void tornRecordEndsOnlyItsSegment() throws IOException {
+        ReservationJournal crashed = new ReservationJournal(directory);
+        crashed.open(0);
+        crashed.append(7, -1);
+        crashed.sync(crashed.append(7, -2));
+        crashed.close();
+        // Half a record, as left by a crash mid-write
+        Files.write(lastSegment(), new byte[]{0, 0, 0, 0, 0, 0, 0, 3, 0, 0}, StandardOpenOption.APPEND);
+
+        ReservationJournal reopened = new ReservationJournal(directory);
+        assertEquals(2, reopened.readAll().size());
+        reopened.open(2);
+        reopened.sync(reopened.append(7, -3));
+        reopened.close();
+
+        assertEquals(List.of(new ReservationJournal.Entry(1, 7, -1), new ReservationJournal.Entry(2, 7, -2),
+                             new ReservationJournal.Entry(3, 7, -3)), reopened.readAll());
+    }
+
+    @Test
+    void concurrentAppendsAreAllWrittenOnce() throws Exception {
+        int threads = 16;
+        int appendsPerThread = 500;
+        ReservationJournal journal = new ReservationJournal(directory);
+        journal.open(0);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                long productId = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < appendsPerThread; i++) {
+                        journal.sync(journal.append(productId, -1));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        journal.close();
+
+        List<Long> sequences = journal.readAll().stream().map(ReservationJournal.Entry::sequence).toList();
+        assertEquals(LongStream.rangeClosed(1, threads * appendsPerThread).boxed().toList(), sequences);
+    }
+
+    private Path lastSegment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().reduce((first, second) -> second).orElseThrow();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.product.dto.StockUpdateDTO;
+import com.ecommerce.product.entity.Product;
+import com.ecommerce.product.exception.InsufficientStockException;
+import com.ecommerce.product.repository.ProductRepository;
+import com.ecommerce.product_service.ProductServiceApplication;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(classes = ProductServiceApplication.class)
+class StockEngineConcurrencyTest {
+
+    private static final int THREADS = 32;
+
+    @Autowired
+    private StockEngine stockEngine;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    void parallelDecrementsNeverOversell() throws Exception {
+        int initialStock = 1_000;
+        int attempts = 4_000;
+        Long productId = createProduct("HOT-SKU-1", initialStock);
+
+        AtomicInteger granted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        runInParallel(attempts, i -> {
+            try {
+                stockEngine.apply(productId, StockUpdateDTO.OperationType.REDUCE, 1);
+                granted.incrementAndGet();
+            } catch (InsufficientStockException ex) {
+                rejected.incrementAndGet();
+            }
+        });
+
+        assertEquals(initialStock, granted.get());
+        assertEquals(attempts - initialStock, rejected.get());
+        assertEquals(0, productRepository.findQuantityById(productId).orElseThrow());
+    }
+
+    @Test
+    void interleavedAddAndReduceLoseNoUpdates() throws Exception {
+        int initialStock = 5_000;
+        int operations = 4_000;
+        Long productId = createProduct("HOT-SKU-2", initialStock);
+
+        runInParallel(operations, i -> stockEngine.apply(productId,
+                i % 2 == 0 ? StockUpdateDTO.OperationType.ADD : StockUpdateDTO.OperationType.REDUCE, 1));
+
+        assertEquals(initialStock, productRepository.findQuantityById(productId).orElseThrow());
+        assertEquals(operations, productRepository.findById(productId).orElseThrow().getVersion());
+    }
+
+    @Test
+    void reduceBeyondAvailableLeavesStockUntouched() {
+        Long productId = createProduct("HOT-SKU-3", 5);
+
+        assertThrows(InsufficientStockException.class,
+                () -> stockEngine.apply(productId, StockUpdateDTO.OperationType.REDUCE, 6));
+        assertEquals(2, stockEngine.apply(productId, StockUpdateDTO.OperationType.REDUCE, 3).quantity());
+    }
+
+    @Test
+    void applyAllRollsBackEveryLineWhenOneIsShort() {
+        Long plenty = createProduct("BATCH-SKU-1", 10);
+        Long scarce = createProduct("BATCH-SKU-2", 2);
+
+        assertThrows(InsufficientStockException.class, () -> stockEngine.applyAll(
+                new TreeMap<>(Map.of(plenty, 3, scarce, 5)), StockUpdateDTO.OperationType.REDUCE));
+        // The first line had already been applied when the second failed
+        assertEquals(10, productRepository.findQuantityById(plenty).orElseThrow());
+        assertEquals(0, productRepository.findById(plenty).orElseThrow().getVersion());
+        assertEquals(2, productRepository.findQuantityById(scarce).orElseThrow());
+
+        Map<Long, StockChange> applied = stockEngine.applyAll(
+                new TreeMap<>(Map.of(plenty, 3, scarce, 2)), StockUpdateDTO.OperationType.REDUCE);
+        assertEquals(Map.of(plenty, new StockChange(7, 1), scarce, new StockChange(0, 1)), applied);
+    }
+
+    private Long createProduct(String sku, int quantity) {
+        return productRepository.save(Product.builder()
+                .sku(sku)
+                .name("Flash sale item")
+                .price(new BigDecimal("9.99"))
+                .quantity(quantity)
+                .category("Electronics")
+                .isActive(true)
+                .build()).getId();
+    }
+
+    private void runInParallel(int tasks, IndexedTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>(tasks);
+            for (int i = 0; i < tasks; i++) {
+                int index = i;
+                futures.add(executor.submit(() -> task.run(index)));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface IndexedTask {
+        void run(int index);
+    }
+}
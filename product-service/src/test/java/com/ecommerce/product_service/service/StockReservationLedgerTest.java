@@ -0,0 +1,336 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.product.config.StockReservationProperties;
+import com.ecommerce.product.dto.ImportResultDTO;
+import com.ecommerce.product.dto.ProductDTO;
+import com.ecommerce.product.dto.ProductUpdateDTO;
+import com.ecommerce.product.dto.StockUpdateDTO;
+import com.ecommerce.product.exception.InsufficientStockException;
+import com.ecommerce.product.repository.ProductRepository;
+import com.ecommerce.product.repository.StockLedgerCheckpointRepository;
+import com.ecommerce.product_service.ProductServiceApplication;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Own database, so ledger-mode writes stay out of the context the other tests share
+@SpringBootTest(classes = ProductServiceApplication.class, properties = {
+        "product.stock.reservation.enabled=true",
+        "product.stock.reservation.flush-interval-ms=3600000",
+        "product.stock.reservation.flush-threshold=1000000",
+        "spring.datasource.url=jdbc:h2:mem:product_ledger_test_db;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "spring.r2dbc.url=r2dbc:h2:mem:///product_ledger_test_db;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000"
+})
+@AutoConfigureMockMvc
+class StockReservationLedgerTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private StockReservationLedger ledger;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockLedgerCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private LowStockTracker lowStockTracker;
+
+    @TempDir
+    Path workDir;
+
+    @DynamicPropertySource
+    static void ledgerJournal(DynamicPropertyRegistry registry) throws IOException {
+        String journalDir = Files.createTempDirectory("stock-journal").toString();
+        registry.add("product.stock.reservation.journal-dir", () -> journalDir);
+    }
+
+    @Test
+    void flushEvictsTheCachedProduct() throws Exception {
+        ProductDTO created = productService.createProduct(product("LEDGER-CACHE", 10));
+        Long id = created.getId();
+        productService.updateStock(id, stock(StockUpdateDTO.OperationType.REDUCE, 3));
+
+        // Cached from the row, which has not seen the reservation yet
+        mockMvc.perform(get("/api/products/{id}", id))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + id + "-0\""))
+                .andExpect(jsonPath("$.quantity").value(10));
+
+        ledger.flush();
+        mockMvc.perform(get("/api/products/{id}", id))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + id + "-1\""))
+                .andExpect(jsonPath("$.quantity").value(7));
+    }
+
+    @Test
+    void lowStockRebuildTakesTheLedgerCountsOverUnflushedRows() {
+        Long draining = productService.createProduct(product("LEDGER-LOW-1", 50)).getId();
+        Long restocked = productService.createProduct(product("LEDGER-LOW-2", 3)).getId();
+        productService.updateStock(draining, stock(StockUpdateDTO.OperationType.REDUCE, 45));
+        productService.updateStock(restocked, stock(StockUpdateDTO.OperationType.ADD, 2000));
+
+        lowStockTracker.rebuild();
+        assertEquals(List.of(draining), productService.getLowStockProducts(10, 1000).stream()
+                .map(ProductDTO::getId)
+                .filter(id -> id.equals(draining) || id.equals(restocked))
+                .toList());
+    }
+
+    @Test
+    void upsertImportLeavesTheLedgerOwnedQuantityAlone() {
+        Long id = productService.createProduct(product("LEDGER-IMPORT", 10)).getId();
+        productService.updateStock(id, stock(StockUpdateDTO.OperationType.REDUCE, 3));
+
+        String csv = "sku,name,price,quantity,category\nLEDGER-IMPORT,Imported name,4.00,100,Ledger\n";
+        ImportResultDTO result = productService.importProducts(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), ProductImporter.Format.CSV, true);
+        assertEquals(1, result.getUpdated());
+
+        // The import's quantity would have overwritten the unflushed reservation
+        ledger.flush();
+        assertEquals("Imported name", productRepository.findById(id).orElseThrow().getName());
+        assertEquals(7, productRepository.findQuantityById(id).orElseThrow());
+        assertEquals(7, ledger.available(id));
+    }
+
+    @Test
+    void updateWhoseCommitFailsLeavesTheLedgerCountAlone() {
+        Long id = productService.createProduct(product("LEDGER-UPDATE", 10)).getId();
+        // Loaded now, so setting it later runs no query that would flush the update early
+        assertEquals(10, ledger.available(id));
+
+        // Too long for the brand column, so the update only fails when it is flushed at commit
+        ProductUpdateDTO rejected = new ProductUpdateDTO();
+        rejected.setBrand("B".repeat(300));
+        rejected.setQuantity(50);
+        assertThrows(DataAccessException.class, () -> productService.updateProduct(id, rejected));
+        assertEquals(10, ledger.available(id));
+
+        ProductUpdateDTO accepted = new ProductUpdateDTO();
+        accepted.setName("Renamed");
+        accepted.setQuantity(50);
+        ProductDTO updated = productService.updateProduct(id, accepted);
+        assertEquals(50, updated.getQuantity());
+        assertEquals("Renamed", updated.getName());
+        assertEquals(50, ledger.available(id));
+    }
+
+    @Test
+    void reserveAllGrantsNothingWhenOneLineIsShort() {
+        Long plenty = productService.createProduct(product("LEDGER-BATCH-1", 10)).getId();
+        Long scarce = productService.createProduct(product("LEDGER-BATCH-2", 2)).getId();
+
+        assertThrows(InsufficientStockException.class, () -> ledger.reserveAll(
+                new TreeMap<>(Map.of(plenty, 3, scarce, 5)), StockUpdateDTO.OperationType.REDUCE));
+        assertEquals(10, ledger.available(plenty));
+        assertEquals(2, ledger.available(scarce));
+
+        ledger.reserveAll(new TreeMap<>(Map.of(plenty, 3, scarce, 2)), StockUpdateDTO.OperationType.REDUCE);
+        assertEquals(7, ledger.available(plenty));
+        assertEquals(0, ledger.available(scarce));
+    }
+
+    @Test
+    void replayAppliesEachJournaledDeltaExactlyOnce() throws Exception {
+        Long id = productService.createProduct(product("LEDGER-REPLAY", 100)).getId();
+        Path backup = Files.createDirectories(workDir.resolve("backup"));
+
+        StockReservationLedger first = ledger("replay");
+        first.reserve(id, StockUpdateDTO.OperationType.REDUCE, 10);
+        first.reserve(id, StockUpdateDTO.OperationType.REDUCE, 5);
+        copySegments(journal(), backup);
+        first.flush();
+        assertEquals(85, quantity(id));
+        // Granted and journaled, then the process dies before the next flush
+        first.reserve(id, StockUpdateDTO.OperationType.REDUCE, 1);
+        // ...and as if it had also died before deleting the segments the flush committed
+        copySegments(backup, journal());
+
+        StockReservationLedger second = ledger("replay");
+        assertEquals(84, quantity(id));
+        assertEquals(84, second.available(id));
+
+        // Crashing again right after recovery replays nothing twice
+        StockReservationLedger third = ledger("replay");
+        assertEquals(84, quantity(id));
+        third.reserve(id, StockUpdateDTO.OperationType.REDUCE, 4);
+        third.stop();
+        assertEquals(80, quantity(id));
+    }
+
+    @Test
+    void failedJournalWriteGrantsNothingAndLeavesTheRowAlone() throws Exception {
+        Path full = Path.of("/dev/full");
+        assumeTrue(Files.exists(full), "needs /dev/full to make journal writes fail");
+        Long id = productService.createProduct(product("LEDGER-JOURNAL-FAIL", 10)).getId();
+        Long other = productService.createProduct(product("LEDGER-JOURNAL-FAIL-2", 10)).getId();
+
+        StockReservationLedger failing = ledger("journal-failure");
+        failing.reserve(id, StockUpdateDTO.OperationType.REDUCE, 1);
+        // The segment the next flush rotates to cannot take a single byte
+        Files.createSymbolicLink(journal().resolve("reservations-000000000002.journal"), full);
+        failing.flush();
+        assertEquals(9, quantity(id));
+
+        assertThrows(UncheckedIOException.class, () -> failing.reserve(id, StockUpdateDTO.OperationType.REDUCE, 2));
+        assertEquals(9, failing.available(id));
+        // Refused up front from now on, for every kind of grant
+        assertThrows(UncheckedIOException.class, () -> failing.reserve(id, StockUpdateDTO.OperationType.REDUCE, 2));
+        assertThrows(UncheckedIOException.class, () -> failing.set(id, 50));
+        assertThrows(UncheckedIOException.class, () -> failing.reserveAll(
+                new TreeMap<>(Map.of(id, 1, other, 1)), StockUpdateDTO.OperationType.REDUCE));
+        assertEquals(9, failing.available(id));
+        assertEquals(10, failing.available(other));
+
+        // Nothing unacknowledged reaches the row, whether or not the flush itself gets through
+        try {
+            failing.flush();
+        } catch (RuntimeException ex) {
+            // The broken segment cannot be rotated out either
+        }
+        assertEquals(9, quantity(id));
+        assertEquals(10, quantity(other));
+    }
+
+    @Test
+    void concurrentReservationsAndFlushesNeitherOversellNorLoseDeltas() throws Exception {
+        int initialStock = 3_000;
+        int attempts = 8_000;
+        Long id = productService.createProduct(product("LEDGER-CONCURRENT", initialStock)).getId();
+
+        AtomicInteger granted = new AtomicInteger();
+        AtomicBoolean done = new AtomicBoolean();
+        ExecutorService executor = Executors.newFixedThreadPool(33);
+        try {
+            Future<?> flusher = executor.submit(() -> {
+                while (!done.get()) {
+                    ledger.flush();
+                }
+            });
+            List<Future<?>> reservations = new ArrayList<>();
+            for (int i = 0; i < attempts; i++) {
+                reservations.add(executor.submit(() -> {
+                    try {
+                        ledger.reserve(id, StockUpdateDTO.OperationType.REDUCE, 1);
+                        granted.incrementAndGet();
+                    } catch (InsufficientStockException ex) {
+                        // Sold out
+                    }
+                }));
+            }
+            for (Future<?> reservation : reservations) {
+                reservation.get();
+            }
+            done.set(true);
+            flusher.get();
+        } finally {
+            executor.shutdown();
+        }
+
+        ledger.flush();
+        assertEquals(initialStock, granted.get());
+        assertEquals(0, ledger.available(id));
+        assertEquals(0, quantity(id));
+    }
+
+    // A ledger as started after a restart: recovers from the journal and checkpoint, then opens a new segment
+    private StockReservationLedger ledger(String nodeId) throws IOException {
+        StockReservationProperties properties = new StockReservationProperties();
+        properties.setNodeId(nodeId);
+        properties.setJournalDir(journal().toString());
+        properties.setFlushIntervalMs(3_600_000);
+        properties.setFlushThreshold(1_000_000);
+        StockReservationLedger started = new StockReservationLedger(productRepository, checkpointRepository,
+                jdbcTemplate, transactionManager, productCache, properties);
+        started.start();
+        return started;
+    }
+
+    private Path journal() {
+        return workDir.resolve("journal");
+    }
+
+    private int quantity(Long id) {
+        return productRepository.findQuantityById(id).orElseThrow();
+    }
+
+    private static void copySegments(Path from, Path to) throws IOException {
+        Files.createDirectories(to);
+        try (Stream<Path> files = Files.list(from)) {
+            for (Path file : files.filter(Files::isRegularFile).toList()) {
+                Files.copy(file, to.resolve(file.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    private static StockUpdateDTO stock(StockUpdateDTO.OperationType operationType, int quantity) {
+        StockUpdateDTO update = new StockUpdateDTO();
+        update.setOperationType(operationType);
+        update.setQuantity(quantity);
+        return update;
+    }
+
+    private static ProductDTO product(String sku, int quantity) {
+        return ProductDTO.builder()
+                .sku(sku)
+                .name("Ledger product")
+                .price(new BigDecimal("4.99"))
+                .quantity(quantity)
+                .category("Ledger")
+                .isActive(true)
+                .build();
+    }
+}